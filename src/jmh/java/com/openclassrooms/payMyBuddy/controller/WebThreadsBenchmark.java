@@ -0,0 +1,214 @@
+package com.openclassrooms.payMyBuddy.controller;
+
+import com.openclassrooms.payMyBuddy.PayMyBuddyApplication;
+import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import com.openclassrooms.payMyBuddy.service.BankAccountResolver;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * GET /transfer (dashboard render) and POST /transfer (P2P form) over HTTP, on the embedded Tomcat and H2 (MySQL mode),
+ * with platform request threads (virtual=false) or virtual threads (virtual=true, spring.threads.virtual.enabled).
+ * Each JMH thread is one logged-in browser (own session, CSRF token, payer/payee pair); every param value runs in its own fork.
+ * Reports throughput and sampled latency (p50 / p99 / p99.9), e.g.
+ * -Djmh.args="WebThreads -t 64 -p tomcatMaxThreads=16 -rf json -rff target/jmh-web.json"
+ * (a small worker pool facing more clients than workers is where the two modes differ).
+ * Sessions are kept in memory so that only the request threads differ between the two modes.
+ * A refused transfer also answers 302 (flash alert-danger): at the end of the trial every payee must have received
+ * exactly the transfers counted, otherwise the trial fails.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Threads(64)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class WebThreadsBenchmark {
+
+    static final int MAX_THREADS = 256;
+    static final String PASSWORD = "bench-password";
+    static final String TRANSFER_AMOUNT = "1.00";
+    static final Pattern CSRF = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+
+    @State(Scope.Benchmark)
+    public static class App {
+
+        @Param({"false", "true"})
+        public boolean virtual;
+
+        @Param({"200"})
+        public int tomcatMaxThreads;
+
+        ConfigurableApplicationContext context;
+        HttpClient http;
+        String baseUrl;
+        String[] payerEmails = new String[MAX_THREADS];
+        String[] payeeEmails = new String[MAX_THREADS];
+        final AtomicInteger nextSlot = new AtomicInteger();
+        final AtomicLongArray transfers = new AtomicLongArray(MAX_THREADS); // POST /transfer answered 302, per slot
+
+        @Setup(Level.Trial)
+        public void start() {
+            context = new SpringApplicationBuilder(PayMyBuddyApplication.class)
+                    .run("--server.port=0",
+                            "--spring.threads.virtual.enabled=" + virtual,
+                            "--server.tomcat.threads.max=" + tomcatMaxThreads,
+                            "--spring.datasource.url=jdbc:h2:mem:web;MODE=MySQL;LOCK_TIMEOUT=60000;DB_CLOSE_DELAY=-1",
+                            "--spring.datasource.username=sa",
+                            "--spring.datasource.password=",
+                            "--spring.jpa.hibernate.ddl-auto=create-drop",
+                            "--spring.flyway.enabled=false", // schema from the entities: the migrations are MySQL DDL
+                            "--paymybuddy.bank.fail-fast=false",
+                            "--paymybuddy.session.store=memory",
+                            "--paymybuddy.security.rate-limit.ip-capacity=1000000", // every browser logs in from 127.0.0.1
+                            "--logging.level.root=WARN",
+                            "--logging.level.com.openclassrooms=WARN",
+                            "--logging.level.org.springframework.security=WARN",
+                            "--logging.level.org.springframework.security.oauth2=WARN",
+                            "--logging.level.org.springframework.security.oauth2.client=WARN",
+                            "--logging.level.org.springframework.security.web=WARN");
+            baseUrl = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            UserRepository users = context.getBean(UserRepository.class);
+            String hash = context.getBean(PasswordEncoder.class).encode(PASSWORD); // one BCrypt, shared by every account
+            users.save(user("bank", "0.00", true, hash));
+            context.getBean(BankAccountResolver.class).refresh();
+            for (int i = 0; i < MAX_THREADS; i++) {
+                payerEmails[i] = users.save(user("payer" + i, "1000000000.00", false, hash)).getEmail();
+                payeeEmails[i] = users.save(user("payee" + i, "0.00", false, hash)).getEmail();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            try {
+                verifyTransfers();
+            } finally {
+                http.close();
+                context.close();
+            }
+        }
+
+        private void verifyTransfers() {
+            UserRepository users = context.getBean(UserRepository.class);
+            for (int i = 0; i < MAX_THREADS; i++) {
+                BigDecimal expected = new BigDecimal(TRANSFER_AMOUNT).multiply(BigDecimal.valueOf(transfers.get(i)));
+                BigDecimal received = users.findByEmail(payeeEmails[i]).orElseThrow().getBalance();
+                if (received.compareTo(expected) != 0) {
+                    throw new IllegalStateException("Payee " + i + " received " + received + ", expected " + expected
+                            + " (" + transfers.get(i) + " transfers answered 302)");
+                }
+            }
+        }
+
+        private static User user(String name, String balance, boolean bank, String hash) {
+            User u = new User();
+            u.setUsername(name);
+            u.setEmail(name + "@bench.io");
+            u.setPassword(hash);
+            u.setBalance(new BigDecimal(balance));
+            u.setBank(bank);
+            return u;
+        }
+    }
+
+    // One logged-in browser per benchmark thread: session cookie + CSRF token of the dashboard forms
+    @State(Scope.Thread)
+    public static class Browser {
+        int slot;
+        String cookie;
+        String csrf;
+        String receiverEmail;
+
+        @Setup(Level.Trial)
+        public void login(App app) throws IOException, InterruptedException {
+            slot = app.nextSlot.getAndIncrement() % MAX_THREADS;
+            receiverEmail = app.payeeEmails[slot];
+
+            HttpResponse<String> loginPage = send(app, get(app, "/login"));
+            String loggedIn = location(send(app, form(app, "/login",
+                    "username", app.payerEmails[slot], "password", PASSWORD, "_csrf", csrf(loginPage))));
+            if (!loggedIn.endsWith("/transfer")) {
+                throw new IllegalStateException("Login failed: " + loggedIn);
+            }
+            csrf = csrf(send(app, get(app, "/transfer"))); // the token changes at login
+        }
+
+        HttpRequest.Builder get(App app, String path) {
+            return withCookie(HttpRequest.newBuilder(URI.create(app.baseUrl + path)).GET());
+        }
+
+        HttpRequest.Builder form(App app, String path, String... params) {
+            StringBuilder body = new StringBuilder();
+            for (int i = 0; i < params.length; i += 2) {
+                if (!body.isEmpty()) body.append('&');
+                body.append(params[i]).append('=').append(URLEncoder.encode(params[i + 1], StandardCharsets.UTF_8));
+            }
+            return withCookie(HttpRequest.newBuilder(URI.create(app.baseUrl + path))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString())));
+        }
+
+        private HttpRequest.Builder withCookie(HttpRequest.Builder request) {
+            return (cookie == null) ? request : request.header("Cookie", cookie);
+        }
+
+        // Sends and keeps the session cookie up to date (a new session id is issued at login)
+        HttpResponse<String> send(App app, HttpRequest.Builder request) throws IOException, InterruptedException {
+            HttpResponse<String> response = app.http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            response.headers().firstValue("set-cookie").ifPresent(c -> cookie = c.substring(0, c.indexOf(';')));
+            return response;
+        }
+
+        private static String csrf(HttpResponse<String> page) {
+            Matcher m = CSRF.matcher(page.body());
+            if (page.statusCode() != 200 || !m.find()) {
+                throw new IllegalStateException("No CSRF token, status=" + page.statusCode());
+            }
+            return m.group(1);
+        }
+
+        private static String location(HttpResponse<String> response) {
+            return response.headers().firstValue("location").orElse("");
+        }
+    }
+
+    @Benchmark
+    public int getTransfer(App app, Browser browser) throws IOException, InterruptedException {
+        HttpResponse<String> page = browser.send(app, browser.get(app, "/transfer"));
+        if (page.statusCode() != 200) {
+            throw new IllegalStateException("GET /transfer status=" + page.statusCode());
+        }
+        return page.body().length();
+    }
+
+    @Benchmark
+    public int postTransfer(App app, Browser browser) throws IOException, InterruptedException {
+        HttpResponse<String> response = browser.send(app, browser.form(app, "/transfer",
+                "receiverEmail", browser.receiverEmail, "amount", TRANSFER_AMOUNT, "description", "bench", "_csrf", browser.csrf));
+        if (response.statusCode() != 302) {
+            throw new IllegalStateException("POST /transfer status=" + response.statusCode());
+        }
+        app.transfers.incrementAndGet(browser.slot); // checked against the payee balances after the trial
+        return response.statusCode();
+    }
+}
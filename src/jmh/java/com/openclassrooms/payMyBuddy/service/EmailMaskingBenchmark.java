@@ -0,0 +1,55 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.logging.EmailMasker;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Email masking for logs: the former String.replaceAll (regex compiled on every call), the same regex
+ * precompiled, and the EmailMasker char scan. The *_disabledLevel benchmarks log at TRACE (disabled) to show
+ * what each request pays when the line is not written: eager masking vs the lazy EmailMasker.masked argument.
+ * Run with -prof gc to compare allocations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class EmailMaskingBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailMaskingBenchmark.class);
+    private static final Pattern MASK = Pattern.compile("(^.).*(@.*$)");
+
+    @Param({"a@b.io", "marine.tissier@gmail.com", "not-an-email"})
+    public String email;
+
+    @Benchmark
+    public String regexReplaceAll() {
+        return (email == null) ? "unknown" : email.replaceAll("(^.).*(@.*$)", "$1***$2");
+    }
+
+    @Benchmark
+    public String regexPrecompiled() {
+        return (email == null) ? "unknown" : MASK.matcher(email).replaceAll("$1***$2");
+    }
+
+    @Benchmark
+    public String charScan() {
+        return EmailMasker.mask(email);
+    }
+
+    @Benchmark
+    public void regexReplaceAll_disabledLevel() {
+        log.trace("bench - email={}", (email == null) ? "unknown" : email.replaceAll("(^.).*(@.*$)", "$1***$2"));
+    }
+
+    @Benchmark
+    public void lazyCharScan_disabledLevel() {
+        log.trace("bench - email={}", EmailMasker.masked(email));
+    }
+}
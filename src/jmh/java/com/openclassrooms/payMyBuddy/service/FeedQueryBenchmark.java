@@ -0,0 +1,202 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.PayMyBuddyApplication;
+import com.openclassrooms.payMyBuddy.dto.FeedCursor;
+import com.openclassrooms.payMyBuddy.dto.FeedItemDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.MySQLContainer;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of one feed page (20 rows) as the history of the user grows: TransactionService.getFeedPage (UNION ALL of
+ * the sent and received index streams, limited per branch) against the former "sender or receiver" query.
+ * Measures whether the page cost follows the history size; the OR query reads and sorts the whole history.
+ * history = transactions of the measured user (half sent, half received); the other users have as many, so the
+ * table holds USERS_WITH_HISTORY x history / 2 rows.
+ *
+ * db=h2 (default): H2 in MySQL mode, schema from the entities plus the composite indexes of the V2 migration.
+ * The repository SQL is written for MySQL; H2 may not walk those indexes for it, so only db=mysql shows the
+ * production plans.
+ * db=mysql: MySQL 8 via Testcontainers, schema from the Flyway migrations (the production plans).
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="FeedQuery -p db=mysql -rf json -rff target/jmh-feed.json"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class FeedQueryBenchmark {
+
+    static final int PAGE_SIZE = 20;
+    static final int USERS_WITH_HISTORY = 5;
+    static final int BATCH = 5_000;
+
+    // Former feed query, kept here only as the baseline
+    static final String OR_FEED_JPQL = """
+            select new com.openclassrooms.payMyBuddy.dto.FeedItemDTO(
+                t.id, t.createdAt, t.type, t.description,
+                case when s.id = :userId then true else false end,
+                s.username, s.email, r.username, r.email,
+                t.grossAmount, t.feeAmount, t.netAmount)
+            from Transaction t
+            left join t.sender s
+            left join t.receiver r
+            where (s.id = :userId or r.id = :userId)
+            order by t.createdAt desc, t.id desc
+            """;
+
+    @State(Scope.Benchmark)
+    public static class Feed {
+
+        @Param({"h2"})
+        String db;
+
+        @Param({"1000", "10000", "100000"})
+        int history;
+
+        MySQLContainer<?> mysql;
+        ConfigurableApplicationContext context;
+        TransactionService transactionService;
+        EntityManagerFactory entityManagerFactory;
+        Integer userId;
+        FeedCursor middle;
+
+        @Setup(Level.Trial)
+        public void start() {
+            List<String> args = new ArrayList<>(List.of(
+                    "--server.port=0",
+                    "--paymybuddy.bank.fail-fast=false",
+                    "--logging.level.root=WARN",
+                    "--logging.level.com.openclassrooms=WARN",
+                    "--logging.level.org.springframework.security=WARN",
+                    "--logging.level.org.springframework.security.oauth2=WARN",
+                    "--logging.level.org.springframework.security.oauth2.client=WARN",
+                    "--logging.level.org.springframework.security.web=WARN"));
+            switch (db) {
+                case "h2" -> args.addAll(List.of(
+                        // QUERY_CACHE_SIZE=0: H2 would otherwise return the cached result of an unchanged table
+                        "--spring.datasource.url=jdbc:h2:mem:feed" + history + ";MODE=MySQL;DB_CLOSE_DELAY=-1;QUERY_CACHE_SIZE=0",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.flyway.enabled=false",
+                        "--paymybuddy.session.store=memory")); // no SPRING_SESSION table in this schema
+                case "mysql" -> {
+                    mysql = new MySQLContainer<>("mysql:8.0");
+                    mysql.start();
+                    args.addAll(List.of(
+                            "--spring.datasource.url=" + mysql.getJdbcUrl(),
+                            "--spring.datasource.username=" + mysql.getUsername(),
+                            "--spring.datasource.password=" + mysql.getPassword()));
+                }
+                default -> throw new IllegalArgumentException("db must be h2 or mysql: " + db);
+            }
+            context = new SpringApplicationBuilder(PayMyBuddyApplication.class)
+                    .web(WebApplicationType.SERVLET) // the security chains need Spring MVC
+                    .run(args.toArray(String[]::new));
+            transactionService = context.getBean(TransactionService.class);
+            entityManagerFactory = context.getBean(EntityManagerFactory.class);
+            fill(context.getBean(JdbcTemplate.class));
+
+            // Cursor half-way through the history: a "Voir plus" page deep in the past
+            middle = context.getBean(JdbcTemplate.class).queryForObject(
+                    "SELECT created_at, id FROM transactions WHERE sender_id = ? "
+                            + "ORDER BY created_at DESC, id DESC LIMIT 1 OFFSET ?",
+                    (rs, i) -> new FeedCursor(rs.getTimestamp(1).toLocalDateTime(), rs.getInt(2)),
+                    userId, history / 4);
+            verifySameFirstPage();
+        }
+
+        // The two queries must return the same rows, or the comparison means nothing
+        private void verifySameFirstPage() {
+            List<FeedItemDTO> expected = orFeed(this).subList(0, PAGE_SIZE);
+            List<FeedItemDTO> actual = transactionService.getFeedPage(userId, null, PAGE_SIZE).getItems();
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                FeedItemDTO e = expected.get(i);
+                FeedItemDTO a = actual.get(i);
+                if (!e.getId().equals(a.getId()) || e.getSignedAmount().compareTo(a.getSignedAmount()) != 0
+                        || !e.getCounterpartyEmail().equals(a.getCounterpartyEmail())) {
+                    throw new IllegalStateException("Feed row " + i + " differs: id " + a.getId() + " vs " + e.getId());
+                }
+            }
+        }
+
+        // Users 1..USERS_WITH_HISTORY pay the next one in turn, one transaction per minute
+        private void fill(JdbcTemplate jdbc) {
+            if (db.equals("h2")) {
+                jdbc.execute("CREATE INDEX ix_transactions_sender_created ON transactions (sender_id, created_at, id)");
+                jdbc.execute("CREATE INDEX ix_transactions_receiver_created ON transactions (receiver_id, created_at, id)");
+            }
+            List<Object[]> users = new ArrayList<>();
+            for (int i = 1; i <= USERS_WITH_HISTORY; i++) {
+                users.add(new Object[] {i, "user" + i, "user" + i + "@bench.io"});
+            }
+            jdbc.batchUpdate("INSERT INTO users (id, username, email, password, balance, version, is_bank) "
+                    + "VALUES (?, ?, ?, 'x', 0, 0, false)", users);
+            userId = 1;
+
+            LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+            long total = (long) USERS_WITH_HISTORY * history / 2;
+            List<Object[]> rows = new ArrayList<>(BATCH);
+            for (long n = 0; n < total; n++) {
+                int sender = (int) (n % USERS_WITH_HISTORY) + 1;
+                int receiver = sender % USERS_WITH_HISTORY + 1;
+                rows.add(new Object[] {sender, receiver, Timestamp.valueOf(start.plusMinutes(n))});
+                if (rows.size() == BATCH || n == total - 1) {
+                    jdbc.batchUpdate("INSERT INTO transactions (sender_id, receiver_id, description, created_at, type, "
+                            + "gross_amount, fee_amount, net_amount) VALUES (?, ?, 'bench', ?, 'P2P_TRANSFER', 10.00, 0.05, 10.00)", rows);
+                    rows.clear();
+                }
+            }
+            if (db.equals("mysql")) {
+                jdbc.execute("ANALYZE TABLE users, transactions");
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+            if (mysql != null) {
+                mysql.stop();
+            }
+        }
+    }
+
+    @Benchmark
+    public Object firstPage_unionAll(Feed feed) {
+        return feed.transactionService.getFeedPage(feed.userId, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Object middlePage_unionAll(Feed feed) {
+        return feed.transactionService.getFeedPage(feed.userId, feed.middle, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Object firstPage_orPredicate(Feed feed) {
+        return orFeed(feed);
+    }
+
+    static List<FeedItemDTO> orFeed(Feed feed) {
+        EntityManager em = feed.entityManagerFactory.createEntityManager();
+        try {
+            return em.createQuery(OR_FEED_JPQL, FeedItemDTO.class)
+                    .setParameter("userId", feed.userId)
+                    .setMaxResults(PAGE_SIZE + 1)
+                    .getResultList();
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.PayMyBuddyApplication;
+import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * End-to-end money movement on an embedded database (H2 in MySQL mode, full Spring context without web):
+ * UserService.transfer (lookups + WalletService) and WalletService.transferP2P alone.
+ * Each JMH thread pays from its own account ("spread") or every thread pays from the same one ("hotPayer",
+ * row-lock contention). Threads: -t N, e.g. -Djmh.args="WalletDb -t 8 -rf json -rff target/jmh-result.json".
+ * Logs (DEBUG security levels of config/application.properties included) are set to WARN so the console is not measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class WalletDbBenchmark {
+
+    static final int MAX_THREADS = 256;
+    static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @State(Scope.Benchmark)
+    public static class Db {
+
+        ConfigurableApplicationContext context;
+        UserService userService;
+        WalletService walletService;
+        Integer hotPayerId;
+        Integer[] payerIds = new Integer[MAX_THREADS];
+        Integer[] payeeIds = new Integer[MAX_THREADS];
+        String[] payeeEmails = new String[MAX_THREADS];
+        final AtomicInteger nextSlot = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void start() {
+            context = new SpringApplicationBuilder(PayMyBuddyApplication.class)
+                    .web(WebApplicationType.SERVLET) // the security chains need Spring MVC
+                    .run("--spring.datasource.url=jdbc:h2:mem:bench;MODE=MySQL;LOCK_TIMEOUT=60000;DB_CLOSE_DELAY=-1",
+                            "--spring.datasource.username=sa",
+                            "--spring.datasource.password=",
+                            "--spring.datasource.hikari.maximum-pool-size=" + (Runtime.getRuntime().availableProcessors() * 2),
+                            "--spring.jpa.hibernate.ddl-auto=create-drop",
+                            "--spring.flyway.enabled=false", // schema from the entities: the migrations are MySQL DDL
+                            "--paymybuddy.session.store=memory", // no SPRING_SESSION table in this schema
+                            "--server.port=0",
+                            "--paymybuddy.bank.fail-fast=false",
+                            "--logging.level.root=WARN",
+                            "--logging.level.com.openclassrooms=WARN",
+                            "--logging.level.org.springframework.security=WARN",
+                            "--logging.level.org.springframework.security.oauth2=WARN",
+                            "--logging.level.org.springframework.security.oauth2.client=WARN",
+                            "--logging.level.org.springframework.security.web=WARN");
+            userService = context.getBean(UserService.class);
+            walletService = context.getBean(WalletService.class);
+            UserRepository users = context.getBean(UserRepository.class);
+
+            users.save(user("bank", "0.00", true));
+            context.getBean(BankAccountResolver.class).refresh();
+            hotPayerId = users.save(user("hot", "1000000000.00", false)).getId();
+            for (int i = 0; i < MAX_THREADS; i++) {
+                payerIds[i] = users.save(user("payer" + i, "1000000000.00", false)).getId();
+                User payee = users.save(user("payee" + i, "0.00", false));
+                payeeIds[i] = payee.getId();
+                payeeEmails[i] = payee.getEmail();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+
+        private static User user(String name, String balance, boolean bank) {
+            User u = new User();
+            u.setUsername(name);
+            u.setEmail(name + "@bench.io");
+            u.setPassword("x");
+            u.setBalance(new BigDecimal(balance));
+            u.setBank(bank);
+            return u;
+        }
+    }
+
+    // One payer/payee pair per benchmark thread
+    @State(Scope.Thread)
+    public static class Slot {
+        int index;
+
+        @Setup(Level.Trial)
+        public void pick(Db db) {
+            index = db.nextSlot.getAndIncrement() % MAX_THREADS;
+        }
+    }
+
+    @Benchmark
+    public Object transferP2P_spread(Db db, Slot slot) {
+        return db.walletService.transferP2P(db.payerIds[slot.index], db.payeeIds[slot.index], AMOUNT, "bench");
+    }
+
+    @Benchmark
+    public Object transferP2P_hotPayer(Db db, Slot slot) {
+        return db.walletService.transferP2P(db.hotPayerId, db.payeeIds[slot.index], AMOUNT, "bench");
+    }
+
+    @Benchmark
+    public Object userServiceTransfer_spread(Db db, Slot slot) {
+        return db.userService.transfer(db.payerIds[slot.index], db.payeeEmails[slot.index], AMOUNT, "bench");
+    }
+}
@@ -0,0 +1,53 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fee math of WalletService, per operation: amount validation, HALF_UP rounding, 0.5% fee,
+ * and the derived amounts (top-up net, P2P/withdrawal total debit).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class WalletFeeBenchmark {
+
+    @Param({"10.00", "10.005", "123456.78"})
+    public String amount;
+
+    private BigDecimal value;
+
+    @Setup
+    public void setUp() {
+        value = new BigDecimal(amount);
+    }
+
+    @Benchmark
+    public BigDecimal round() {
+        return WalletService.round(value);
+    }
+
+    @Benchmark
+    public BigDecimal fee() {
+        return WalletService.fee(WalletService.round(value));
+    }
+
+    @Benchmark
+    public BigDecimal validateAndTotalDebit() {
+        WalletService.validateAmount(value);
+        BigDecimal gross = WalletService.round(value);
+        return gross.add(WalletService.fee(gross));
+    }
+
+    @Benchmark
+    public BigDecimal validateAndTopUpNet() {
+        WalletService.validateAmount(value);
+        BigDecimal gross = WalletService.round(value);
+        return WalletService.round(gross.subtract(WalletService.fee(gross)));
+    }
+}
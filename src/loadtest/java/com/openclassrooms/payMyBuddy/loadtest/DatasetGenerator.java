@@ -0,0 +1,448 @@
+package com.openclassrooms.payMyBuddy.loadtest;
+
+import com.openclassrooms.payMyBuddy.service.UserService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk-loads a synthetic PayMyBuddy dataset into an empty schema created by the Flyway migrations, so that query
+ * plans and benchmarks run against production-like volumes:
+ * - users: user{id}@gen.test, all with the same password (BCrypt computed once), an IBAN/BIC, and the bank account (id 1);
+ * - user_connections: power-law out-degree (a few users with hundreds of friends), friends picked by Zipf popularity;
+ * - transactions: TOP_UP / P2P_TRANSFER / WITHDRAWAL mix, log-normal amounts, fees and nets as WalletService computes
+ *   them, created_at increasing with the id over the last days; a P2P transfer goes to one of the sender's friends;
+ * - users.balance = what those transactions imply (users that would end negative get an opening top-up first),
+ *   so the balance reconciliation finds no drift; ledger_balance_snapshots opened from it, as the V4 migration does.
+ *
+ * Rows are generated in parallel chunks (one connection per worker, foreign and unique checks off for the session)
+ * and streamed with LOAD DATA LOCAL INFILE (mode=load-data, server needs local_infile=ON) or multi-row INSERTs
+ * (mode=insert). Every chunk has its own seed: the same options give the same dataset, whatever the worker count.
+ * Memory: about 40 bytes per user plus 4 bytes per connection (5M users, ~30M connections: -Xmx2g).
+ *
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.main=com.openclassrooms.payMyBuddy.loadtest.DatasetGenerator
+ *     -Dloadtest.args="url=jdbc:mysql://localhost:3306/paymybuddy db-user=root db-password=... users=5000000 transactions=200000000"
+ * Options (name=value): url, db-user, db-password, users, transactions, top-up, withdrawal (shares, the rest is P2P),
+ * min-connections, max-connections, connection-exponent, popularity-skew, activity-skew, days, workers, mode, seed,
+ * password (of the generated accounts), reset (true = empty the tables first).
+ */
+public final class DatasetGenerator {
+
+    private static final int BANK_ID = 1;
+    private static final int FIRST_USER_ID = 2;
+    private static final int TRANSACTION_CHUNK = 100_000;
+    private static final int USER_CHUNK = 100_000;
+    private static final long MIN_CENTS = 100;
+    private static final long MAX_CENTS = 500_000;
+    private static final String BIC = "GENEFRPPXXX";
+    private static final String[] DESCRIPTIONS = {
+            null, null, "Restaurant", "Cinéma", "Courses", "Loyer", "Remboursement", "Cadeau", "Vacances", "Concert"};
+
+    private DatasetGenerator() {
+    }
+
+    record Options(String url, String dbUser, String dbPassword, int users, long transactions,
+                   double topUpShare, double withdrawalShare, int minConnections, int maxConnections,
+                   double connectionExponent, double popularitySkew, double activitySkew, int days, int workers,
+                   String mode, long seed, String password, boolean reset) {
+
+        static Options parse(String[] args) {
+            Map<String, String> values = LoadTest.parseArgs(args);
+            Options options = new Options(
+                    values.remove("url"),
+                    values.getOrDefault("db-user", "root"),
+                    values.getOrDefault("db-password", ""),
+                    Integer.parseInt(values.getOrDefault("users", "100000")),
+                    Long.parseLong(values.getOrDefault("transactions", "4000000")),
+                    Double.parseDouble(values.getOrDefault("top-up", "0.2")),
+                    Double.parseDouble(values.getOrDefault("withdrawal", "0.1")),
+                    Integer.parseInt(values.getOrDefault("min-connections", "2")),
+                    Integer.parseInt(values.getOrDefault("max-connections", "1000")),
+                    Double.parseDouble(values.getOrDefault("connection-exponent", "2.5")),
+                    Double.parseDouble(values.getOrDefault("popularity-skew", "0.9")),
+                    Double.parseDouble(values.getOrDefault("activity-skew", "0.8")),
+                    Integer.parseInt(values.getOrDefault("days", "365")),
+                    Integer.parseInt(values.getOrDefault("workers",
+                            String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                    values.getOrDefault("mode", "load-data"),
+                    Long.parseLong(values.getOrDefault("seed", "42")),
+                    values.getOrDefault("password", "Dataset-1"),
+                    Boolean.parseBoolean(values.getOrDefault("reset", "false")));
+            values.keySet().removeAll(List.of("db-user", "db-password", "users", "transactions", "top-up", "withdrawal",
+                    "min-connections", "max-connections", "connection-exponent", "popularity-skew", "activity-skew",
+                    "days", "workers", "mode", "seed", "password", "reset"));
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException("Unknown options: " + values.keySet());
+            }
+            if (options.url == null) {
+                throw new IllegalArgumentException("url is required, e.g. url=jdbc:mysql://localhost:3306/paymybuddy");
+            }
+            if (options.users < 2 || options.transactions < 0 || options.transactions > Integer.MAX_VALUE / 2) {
+                throw new IllegalArgumentException("users must be >= 2 and transactions fit the int id column");
+            }
+            if (options.topUpShare < 0 || options.withdrawalShare < 0 || options.topUpShare + options.withdrawalShare > 1) {
+                throw new IllegalArgumentException("top-up and withdrawal are shares in [0, 1], at most 1 together");
+            }
+            if (options.minConnections < 0 || options.maxConnections < options.minConnections
+                    || options.connectionExponent <= 1 || options.workers < 1) {
+                throw new IllegalArgumentException("Invalid connection or worker options");
+            }
+            return options;
+        }
+
+        String jdbcUrl() {
+            if (!mode.equals("load-data") || url.contains("allowLoadLocalInfile")) return url;
+            return url + (url.contains("?") ? "&" : "?") + "allowLoadLocalInfile=true";
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        checkFeeRule();
+        System.out.printf("Dataset: %s users=%d transactions=%d mode=%s workers=%d seed=%d%n", options.url(),
+                options.users(), options.transactions(), options.mode(), options.workers(), options.seed());
+        new Run(options).execute();
+    }
+
+    // WalletService.fee: gross x 0.005, HALF_UP to the cent. Integer version used for every generated row.
+    static long feeCents(long grossCents) {
+        return (grossCents + 100) / 200;
+    }
+
+    private static void checkFeeRule() {
+        BigDecimal rate = new BigDecimal("0.005");
+        for (long cents = 1; cents <= MAX_CENTS; cents++) {
+            BigDecimal expected = BigDecimal.valueOf(cents, 2).multiply(rate).setScale(2, RoundingMode.HALF_UP);
+            if (expected.compareTo(BigDecimal.valueOf(feeCents(cents), 2)) != 0) {
+                throw new IllegalStateException("Fee rule mismatch for " + BigDecimal.valueOf(cents, 2));
+            }
+        }
+    }
+
+    // Independent stream per (phase, item): same dataset whatever the worker count or scheduling
+    private static SplittableRandom random(long seed, int phase, long item) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + phase * 0xC2B2AE3D27D4EB4FL + item);
+    }
+
+    private static int[] shuffledIndexes(int size, SplittableRandom random) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return order;
+    }
+
+    private static final class Run {
+
+        private final Options options;
+        private final int users;
+        // user index i <-> users.id FIRST_USER_ID + i; rank -> user index for both Zipf laws
+        private final int[] byPopularity;
+        private final int[] byActivity;
+        private final ZipfSampler popularity;
+        private final ZipfSampler activity;
+        // Out-neighbours of user i: friends[friendsFrom[i] .. friendsFrom[i] + friendCount[i])
+        private final int[] friendsFrom;
+        private final int[] friendCount;
+        private int[] friends;
+        private final AtomicLongArray balances;
+        private final long firstSecond;
+        private final long spanSeconds;
+
+        Run(Options options) {
+            this.options = options;
+            this.users = options.users();
+            this.byPopularity = shuffledIndexes(users, random(options.seed(), 1, 0));
+            this.byActivity = shuffledIndexes(users, random(options.seed(), 1, 1));
+            this.popularity = new ZipfSampler(users, options.popularitySkew());
+            this.activity = new ZipfSampler(users, options.activitySkew());
+            this.friendsFrom = new int[users];
+            this.friendCount = new int[users];
+            this.balances = new AtomicLongArray(users);
+            this.spanSeconds = options.days() * 86_400L;
+            this.firstSecond = Instant.now().getEpochSecond() - spanSeconds;
+        }
+
+        void execute() throws Exception {
+            try (Connection connection = connect()) {
+                prepareTables(connection);
+            }
+            long start = System.nanoTime();
+            phase("connection graph (memory)", this::buildGraph);
+            phase("user_connections", this::writeConnections);
+            phase("transactions", this::writeTransactions);
+            phase("opening top-ups", this::writeOpeningTopUps);
+            phase("users", this::writeUsers);
+            phase("ledger_balance_snapshots", this::openSnapshots);
+            System.out.printf("Done in %.1f s%n", (System.nanoTime() - start) / 1e9);
+        }
+
+        private interface Phase {
+            long run() throws Exception;
+        }
+
+        private void phase(String name, Phase phase) throws Exception {
+            long start = System.nanoTime();
+            long rows = phase.run();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-28s %,13d rows %8.1f s %,12.0f rows/s%n", name, rows, seconds, rows / seconds);
+        }
+
+        private Connection connect() throws SQLException {
+            Connection connection = DriverManager.getConnection(options.jdbcUrl(), options.dbUser(), options.dbPassword());
+            String product = connection.getMetaData().getDatabaseProductName();
+            try (Statement statement = connection.createStatement()) {
+                if (product.equals("MySQL")) {
+                    // Rows reference users written last; keys are generated unique. Session scope only.
+                    statement.execute("SET foreign_key_checks = 0");
+                    statement.execute("SET unique_checks = 0");
+                } else if (product.equals("H2")) {
+                    statement.execute("SET REFERENTIAL_INTEGRITY FALSE");
+                }
+            }
+            return connection;
+        }
+
+        private void prepareTables(Connection connection) throws SQLException {
+            List<String> tables = List.of("ledger_postings", "ledger_balance_snapshots", "transactions", "user_connections", "users");
+            try (Statement statement = connection.createStatement()) {
+                for (String table : tables) {
+                    boolean empty;
+                    try (ResultSet rs = statement.executeQuery("SELECT 1 FROM " + table + " LIMIT 1")) {
+                        empty = !rs.next();
+                    }
+                    if (!empty && !options.reset()) {
+                        throw new IllegalStateException(table + " is not empty: generate into a fresh schema, or pass reset=true");
+                    }
+                    if (!empty) {
+                        statement.execute("TRUNCATE TABLE " + table);
+                    }
+                }
+            }
+        }
+
+        // Out-degree ~ min-connections x (1 - u)^(-1 / (exponent - 1)): power law with exponent connection-exponent
+        private long buildGraph() {
+            long total = 0;
+            int cap = Math.min(options.maxConnections(), users - 1);
+            for (int i = 0; i < users; i++) {
+                double u = random(options.seed(), 2, i).nextDouble();
+                double degree = options.minConnections() * Math.pow(1 - u, -1 / (options.connectionExponent() - 1));
+                friendsFrom[i] = (int) total;
+                friendCount[i] = (int) Math.min(cap, Math.floor(degree));
+                total += friendCount[i];
+                if (total > Integer.MAX_VALUE - 8) {
+                    throw new IllegalArgumentException("Too many connections for one in-memory graph: lower max-connections");
+                }
+            }
+            friends = new int[(int) total];
+            IntStream.range(0, users).parallel().forEach(this::pickFriends);
+            return Arrays.stream(friendCount).asLongStream().sum();
+        }
+
+        // Distinct friends, by popularity; a draw that keeps hitting known friends shortens the list
+        private void pickFriends(int user) {
+            SplittableRandom random = random(options.seed(), 3, user);
+            int from = friendsFrom[user];
+            int wanted = friendCount[user];
+            int count = 0;
+            for (int attempt = 0; count < wanted && attempt < 4 * wanted + 16; attempt++) {
+                int friend = byPopularity[popularity.sample(random.nextDouble())];
+                if (friend == user || contains(friends, from, from + count, friend)) continue;
+                friends[from + count++] = friend;
+            }
+            Arrays.sort(friends, from, from + count); // primary key order: sequential inserts
+            friendCount[user] = count;
+        }
+
+        private static boolean contains(int[] values, int from, int to, int value) {
+            for (int i = from; i < to; i++) {
+                if (values[i] == value) return true;
+            }
+            return false;
+        }
+
+        private long writeConnections() throws Exception {
+            return inParallel(chunks(users, USER_CHUNK), (connection, chunk) -> {
+                try (RowSink sink = RowSink.open(options.mode(), connection, "user_connections", "user_id, connection_id")) {
+                    int end = (int) Math.min(users, (chunk + 1L) * USER_CHUNK);
+                    for (int user = chunk * USER_CHUNK; user < end; user++) {
+                        for (int k = friendsFrom[user]; k < friendsFrom[user] + friendCount[user]; k++) {
+                            sink.add(FIRST_USER_ID + user).add(FIRST_USER_ID + friends[k]).endRow();
+                        }
+                    }
+                    return sink.rows();
+                }
+            });
+        }
+
+        private long writeTransactions() throws Exception {
+            long total = options.transactions();
+            return inParallel(chunks(total, TRANSACTION_CHUNK), (connection, chunk) -> {
+                SplittableRandom random = random(options.seed(), 4, chunk);
+                try (RowSink sink = openTransactions(connection)) {
+                    long end = Math.min(total, (chunk + 1L) * TRANSACTION_CHUNK);
+                    for (long index = (long) chunk * TRANSACTION_CHUNK; index < end; index++) {
+                        long createdAt = firstSecond + (long) (index * (double) spanSeconds / total);
+                        writeTransaction(sink, random, index + 1, createdAt);
+                    }
+                    return sink.rows();
+                }
+            });
+        }
+
+        private RowSink openTransactions(Connection connection) throws SQLException {
+            return RowSink.open(options.mode(), connection, "transactions",
+                    "id, sender_id, receiver_id, description, created_at, type, gross_amount, fee_amount, net_amount");
+        }
+
+        // Same amounts and balance effects as WalletService.topUp / transferP2P / withdrawToBank
+        private void writeTransaction(RowSink sink, SplittableRandom random, long id, long createdAt) throws SQLException {
+            double kind = random.nextDouble();
+            int user = byActivity[activity.sample(random.nextDouble())];
+            String description = DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)];
+            if (kind < options.topUpShare()) {
+                long gross = amount(random, 10_000, 0.8);
+                long fee = feeCents(gross);
+                balances.addAndGet(user, gross - fee);
+                row(sink, id, BANK_ID, FIRST_USER_ID + user, description, createdAt, "TOP_UP", gross, fee, gross - fee);
+            } else if (kind < options.topUpShare() + options.withdrawalShare()) {
+                long gross = amount(random, 15_000, 0.8);
+                long fee = feeCents(gross);
+                balances.addAndGet(user, -(gross + fee));
+                row(sink, id, FIRST_USER_ID + user, BANK_ID, description, createdAt, "WITHDRAWAL", gross, fee, gross);
+            } else {
+                int receiver = (friendCount[user] > 0)
+                        ? friends[friendsFrom[user] + random.nextInt(friendCount[user])]
+                        : otherThan(user, byPopularity[popularity.sample(random.nextDouble())]);
+                long gross = amount(random, 2_500, 1.0);
+                long fee = feeCents(gross);
+                balances.addAndGet(user, -(gross + fee));
+                balances.addAndGet(receiver, gross);
+                row(sink, id, FIRST_USER_ID + user, FIRST_USER_ID + receiver, description, createdAt, "P2P_TRANSFER",
+                        gross, fee, gross);
+            }
+        }
+
+        private int otherThan(int user, int pick) {
+            return (pick != user) ? pick : (pick + 1) % users;
+        }
+
+        // Log-normal amount around a median (cents), 1.00 to 5000.00
+        private static long amount(SplittableRandom random, long medianCents, double sigma) {
+            long cents = Math.round(medianCents * Math.exp(sigma * random.nextGaussian()));
+            return Math.max(MIN_CENTS, Math.min(MAX_CENTS, cents));
+        }
+
+        private static void row(RowSink sink, long id, int sender, int receiver, String description, long createdAt,
+                                String type, long gross, long fee, long net) throws SQLException {
+            sink.add(id).add(sender).add(receiver).addString(description).addDateTime(createdAt).addString(type)
+                    .addCents(gross).addCents(fee).addCents(net).endRow();
+        }
+
+        // Users whose generated history ends below zero were funded before it started: one top-up each
+        private long writeOpeningTopUps() throws SQLException {
+            SplittableRandom random = random(options.seed(), 5, 0);
+            long id = options.transactions();
+            try (Connection connection = connect(); RowSink sink = openTransactions(connection)) {
+                for (int user = 0; user < users; user++) {
+                    long balance = balances.get(user);
+                    if (balance >= 0) continue;
+                    long wantedNet = -balance + random.nextLong(0, 10_000);
+                    long gross = Math.max(MIN_CENTS, wantedNet * 200 / 199);
+                    while (gross - feeCents(gross) < wantedNet) gross++;
+                    long fee = feeCents(gross);
+                    balances.addAndGet(user, gross - fee);
+                    row(sink, ++id, BANK_ID, FIRST_USER_ID + user, "Approvisionnement initial",
+                            firstSecond - random.nextLong(1, 86_400), "TOP_UP", gross, fee, gross - fee);
+                }
+                return sink.rows();
+            }
+        }
+
+        private long writeUsers() throws Exception {
+            String hash = new BCryptPasswordEncoder().encode(options.password());
+            String columns = "id, username, email, password, balance, version, iban, bic, is_bank";
+            try (Connection connection = connect(); RowSink sink = RowSink.open(options.mode(), connection, "users", columns)) {
+                sink.add(BANK_ID).addString("bank").addString("bank@gen.test").addString(UserService.OAUTH2_ONLY_PASSWORD)
+                        .addCents(0).add(0).addString(null).addString(null).add(1).endRow();
+            }
+            return 1 + inParallel(chunks(users, USER_CHUNK), (connection, chunk) -> {
+                try (RowSink sink = RowSink.open(options.mode(), connection, "users", columns)) {
+                    int end = (int) Math.min(users, (chunk + 1L) * USER_CHUNK);
+                    for (int user = chunk * USER_CHUNK; user < end; user++) {
+                        int id = FIRST_USER_ID + user;
+                        String iban = "FR76" + String.format("%023d", id);
+                        sink.add(id).addString("user" + id).addString("user" + id + "@gen.test").addString(hash)
+                                .addCents(balances.get(user)).add(0).addString(iban).addString(BIC).add(0).endRow();
+                    }
+                    return sink.rows();
+                }
+            });
+        }
+
+        // Same opening snapshot as the V4 ledger migration: the generated history has no ledger postings
+        private long openSnapshots() throws SQLException {
+            try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+                return statement.executeUpdate("INSERT INTO ledger_balance_snapshots (user_id, balance, last_posting_id, taken_at) "
+                        + "SELECT id, balance, 0, CURRENT_TIMESTAMP FROM users WHERE is_bank = 0");
+            }
+        }
+
+        private static int chunks(long rows, int chunkSize) {
+            return (int) ((rows + chunkSize - 1) / chunkSize);
+        }
+
+        private interface ChunkWriter {
+            long write(Connection connection, int chunk) throws Exception;
+        }
+
+        // Workers take the next chunk until none is left; each keeps its own connection
+        private long inParallel(int chunks, ChunkWriter writer) throws Exception {
+            AtomicLong nextChunk = new AtomicLong();
+            AtomicLong rows = new AtomicLong();
+            ExecutorService pool = Executors.newFixedThreadPool(options.workers());
+            try {
+                List<Future<?>> workers = new ArrayList<>();
+                for (int w = 0; w < options.workers(); w++) {
+                    workers.add(pool.submit(() -> {
+                        try (Connection connection = connect()) {
+                            for (long chunk = nextChunk.getAndIncrement(); chunk < chunks; chunk = nextChunk.getAndIncrement()) {
+                                rows.addAndGet(writer.write(connection, (int) chunk));
+                            }
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> worker : workers) {
+                    worker.get();
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+            return rows.get();
+        }
+    }
+}
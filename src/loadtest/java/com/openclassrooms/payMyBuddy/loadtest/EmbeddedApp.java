@@ -0,0 +1,91 @@
+package com.openclassrooms.payMyBuddy.loadtest;
+
+import com.openclassrooms.payMyBuddy.PayMyBuddyApplication;
+import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import com.openclassrooms.payMyBuddy.service.BankAccountResolver;
+import com.openclassrooms.payMyBuddy.service.UserService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.MySQLContainer;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The application started in the load-test JVM, on a random port: H2 in MySQL mode, or MySQL 8 in a container.
+ * H2: schema by Hibernate, Spring Session tables by Spring Session (the migrations are MySQL DDL).
+ * MySQL: schema by the Flyway migrations, indexes included, as in production. Then the bank account.
+ * Login/register throttling is lifted: every virtual user comes from 127.0.0.1.
+ * Generator and server share the CPU here; for capacity figures, point target= at a dedicated instance.
+ */
+final class EmbeddedApp implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final MySQLContainer<?> mysql;
+
+    private EmbeddedApp(ConfigurableApplicationContext context, MySQLContainer<?> mysql) {
+        this.context = context;
+        this.mysql = mysql;
+    }
+
+    static EmbeddedApp start(String db) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--paymybuddy.bank.fail-fast=false",
+                "--paymybuddy.security.rate-limit.ip-capacity=1000000",
+                "--paymybuddy.security.rate-limit.account-capacity=1000000",
+                "--logging.level.root=WARN",
+                "--logging.level.com.openclassrooms=WARN",
+                "--logging.level.org.springframework.security=WARN",
+                "--logging.level.org.springframework.security.oauth2=WARN",
+                "--logging.level.org.springframework.security.oauth2.client=WARN",
+                "--logging.level.org.springframework.security.web=WARN"));
+
+        MySQLContainer<?> mysql = null;
+        switch (db) {
+            case "h2" -> args.addAll(List.of(
+                    "--spring.datasource.url=jdbc:h2:mem:load;MODE=MySQL;LOCK_TIMEOUT=60000;DB_CLOSE_DELAY=-1",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.hibernate.ddl-auto=create-drop",
+                    "--spring.flyway.enabled=false",
+                    "--spring.session.jdbc.initialize-schema=always"));
+            case "mysql" -> {
+                mysql = new MySQLContainer<>("mysql:8.0");
+                mysql.start();
+                args.addAll(List.of(
+                        "--spring.datasource.url=" + mysql.getJdbcUrl(),
+                        "--spring.datasource.username=" + mysql.getUsername(),
+                        "--spring.datasource.password=" + mysql.getPassword()));
+            }
+            default -> throw new IllegalArgumentException("db must be h2 or mysql: " + db);
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(PayMyBuddyApplication.class)
+                .run(args.toArray(String[]::new));
+        User bank = new User();
+        bank.setUsername("bank");
+        bank.setEmail("bank@load.test");
+        bank.setPassword(UserService.OAUTH2_ONLY_PASSWORD); // cannot log in
+        bank.setBalance(BigDecimal.ZERO);
+        bank.setBank(true);
+        context.getBean(UserRepository.class).save(bank);
+        context.getBean(BankAccountResolver.class).refresh();
+        return new EmbeddedApp(context, mysql);
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        if (mysql != null) {
+            mysql.stop();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.openclassrooms.payMyBuddy.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Response times per endpoint (microseconds, 3 significant digits, auto-resizing) and error counts.
+ * Only requests started after the warm-up are recorded.
+ */
+final class LatencyRecorder {
+
+    private static final double MICROS_PER_MS = 1000.0;
+
+    private final Map<String, Histogram> latencies = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long elapsedNanos) {
+        latencies.computeIfAbsent(endpoint, e -> new ConcurrentHistogram(3)).recordValue(Math.max(1, elapsedNanos / 1000));
+    }
+
+    void error(String endpoint) {
+        errors.computeIfAbsent(endpoint, e -> new LongAdder()).increment();
+    }
+
+    void print(PrintStream out, double seconds) {
+        out.printf("%n%-26s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (String endpoint : endpoints()) {
+            Histogram h = latencies.get(endpoint);
+            long count = (h == null) ? 0 : h.getTotalCount();
+            long failed = errors.containsKey(endpoint) ? errors.get(endpoint).sum() : 0;
+            out.printf("%-26s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    endpoint, count, failed, count / seconds,
+                    ms(h, 50), ms(h, 90), ms(h, 99), ms(h, 99.9), (h == null) ? 0 : h.getMaxValue() / MICROS_PER_MS);
+        }
+    }
+
+    // One percentile distribution per endpoint, readable by the HdrHistogram plotter
+    void write(Path dir) throws IOException {
+        for (Map.Entry<String, Histogram> entry : latencies.entrySet()) {
+            String file = entry.getKey().replaceAll("[^A-Za-z0-9]+", "_").replaceAll("^_|_$", "") + ".hgrm";
+            try (PrintStream out = new PrintStream(dir.resolve(file).toFile())) {
+                entry.getValue().outputPercentileDistribution(out, MICROS_PER_MS);
+            }
+        }
+    }
+
+    private Iterable<String> endpoints() {
+        Map<String, Boolean> all = new TreeMap<>();
+        latencies.keySet().forEach(e -> all.put(e, true));
+        errors.keySet().forEach(e -> all.put(e, true));
+        return all.keySet();
+    }
+
+    private static double ms(Histogram h, double percentile) {
+        return (h == null) ? 0 : h.getValueAtPercentile(percentile) / MICROS_PER_MS;
+    }
+}
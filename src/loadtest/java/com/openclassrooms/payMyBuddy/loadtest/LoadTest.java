@@ -0,0 +1,127 @@
+package com.openclassrooms.payMyBuddy.loadtest;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop load test of the browser flows: each virtual user registers, logs in, tops up once, then loops
+ * over dashboard -> (add the recipient as a friend if needed) -> P2P transfer, waiting for every response and
+ * sleeping an exponential think time between pages. Recipients follow a Zipf law (a few very popular accounts).
+ * Latencies are recorded per endpoint in HdrHistogram after the warm-up, then printed as percentiles and written
+ * as .hgrm files (target/loadtest by default).
+ *
+ * mvn -Ploadtest test-compile exec:exec -Dloadtest.args="users=200 duration=PT2M think=PT1S"
+ * Options (name=value): target (URL of a running instance; absent = the app is started in this JVM),
+ * db (h2 | mysql, for the started app; mysql = Testcontainers), users, duration, warmup, think, skew, password, out.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    record Options(String target, String db, int users, Duration duration, Duration warmup, Duration think,
+                   double skew, String password, Path out) {
+
+        static Options parse(String[] args) {
+            Map<String, String> values = parseArgs(args);
+            Options options = new Options(
+                    values.remove("target"),
+                    values.getOrDefault("db", "h2"),
+                    Integer.parseInt(values.getOrDefault("users", "50")),
+                    Duration.parse(values.getOrDefault("duration", "PT1M")),
+                    Duration.parse(values.getOrDefault("warmup", "PT15S")),
+                    Duration.parse(values.getOrDefault("think", "PT1S")),
+                    Double.parseDouble(values.getOrDefault("skew", "1.1")),
+                    values.getOrDefault("password", "Load-test-1"),
+                    Path.of(values.getOrDefault("out", "target/loadtest")));
+            values.keySet().removeAll(List.of("db", "users", "duration", "warmup", "think", "skew", "password", "out"));
+            if (!values.isEmpty()) {
+                throw new IllegalArgumentException("Unknown options: " + values.keySet());
+            }
+            if (options.users < 2) {
+                throw new IllegalArgumentException("users must be >= 2 (a transfer needs a recipient)");
+            }
+            return options;
+        }
+
+        // Think time of a real user: exponential around the mean, capped at 5x
+        Duration nextThink() {
+            if (think.isZero()) return Duration.ZERO;
+            double factor = Math.min(-Math.log(1 - ThreadLocalRandom.current().nextDouble()), 5.0);
+            return Duration.ofNanos((long) (think.toNanos() * factor));
+        }
+    }
+
+    // name=value command line options (a leading -- is tolerated)
+    static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int eq = option.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected name=value, got: " + arg);
+            }
+            values.put(option.substring(0, eq), option.substring(eq + 1));
+        }
+        return values;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        EmbeddedApp app = (options.target() == null) ? EmbeddedApp.start(options.db()) : null;
+        String baseUrl = (app != null) ? app.baseUrl() : options.target();
+        System.out.printf("Load test: %s users=%d duration=%s warmup=%s think=%s skew=%.2f%n",
+                baseUrl, options.users(), options.duration(), options.warmup(), options.think(), options.skew());
+
+        LatencyRecorder recorder = new LatencyRecorder();
+        ZipfSampler popularity = new ZipfSampler(options.users(), options.skew());
+        long runId = System.currentTimeMillis() % 100_000; // fresh accounts on a reused target
+        long startNanos = System.nanoTime();
+        long measureFrom = startNanos + options.warmup().toNanos();
+        long stopAt = measureFrom + options.duration().toNanos();
+
+        try (HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+             ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> running = new ArrayList<>();
+            for (int i = 0; i < options.users(); i++) {
+                VirtualUser user = new VirtualUser(i, runId, http, baseUrl, options, popularity, recorder, measureFrom, stopAt);
+                running.add(users.submit(user));
+            }
+            for (Future<?> user : running) {
+                user.get();
+            }
+        } finally {
+            if (app != null) {
+                app.close();
+            }
+        }
+
+        double seconds = options.duration().toNanos() / 1e9;
+        recorder.print(System.out, seconds);
+        Files.createDirectories(options.out());
+        recorder.write(options.out());
+        System.out.println("Percentile distributions (.hgrm, ms): " + options.out().toAbsolutePath());
+    }
+
+    // Unchecked wrapper for the virtual users (a failed setup stops that user only)
+    static final class LoadTestException extends RuntimeException {
+        LoadTestException(String message, IOException cause) {
+            super(message, cause);
+        }
+
+        LoadTestException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.openclassrooms.payMyBuddy.loadtest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Rows of one table, buffered and sent in large chunks on a single connection (auto-commit: one chunk = one statement).
+ * load-data: tab-separated text streamed from memory by LOAD DATA LOCAL INFILE (MySQL, local_infile=ON on the server).
+ * insert: multi-row INSERT ... VALUES (...),(...) statements, for any database.
+ * Values are numbers and generated strings only: no user input ever reaches the SQL text.
+ */
+abstract class RowSink implements AutoCloseable {
+
+    protected final Statement statement;
+    protected final String table;
+    protected final String columns;
+    protected final StringBuilder buffer = new StringBuilder(1 << 20);
+    private final int rowsPerChunk;
+    private int rows;
+    private boolean rowStarted;
+    private long added;
+
+    private RowSink(Connection connection, String table, String columns, int rowsPerChunk) throws SQLException {
+        this.statement = connection.createStatement();
+        this.table = table;
+        this.columns = columns;
+        this.rowsPerChunk = rowsPerChunk;
+    }
+
+    static RowSink open(String mode, Connection connection, String table, String columns) throws SQLException {
+        return switch (mode) {
+            case "load-data" -> new LoadData(connection, table, columns);
+            case "insert" -> new Insert(connection, table, columns);
+            default -> throw new IllegalArgumentException("mode must be load-data or insert: " + mode);
+        };
+    }
+
+    RowSink add(long value) {
+        nextField();
+        buffer.append(value);
+        return this;
+    }
+
+    // Amount in cents, written as a decimal(19,2)
+    RowSink addCents(long cents) {
+        nextField();
+        if (cents < 0) {
+            buffer.append('-');
+            cents = -cents;
+        }
+        buffer.append(cents / 100).append('.');
+        if (cents % 100 < 10) buffer.append('0');
+        buffer.append(cents % 100);
+        return this;
+    }
+
+    // datetime column, UTC
+    RowSink addDateTime(long epochSecond) {
+        LocalDateTime t = LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+        StringBuilder text = new StringBuilder(19).append(t.getYear());
+        for (int field : new int[] {t.getMonthValue(), t.getDayOfMonth(), t.getHour(), t.getMinute(), t.getSecond()}) {
+            text.append(text.length() == 4 || text.length() == 7 ? '-' : text.length() == 10 ? ' ' : ':');
+            if (field < 10) text.append('0');
+            text.append(field);
+        }
+        return addString(text.toString());
+    }
+
+    RowSink addString(String value) {
+        nextField();
+        appendString(value);
+        return this;
+    }
+
+    void endRow() throws SQLException {
+        appendRowEnd();
+        rowStarted = false;
+        added++;
+        if (++rows == rowsPerChunk) {
+            flush();
+        }
+    }
+
+    // Rows added so far; all of them are in the table once close() has returned
+    long rows() {
+        return added;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        flush();
+        statement.close();
+    }
+
+    private void flush() throws SQLException {
+        if (rows == 0) return;
+        send();
+        rows = 0;
+        buffer.setLength(0);
+    }
+
+    private void nextField() {
+        if (rowStarted) {
+            appendFieldSeparator();
+        } else {
+            appendRowStart(rows == 0);
+            rowStarted = true;
+        }
+    }
+
+    protected abstract void appendRowStart(boolean firstOfChunk);
+
+    protected abstract void appendFieldSeparator();
+
+    protected abstract void appendRowEnd();
+
+    protected abstract void appendString(String value);
+
+    protected abstract void send() throws SQLException;
+
+    private static final class LoadData extends RowSink {
+
+        // com.mysql.cj.jdbc.JdbcStatement#setLocalInfileInputStream: the driver is only on the runtime classpath
+        private static final MethodHandle SET_INPUT_STREAM = localInfileSetter();
+
+        private final String sql;
+
+        private LoadData(Connection connection, String table, String columns) throws SQLException {
+            super(connection, table, columns, 100_000);
+            this.sql = "LOAD DATA LOCAL INFILE 'generated' INTO TABLE " + table + " CHARACTER SET utf8mb4"
+                    + " FIELDS TERMINATED BY '\\t' LINES TERMINATED BY '\\n' (" + columns + ")";
+        }
+
+        private static MethodHandle localInfileSetter() {
+            try {
+                Class<?> type = Class.forName("com.mysql.cj.jdbc.JdbcStatement");
+                return MethodHandles.publicLookup().findVirtual(type, "setLocalInfileInputStream",
+                        MethodType.methodType(void.class, InputStream.class));
+            } catch (ReflectiveOperationException ex) {
+                return null;
+            }
+        }
+
+        @Override
+        protected void appendRowStart(boolean firstOfChunk) {
+        }
+
+        @Override
+        protected void appendFieldSeparator() {
+            buffer.append('\t');
+        }
+
+        @Override
+        protected void appendRowEnd() {
+            buffer.append('\n');
+        }
+
+        @Override
+        protected void appendString(String value) {
+            buffer.append(value == null ? "\\N" : value);
+        }
+
+        @Override
+        protected void send() throws SQLException {
+            if (SET_INPUT_STREAM == null) {
+                throw new IllegalStateException("mode=load-data needs MySQL Connector/J on the classpath");
+            }
+            InputStream rows = new ByteArrayInputStream(buffer.toString().getBytes(StandardCharsets.UTF_8));
+            try {
+                SET_INPUT_STREAM.invoke(statement.unwrap(SET_INPUT_STREAM.type().parameterType(0)), rows);
+            } catch (SQLException | RuntimeException ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new IllegalStateException("Cannot stream rows into " + table, ex);
+            }
+            statement.execute(sql);
+        }
+    }
+
+    private static final class Insert extends RowSink {
+
+        private Insert(Connection connection, String table, String columns) throws SQLException {
+            super(connection, table, columns, 2_000);
+        }
+
+        @Override
+        protected void appendRowStart(boolean firstOfChunk) {
+            buffer.append(firstOfChunk ? "INSERT INTO " + table + " (" + columns + ") VALUES (" : ",(");
+        }
+
+        @Override
+        protected void appendFieldSeparator() {
+            buffer.append(',');
+        }
+
+        @Override
+        protected void appendRowEnd() {
+            buffer.append(')');
+        }
+
+        @Override
+        protected void appendString(String value) {
+            if (value == null) {
+                buffer.append("NULL");
+            } else {
+                buffer.append('\'').append(value.replace("'", "''")).append('\'');
+            }
+        }
+
+        @Override
+        protected void send() throws SQLException {
+            statement.executeUpdate(buffer.toString());
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.openclassrooms.payMyBuddy.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One browser: own cookies and CSRF token, redirects followed like a browser (POST -> 302 -> GET).
+ * Closed loop: the next request is only sent once the previous response has arrived and the think time has elapsed.
+ */
+final class VirtualUser implements Runnable {
+
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+    private static final String TOP_UP_AMOUNT = "100000.00";
+    private static final int MAX_LOGIN_ATTEMPTS = 5;
+
+    private final int index;
+    private final long runId;
+    private final HttpClient http;
+    private final String baseUrl;
+    private final LoadTest.Options options;
+    private final ZipfSampler popularity;
+    private final LatencyRecorder recorder;
+    private final long measureFrom;
+    private final long stopAt;
+
+    private final Map<String, String> cookies = new LinkedHashMap<>();
+    private final Set<Integer> friends = new HashSet<>();
+    private String csrf;
+
+    VirtualUser(int index, long runId, HttpClient http, String baseUrl, LoadTest.Options options,
+                ZipfSampler popularity, LatencyRecorder recorder, long measureFrom, long stopAt) {
+        this.index = index;
+        this.runId = runId;
+        this.http = http;
+        this.baseUrl = baseUrl;
+        this.options = options;
+        this.popularity = popularity;
+        this.recorder = recorder;
+        this.measureFrom = measureFrom;
+        this.stopAt = stopAt;
+    }
+
+    private String email(int user) {
+        return "load" + runId + "-" + user + "@load.test";
+    }
+
+    @Override
+    public void run() {
+        try {
+            // Arrivals spread over the warm-up: no sign-up stampede on the BCrypt pool at t=0
+            Thread.sleep(Duration.ofNanos(options.warmup().toNanos() * index / options.users()));
+            signUpAndLogIn();
+        } catch (LoadTest.LoadTestException ex) {
+            System.err.println("user " + index + " stopped: " + ex.getMessage());
+            return;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            while (System.nanoTime() < stopAt) {
+                think();
+                try {
+                    iteration();
+                } catch (LoadTest.LoadTestException ex) {
+                    // already counted as an error of its endpoint: the user goes on with the next page
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Pick a recipient by popularity, add them as a friend the first time, pay them
+    private void iteration() throws InterruptedException {
+        int recipient = popularity.nextOtherThan(index);
+        if (friends.add(recipient)) {
+            expectRedirect("POST /connections", post("/connections", "email", email(recipient)), "GET /connections");
+            think();
+        }
+        String amount = ThreadLocalRandom.current().nextInt(1, 21) + ".00";
+        expectRedirect("POST /transfer (p2p)", post("/transfer",
+                "receiverEmail", email(recipient), "amount", amount, "description", "load test"), "GET /transfer");
+    }
+
+    private void signUpAndLogIn() throws InterruptedException {
+        csrf = csrf(expectPage("GET /register", get("/register")));
+        // 302 -> /login when created; 200 (form with an error) when the account already exists
+        send("POST /register", post("/register", "email", email(index), "username", "Load user " + index,
+                "password", options.password(), "confirmPassword", options.password()));
+
+        for (int attempt = 1; ; attempt++) {
+            csrf = csrf(expectPage("GET /login", get("/login")));
+            HttpResponse<String> login = send("POST /login",
+                    post("/login", "username", email(index), "password", options.password()));
+            String location = login.headers().firstValue("location").orElse("");
+            if (login.statusCode() == 302 && location.endsWith("/transfer")) {
+                break;
+            }
+            recorder.error("POST /login");
+            // ?busy = password hashing saturated: a real user tries again a moment later
+            if (!location.endsWith("?busy") || attempt == MAX_LOGIN_ATTEMPTS) {
+                throw new LoadTest.LoadTestException("login refused status=" + login.statusCode() + " location=" + location);
+            }
+            think();
+        }
+        csrf = csrf(expectPage("GET /transfer", get("/transfer"))); // new token after login
+
+        expectRedirect("POST /transfer (top-up)", post("/transfer",
+                "type", "TOP_UP", "amount", TOP_UP_AMOUNT, "description", "load test"), "GET /transfer");
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+    }
+
+    private HttpRequest.Builder post(String path, String... params) {
+        StringBuilder body = new StringBuilder("_csrf=").append(URLEncoder.encode(csrf, StandardCharsets.UTF_8));
+        for (int i = 0; i < params.length; i += 2) {
+            body.append('&').append(params[i]).append('=').append(URLEncoder.encode(params[i + 1], StandardCharsets.UTF_8));
+        }
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body.toString()));
+    }
+
+    private HttpResponse<String> expectPage(String endpoint, HttpRequest.Builder request) throws InterruptedException {
+        HttpResponse<String> page = send(endpoint, request);
+        if (page.statusCode() != 200) {
+            recorder.error(endpoint);
+            throw new LoadTest.LoadTestException(endpoint + " status=" + page.statusCode());
+        }
+        return page;
+    }
+
+    // POST answered by a redirect, then the page the browser loads next.
+    // A refused operation still redirects: its flash message (alert-danger) counts as an error of the POST.
+    private void expectRedirect(String endpoint, HttpRequest.Builder request, String followEndpoint) throws InterruptedException {
+        HttpResponse<String> response = send(endpoint, request);
+        String location = response.headers().firstValue("location").orElse(null);
+        if (response.statusCode() != 302 || location == null) {
+            recorder.error(endpoint);
+            return;
+        }
+        URI target = URI.create(baseUrl).resolve(location);
+        HttpResponse<String> page = send(followEndpoint, HttpRequest.newBuilder(target).GET());
+        if (page.statusCode() != 200) {
+            recorder.error(followEndpoint);
+        } else if (page.body().contains("alert-danger")) {
+            recorder.error(endpoint);
+        }
+    }
+
+    private HttpResponse<String> send(String endpoint, HttpRequest.Builder request) throws InterruptedException {
+        if (!cookies.isEmpty()) {
+            request.header("Cookie", String.join("; ", cookies.values()));
+        }
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (IOException ex) {
+            recorder.error(endpoint);
+            throw new LoadTest.LoadTestException(endpoint + " failed", ex);
+        }
+        if (start >= measureFrom) {
+            recorder.record(endpoint, System.nanoTime() - start);
+        }
+        for (String setCookie : response.headers().allValues("set-cookie")) {
+            int end = setCookie.indexOf(';');
+            String pair = (end < 0) ? setCookie : setCookie.substring(0, end);
+            cookies.put(pair.substring(0, pair.indexOf('=')), pair);
+        }
+        return response;
+    }
+
+    private static String csrf(HttpResponse<String> page) {
+        Matcher m = CSRF.matcher(page.body());
+        if (!m.find()) {
+            throw new LoadTest.LoadTestException("no CSRF token in " + page.uri());
+        }
+        return m.group(1);
+    }
+
+    private void think() throws InterruptedException {
+        Duration pause = options.nextThink();
+        if (!pause.isZero()) {
+            Thread.sleep(pause);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.openclassrooms.payMyBuddy.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Account popularity: rank k (0-based) is picked with a probability proportional to 1 / (k + 1)^skew.
+ * skew = 0 is uniform; around 1 a handful of accounts receive most of the transfers.
+ * Cumulative weights are computed once, each draw is a binary search.
+ */
+final class ZipfSampler {
+
+    private final double[] cumulative;
+
+    ZipfSampler(int size, double skew) {
+        cumulative = new double[size];
+        double total = 0;
+        for (int k = 0; k < size; k++) {
+            total += 1.0 / Math.pow(k + 1, skew);
+            cumulative[k] = total;
+        }
+        for (int k = 0; k < size; k++) {
+            cumulative[k] /= total;
+        }
+    }
+
+    int next() {
+        return sample(ThreadLocalRandom.current().nextDouble());
+    }
+
+    // Rank for a uniform draw in [0, 1): reproducible when the caller owns a seeded generator
+    int sample(double uniform) {
+        int index = Arrays.binarySearch(cumulative, uniform);
+        return (index >= 0) ? index : Math.min(-index - 1, cumulative.length - 1);
+    }
+
+    // Any rank but the caller's own
+    int nextOtherThan(int self) {
+        int pick = next();
+        return (pick != self) ? pick : (pick + 1) % cumulative.length;
+    }
+}
@@ -2,8 +2,10 @@ package com.openclassrooms.payMyBuddy;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // ledger snapshots, expired session cleanup, reconciliation cron
 public class PayMyBuddyApplication {
     public static void main(String[] args) {
         SpringApplication.run(PayMyBuddyApplication.class, args);
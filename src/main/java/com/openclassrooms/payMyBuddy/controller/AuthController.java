@@ -1,7 +1,9 @@
 package com.openclassrooms.payMyBuddy.controller;
 
 import com.openclassrooms.payMyBuddy.dto.RegisterDTO;
+import com.openclassrooms.payMyBuddy.logging.EmailMasker;
 import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.security.PasswordHashingBusyException;
 import com.openclassrooms.payMyBuddy.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -34,10 +36,9 @@ public class AuthController {
     @PostMapping("/register")
     public String register(@ModelAttribute("form") RegisterDTO dto, Model model) {
 
-        // Mask email (ex: "m***e@gmail.com")
+        // Mask email (ex: "m***@gmail.com"), computed only when the line is logged
         String rawEmail = dto.getEmail();
-        String maskedEmail = (rawEmail == null) ? "unknown"
-                : rawEmail.replaceAll("(^.).*(@.*$)", "$1***$2");
+        Object maskedEmail = EmailMasker.masked(rawEmail);
 
         log.info("POST /register - registration attempt email={}", maskedEmail);
 
@@ -82,6 +83,11 @@ public class AuthController {
             model.addAttribute("error", ex.getMessage()); // "Email already used"
             model.addAttribute("form", dto);
             return "register";
+        } catch (PasswordHashingBusyException ex) {
+            log.warn("POST /register - password hashing busy email={}", maskedEmail);
+            model.addAttribute("error", ex.getMessage());
+            model.addAttribute("form", dto);
+            return "register";
         } catch (Exception ex) {
             log.error("POST /register - unexpected error email={}", maskedEmail, ex);
             model.addAttribute("error", "Unexpected error, please try again.");
@@ -1,19 +1,30 @@
 package com.openclassrooms.payMyBuddy.controller;
 
+import com.openclassrooms.payMyBuddy.dto.DashboardDTO;
+import com.openclassrooms.payMyBuddy.dto.FeedCursor;
+import com.openclassrooms.payMyBuddy.dto.FeedItemDTO;
+import com.openclassrooms.payMyBuddy.dto.FeedPage;
 import com.openclassrooms.payMyBuddy.dto.FriendDTO;
 import com.openclassrooms.payMyBuddy.dto.TransferDTO;
+import com.openclassrooms.payMyBuddy.logging.EmailMasker;
 import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.service.CurrentAccount;
 import com.openclassrooms.payMyBuddy.service.CurrentUserService;
+import com.openclassrooms.payMyBuddy.service.DashboardQueryService;
 import com.openclassrooms.payMyBuddy.service.TransactionService;
 import com.openclassrooms.payMyBuddy.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.util.UUID;
+
 @Controller
 public class DashboardController {
 
@@ -22,46 +33,88 @@ public class DashboardController {
     private final UserService userService;
     private final TransactionService transactionService;
     private final CurrentUserService currentUserService;
+    private final DashboardQueryService dashboardQueryService;
+    private final CurrentAccount currentAccount;
 
-    public DashboardController(UserService userService, TransactionService transactionService, CurrentUserService currentUserService) {
+    public DashboardController(UserService userService, TransactionService transactionService,
+                               CurrentUserService currentUserService, DashboardQueryService dashboardQueryService,
+                               CurrentAccount currentAccount) {
         this.userService = userService;
         this.transactionService = transactionService;
         this.currentUserService = currentUserService;
+        this.dashboardQueryService = dashboardQueryService;
+        this.currentAccount = currentAccount;
     }
 
     // Dashboard page (balance, friends, history)
     @GetMapping("/transfer")
     public String showDashboard(Authentication authentication, Model model) {
-        String email = currentUserService.requireEmail(authentication);
-        String maskedEmail = (email == null) ? "unknown" : email.replaceAll("(^.).*(@.*$)", "$1***$2");
-        log.info("GET /transfer - loading dashboard for email={}", maskedEmail);
+        Integer userId = currentAccount.id(authentication); // from the principal, no lookup
+        log.info("GET /transfer - loading dashboard for userId={}", userId);
 
         try {
-            User me = userService.getUserByEmail(email)
-                    .orElseThrow(() -> new IllegalArgumentException("User not found: " + maskedEmail));
-
-            model.addAttribute("me", me);
-            model.addAttribute("friends", me.getConnections());
-            model.addAttribute("feed", transactionService.getFeedForUser(me.getId()));
+            // One query per data set (account, friends, first feed page); older rows come from GET /transfer/feed
+            DashboardDTO dashboard = dashboardQueryService.load(userId);
+            FeedPage<FeedItemDTO> feed = dashboard.getFeed();
+
+            model.addAttribute("me", dashboard.getAccount());
+            model.addAttribute("friends", dashboard.getFriends());
+            model.addAttribute("feed", feed.getItems());
+            model.addAttribute("feedNextCursor", feed.hasMore() ? feed.getNextCursor().encode() : null);
             model.addAttribute("friendForm", new FriendDTO());
-            model.addAttribute("transferForm", new TransferDTO());
-
-            log.info("GET /transfer - dashboard loaded userId={} friends={} feedItems={}",
-                    me.getId(),
-                    me.getConnections() == null ? 0 : me.getConnections().size(),
-                    (transactionService.getFeedForUser(me.getId()) == null ? 0 : transactionService.getFeedForUser(me.getId()).size()));
+            // One idempotency token per rendered form: a double submit of the same form is applied once
+            TransferDTO transferForm = new TransferDTO();
+            transferForm.setIdempotencyKey(UUID.randomUUID().toString());
+            model.addAttribute("transferForm", transferForm);
+            model.addAttribute("walletFormKey", UUID.randomUUID().toString());
+
+            log.info("GET /transfer - dashboard loaded userId={} friends={} feedItems={} hasMore={} totalMs={}",
+                    userId,
+                    dashboard.getFriends().size(),
+                    feed.getItems().size(),
+                    feed.hasMore(),
+                    dashboard.getTimings().getTotal().toMillis());
             return "dashboard";
 
         } catch (IllegalArgumentException ex) {
-            log.error("GET /transfer - user not found email={}", maskedEmail, ex);
+            log.error("GET /transfer - user not found userId={}", userId, ex);
             throw ex;
 
         } catch (Exception ex) {
-            log.error("GET /transfer - unexpected error email={}", maskedEmail, ex);
+            log.error("GET /transfer - unexpected error userId={}", userId, ex);
             throw ex;
         }
     }
 
+    // "Load more": next page of the feed (older than the cursor), rendered as table rows
+    @GetMapping("/transfer/feed")
+    public String loadMoreFeed(@RequestParam("before") String before,
+                               Authentication authentication,
+                               Model model) {
+        String email = currentUserService.requireEmail(authentication);
+        Object maskedEmail = EmailMasker.masked(email);
+        log.info("GET /transfer/feed - load more for email={}", maskedEmail);
+
+        FeedCursor cursor;
+        try {
+            cursor = FeedCursor.decode(before);
+        } catch (IllegalArgumentException ex) {
+            log.info("GET /transfer/feed - invalid cursor email={}", maskedEmail);
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+
+        Integer userId = currentAccount.id(authentication); // from the principal, no lookup
+        FeedPage<FeedItemDTO> feed = transactionService.getFeedPage(
+                userId, cursor, TransactionService.DEFAULT_FEED_PAGE_SIZE);
+
+        model.addAttribute("feed", feed.getItems());
+        model.addAttribute("feedNextCursor", feed.hasMore() ? feed.getNextCursor().encode() : null);
+
+        log.info("GET /transfer/feed - page loaded userId={} feedItems={} hasMore={}",
+                userId, feed.getItems().size(), feed.hasMore());
+        return "fragments/feed :: rows";
+    }
+
     // Add a friend by email
     @PostMapping("/connections")
     public String addFriend(@ModelAttribute("friendForm") FriendDTO dto,
@@ -69,9 +122,9 @@ public class DashboardController {
                             RedirectAttributes ra) {
 
         String currentEmail = currentUserService.requireEmail(authentication);
-        String maskedCurrent = (currentEmail == null) ? "unknown" : currentEmail.replaceAll("(^.).*(@.*$)", "$1***$2");
+        Object maskedCurrent = EmailMasker.masked(currentEmail);
         String friendEmailRaw = dto.getEmail();
-        String maskedFriend = (friendEmailRaw == null) ? "unknown" : friendEmailRaw.replaceAll("(^.).*(@.*$)", "$1***$2");
+        Object maskedFriend = EmailMasker.masked(friendEmailRaw);
 
         log.info("POST /connections - add friend attempt by={} friend={}", maskedCurrent, maskedFriend);
 
@@ -109,7 +162,7 @@ public class DashboardController {
     @GetMapping("/connections")
     public String showAddFriend(Authentication authentication, Model model) {
         String currentEmail = currentUserService.requireEmail(authentication);
-        String maskedCurrent = (currentEmail == null) ? "unknown" : currentEmail.replaceAll("(^.).*(@.*$)", "$1***$2");
+        Object maskedCurrent = EmailMasker.masked(currentEmail);
         log.info("GET /connections - show add friend page for={}", maskedCurrent);
 
         try {
@@ -1,7 +1,9 @@
 package com.openclassrooms.payMyBuddy.controller;
 
 import com.openclassrooms.payMyBuddy.dto.ProfileDTO;
+import com.openclassrooms.payMyBuddy.logging.EmailMasker;
 import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.security.PasswordHashingBusyException;
 import com.openclassrooms.payMyBuddy.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,8 +33,7 @@ public class ProfileController {
     @GetMapping("/profile")
     public String getProfil(Model model, Principal principal) {
         String currentEmail = principal.getName();
-        String maskedCurrent = (currentEmail == null) ? "unknown"
-                : currentEmail.replaceAll("(^.).*(@.*$)", "$1***$2");
+        Object maskedCurrent = EmailMasker.masked(currentEmail);
         log.info("GET /profile - load profile for email={}", maskedCurrent);
 
         User me = userService.getUserByEmail(currentEmail).orElse(null);
@@ -64,11 +65,9 @@ public class ProfileController {
                              Principal principal,
                              RedirectAttributes ra) {
         String currentEmail = principal.getName();
-        String maskedCurrent = (currentEmail == null) ? "unknown"
-                : currentEmail.replaceAll("(^.).*(@.*$)", "$1***$2");
+        Object maskedCurrent = EmailMasker.masked(currentEmail);
         String newEmail = dto.getEmail();
-        String maskedNew = (newEmail == null) ? "unknown"
-                : newEmail.replaceAll("(^.).*(@.*$)", "$1***$2");
+        Object maskedNew = EmailMasker.masked(newEmail);
 
         log.info("POST /profile - update attempt by={} newEmail={}", maskedCurrent, maskedNew);
 
@@ -121,6 +120,9 @@ public class ProfileController {
             ra.addFlashAttribute("error", ex.getMessage());
             ra.addFlashAttribute("profileForm", safe);
 
+        } catch (PasswordHashingBusyException ex) {
+            log.warn("POST /profile - password hashing busy by={}", maskedCurrent);
+            ra.addFlashAttribute("error", ex.getMessage());
         } catch (Exception ex) {
             log.error("POST /profile - unexpected error by={}", maskedCurrent, ex);
             ra.addFlashAttribute("error", "Unexpected error, please try again.");
@@ -0,0 +1,150 @@
+package com.openclassrooms.payMyBuddy.controller;
+
+import com.openclassrooms.payMyBuddy.dto.AccountSummaryDTO;
+import com.openclassrooms.payMyBuddy.dto.ConnectionDTO;
+import com.openclassrooms.payMyBuddy.dto.DepositDTO;
+import com.openclassrooms.payMyBuddy.dto.FeedCursor;
+import com.openclassrooms.payMyBuddy.dto.FeedPageDTO;
+import com.openclassrooms.payMyBuddy.dto.FriendDTO;
+import com.openclassrooms.payMyBuddy.dto.TransactionResultDTO;
+import com.openclassrooms.payMyBuddy.dto.TransferDTO;
+import com.openclassrooms.payMyBuddy.dto.WithdrawDTO;
+import com.openclassrooms.payMyBuddy.logging.EmailMasker;
+import com.openclassrooms.payMyBuddy.model.Transaction;
+import com.openclassrooms.payMyBuddy.service.CurrentAccount;
+import com.openclassrooms.payMyBuddy.service.TransactionService;
+import com.openclassrooms.payMyBuddy.service.UserService;
+import com.openclassrooms.payMyBuddy.service.WalletOperationRefusedException;
+import com.openclassrooms.payMyBuddy.service.WalletService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * JSON counterpart of the dashboard, wallet and connections pages, for the mobile client and integrations
+ * (bearer token of the /api/** chain). Same services as the HTML controllers, but reads return projections
+ * and writes return the applied amounts: no page render, no redirect, no flash attributes.
+ * The caller id comes from the principal (CurrentAccount), without any lookup.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1")
+@RequiredArgsConstructor
+public class WalletApiController {
+
+    private final WalletService walletService;
+    private final UserService userService;
+    private final TransactionService transactionService;
+    private final CurrentAccount currentAccount;
+
+    @GetMapping("/balance")
+    public AccountSummaryDTO balance(Authentication auth) {
+        Integer userId = currentAccount.id(auth);
+        log.info("GET /api/v1/balance - userId={}", userId);
+        return userService.getAccountSummary(userId);
+    }
+
+    // Newest first; ?before= is the nextCursor of the previous page
+    @GetMapping("/feed")
+    public FeedPageDTO feed(@RequestParam(name = "before", required = false) String before,
+                            @RequestParam(name = "size", defaultValue = "" + TransactionService.DEFAULT_FEED_PAGE_SIZE) int size,
+                            Authentication auth) {
+        Integer userId = currentAccount.id(auth);
+        FeedCursor cursor = (before == null || before.isBlank()) ? null : FeedCursor.decode(before);
+        log.info("GET /api/v1/feed - userId={} before={} size={}", userId, cursor, size);
+        return FeedPageDTO.of(transactionService.getFeedPage(userId, cursor, size));
+    }
+
+    @PostMapping("/transfers")
+    public ResponseEntity<TransactionResultDTO> transfer(@RequestBody TransferDTO dto,
+                                                         @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+                                                         Authentication auth) {
+        Integer userId = currentAccount.id(auth);
+        log.info("POST /api/v1/transfers - fromId={} to={} amount={} keyed={}",
+                userId, EmailMasker.masked(dto.getReceiverEmail()), dto.getAmount(), idempotencyKey != null);
+        if (dto.getReceiverEmail() == null || dto.getReceiverEmail().isBlank()) {
+            throw new IllegalArgumentException("Receiver email is required for a P2P transfer.");
+        }
+        Integer receiverId = userService.getUserIdByEmail(dto.getReceiverEmail())
+                .orElseThrow(() -> new IllegalArgumentException("Receiver not found"));
+
+        Transaction tx = walletService.transferP2P(userId, receiverId, dto.getAmount(), dto.getDescription(), idempotencyKey);
+        log.info("POST /api/v1/transfers - success txId={} fromId={} toId={}", tx.getId(), userId, receiverId);
+        return created(tx);
+    }
+
+    @PostMapping("/top-ups")
+    public ResponseEntity<TransactionResultDTO> topUp(@RequestBody DepositDTO dto,
+                                                      @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+                                                      Authentication auth) {
+        Integer userId = currentAccount.id(auth);
+        log.info("POST /api/v1/top-ups - userId={} amount={} keyed={}", userId, dto.getAmount(), idempotencyKey != null);
+        Transaction tx = walletService.topUp(userId, dto.getAmount(), dto.getDescription(), idempotencyKey);
+        log.info("POST /api/v1/top-ups - success txId={} userId={}", tx.getId(), userId);
+        return created(tx);
+    }
+
+    @PostMapping("/withdrawals")
+    public ResponseEntity<TransactionResultDTO> withdraw(@RequestBody WithdrawDTO dto,
+                                                         @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+                                                         Authentication auth) {
+        Integer userId = currentAccount.id(auth);
+        log.info("POST /api/v1/withdrawals - userId={} amount={} keyed={}", userId, dto.getAmount(), idempotencyKey != null);
+        Transaction tx = walletService.withdrawToBank(userId, dto.getAmount(), dto.getDescription(), idempotencyKey);
+        log.info("POST /api/v1/withdrawals - success txId={} userId={}", tx.getId(), userId);
+        return created(tx);
+    }
+
+    @GetMapping("/connections")
+    public List<ConnectionDTO> connections(Authentication auth) {
+        Integer userId = currentAccount.id(auth);
+        log.info("GET /api/v1/connections - userId={}", userId);
+        return userService.getConnections(userId);
+    }
+
+    @PostMapping("/connections")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void addConnection(@RequestBody FriendDTO dto, Authentication auth) {
+        String email = currentAccount.email(auth);
+        log.info("POST /api/v1/connections - by={} friend={}", EmailMasker.masked(email), EmailMasker.masked(dto.getEmail()));
+        if (dto.getEmail() == null || dto.getEmail().isBlank()) {
+            throw new IllegalArgumentException("Please enter a friend's email.");
+        }
+        userService.addConnection(email, dto.getEmail());
+    }
+
+    private static ResponseEntity<TransactionResultDTO> created(Transaction tx) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(TransactionResultDTO.of(tx));
+    }
+
+    // Business errors as {"error": message}: invalid input 400, unknown account 404, refused operation 409.
+    // Any other exception (configuration, crypto, BCrypt pool...) keeps the default 500/503 and its message stays internal.
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException ex) {
+        log.info("WalletApiController - business error status=400 reason={}", ex.getMessage());
+        return error(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler(NoSuchElementException.class)
+    public ResponseEntity<Map<String, String>> notFound(NoSuchElementException ex) {
+        log.info("WalletApiController - business error status=404 reason={}", ex.getMessage());
+        return error(HttpStatus.NOT_FOUND, ex.getMessage());
+    }
+
+    @ExceptionHandler(WalletOperationRefusedException.class)
+    public ResponseEntity<Map<String, String>> conflict(WalletOperationRefusedException ex) {
+        log.info("WalletApiController - business error status=409 reason={}", ex.getMessage());
+        return error(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    private static ResponseEntity<Map<String, String>> error(HttpStatus status, String message) {
+        return ResponseEntity.status(status).body(Map.of("error", message == null ? status.getReasonPhrase() : message));
+    }
+}
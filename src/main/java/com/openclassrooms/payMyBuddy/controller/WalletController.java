@@ -1,9 +1,10 @@
 package com.openclassrooms.payMyBuddy.controller;
 
 import com.openclassrooms.payMyBuddy.dto.TransferDTO;
+import com.openclassrooms.payMyBuddy.logging.EmailMasker;
 import com.openclassrooms.payMyBuddy.model.TransactionType;
 import com.openclassrooms.payMyBuddy.model.User;
-import com.openclassrooms.payMyBuddy.service.CurrentUserService;
+import com.openclassrooms.payMyBuddy.service.CurrentAccount;
 import com.openclassrooms.payMyBuddy.service.UserService;
 import com.openclassrooms.payMyBuddy.service.WalletService;
 import lombok.RequiredArgsConstructor;
@@ -12,6 +13,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
@@ -22,49 +24,43 @@ public class WalletController {
 
     private final WalletService walletService;
     private final UserService userService;
-    private final CurrentUserService currentUserService;
-
-    // Mask email (ex: m***e@gmail.com)
-    private String maskEmail(String email) {
-        return (email == null) ? "unknown" : email.replaceAll("(^.).*(@.*$)", "$1***$2");
-    }
-
-    // Resolve the current user from Authentication (works for form login and OAuth2)
-    private User me(Authentication auth) {
-        String email = currentUserService.requireEmail(auth);
-        return userService.getUserByEmail(email)
-                .orElseThrow(() -> new IllegalArgumentException("User not found: " + email));
-    }
+    private final CurrentAccount currentAccount; // caller id and email, read from the principal
 
     /**
      * Single entry point for TOP_UP/DEPOSIT (wallet top-up), WITHDRAWAL (to bank) and P2P transfers.
      * - type=TOP_UP -> walletService.topUp(...)
      * - type=WITHDRAWAL -> walletService.withdrawToBank(...)
      * - type omitted/other -> P2P (requires receiverEmail)
+     * The hidden form field idempotencyKey (or the Idempotency-Key header) makes a resubmission
+     * return the original transaction instead of moving money twice.
      */
     @PostMapping("/transfer")
     public String handleTransfer(
             @RequestParam(name = "type", required = false) TransactionType type,
             @ModelAttribute TransferDTO dto,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyHeader,
             Authentication auth,
             RedirectAttributes ra) {
-        String email = currentUserService.requireEmail(auth);
-        String masked = maskEmail(email);
-        log.info("POST /transfer - type={} by={} amount={} to={}", type, masked, dto.getAmount(), maskEmail(dto.getReceiverEmail()));
+        String email = currentAccount.email(auth);
+        Object masked = EmailMasker.masked(email);
+        String idempotencyKey = (dto.getIdempotencyKey() != null && !dto.getIdempotencyKey().isBlank())
+                ? dto.getIdempotencyKey() : idempotencyHeader;
+        log.info("POST /transfer - type={} by={} amount={} to={} keyed={}",
+                type, masked, dto.getAmount(), EmailMasker.masked(dto.getReceiverEmail()), idempotencyKey != null);
 
         try {
-            User current = me(auth);
+            Integer currentId = currentAccount.id(auth); // from the principal, no lookup
 
             if (type == TransactionType.TOP_UP) {
                 // Wallet top-up
-                walletService.topUp(current.getId(), dto.getAmount(), dto.getDescription());
-                log.info("POST /transfer - TOP_UP success userId={} amount={}", current.getId(), dto.getAmount());
+                walletService.topUp(currentId, dto.getAmount(), dto.getDescription(), idempotencyKey);
+                log.info("POST /transfer - TOP_UP success userId={} amount={}", currentId, dto.getAmount());
                 ra.addFlashAttribute("success", "Deposit completed (0.5% fee applied).");
 
             } else if (type == TransactionType.WITHDRAWAL) {
                 // Withdraw to bank
-                walletService.withdrawToBank(current.getId(), dto.getAmount(), dto.getDescription());
-                log.info("POST /transfer - WITHDRAWAL success userId={} amount={}", current.getId(), dto.getAmount());
+                walletService.withdrawToBank(currentId, dto.getAmount(), dto.getDescription(), idempotencyKey);
+                log.info("POST /transfer - WITHDRAWAL success userId={} amount={}", currentId, dto.getAmount());
                 ra.addFlashAttribute("success", "Withdrawal initiated (0.5% fee applied).");
 
             } else {
@@ -75,9 +71,9 @@ public class WalletController {
                 User receiver = userService.getUserByEmail(dto.getReceiverEmail())
                         .orElseThrow(() -> new IllegalArgumentException("Receiver not found"));
 
-                walletService.transferP2P(current.getId(), receiver.getId(), dto.getAmount(), dto.getDescription());
+                walletService.transferP2P(currentId, receiver.getId(), dto.getAmount(), dto.getDescription(), idempotencyKey);
                 log.info("POST /transfer - P2P success fromId={} toId={} amount={}",
-                        current.getId(), receiver.getId(), dto.getAmount());
+                        currentId, receiver.getId(), dto.getAmount());
                 ra.addFlashAttribute("success", "Transfer sent (0.5% fee paid by the sender).");
             }
 
@@ -0,0 +1,18 @@
+package com.openclassrooms.payMyBuddy.dto;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+// Read-only view of the current account (header + balance), built by a projection query
+@Value
+public class AccountSummaryDTO {
+
+    Integer id;
+
+    String username;
+
+    String email;
+
+    BigDecimal balance;
+}
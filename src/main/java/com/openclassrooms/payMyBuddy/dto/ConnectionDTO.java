@@ -0,0 +1,14 @@
+package com.openclassrooms.payMyBuddy.dto;
+
+import lombok.Value;
+
+// Read-only friend entry (transfer select list), built by a projection query
+@Value
+public class ConnectionDTO {
+
+    Integer id;
+
+    String username;
+
+    String email;
+}
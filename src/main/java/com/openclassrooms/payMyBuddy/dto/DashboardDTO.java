@@ -0,0 +1,34 @@
+package com.openclassrooms.payMyBuddy.dto;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Immutable dashboard view model: everything GET /transfer renders, loaded with one query per data set.
+ * Timings tell which part dominated the page latency.
+ */
+@Value
+public class DashboardDTO {
+
+    AccountSummaryDTO account;
+
+    List<ConnectionDTO> friends;
+
+    FeedPage<FeedItemDTO> feed;
+
+    Timings timings;
+
+    @Value
+    public static class Timings {
+
+        Duration account;
+
+        Duration friends;
+
+        Duration feed;
+
+        Duration total;
+    }
+}
@@ -0,0 +1,51 @@
+package com.openclassrooms.payMyBuddy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a transaction feed: the (created_at, id) of the last row already shown.
+ * The next page starts strictly after this position, so its cost does not depend on how deep we are.
+ */
+@AllArgsConstructor
+@Getter
+@EqualsAndHashCode
+@ToString
+public class FeedCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private LocalDateTime createdAt;
+
+    private Integer id;
+
+    // Opaque, URL-safe token (ex: used as ?before=... by the "load more" endpoint)
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static FeedCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            throw new IllegalArgumentException("Invalid feed cursor.");
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf(SEPARATOR);
+            if (sep <= 0) {
+                throw new IllegalArgumentException("Invalid feed cursor.");
+            }
+            return new FeedCursor(LocalDateTime.parse(raw.substring(0, sep)), Integer.valueOf(raw.substring(sep + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException ex) {
+            // NumberFormatException and Base64 errors are IllegalArgumentException too
+            throw new IllegalArgumentException("Invalid feed cursor.");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.openclassrooms.payMyBuddy.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.openclassrooms.payMyBuddy.model.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Read-only feed row, built directly by the feed query (no managed Transaction/User entities).
+ * Amount and counterparty are already relative to the user whose feed is displayed.
+ */
+@AllArgsConstructor
+@Getter
+public class FeedItemDTO {
+
+    private Integer id;
+
+    private LocalDateTime createdAt;
+
+    private TransactionType type;
+
+    private String description;
+
+    private String counterpartyUsername;
+
+    private String counterpartyEmail;
+
+    private BigDecimal signedAmount; // negative = money out for the user, positive = money in
+
+    // Feed query row (native SQL, mapping "FeedItem" on Transaction): type as stored in transactions.type
+    public FeedItemDTO(Integer id, LocalDateTime createdAt, String type, String description,
+                       Boolean outgoing,
+                       String senderUsername, String senderEmail,
+                       String receiverUsername, String receiverEmail,
+                       BigDecimal grossAmount, BigDecimal feeAmount, BigDecimal netAmount) {
+        this(id, createdAt, TransactionType.valueOf(type), description, Boolean.TRUE.equals(outgoing),
+                senderUsername, senderEmail, receiverUsername, receiverEmail, grossAmount, feeAmount, netAmount);
+    }
+
+    // Raw row + "is the user the sender" flag
+    public FeedItemDTO(Integer id, LocalDateTime createdAt, TransactionType type, String description,
+                       boolean outgoing,
+                       String senderUsername, String senderEmail,
+                       String receiverUsername, String receiverEmail,
+                       BigDecimal grossAmount, BigDecimal feeAmount, BigDecimal netAmount) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.type = type;
+        this.description = description;
+        this.counterpartyUsername = outgoing ? receiverUsername : senderUsername;
+        this.counterpartyEmail = outgoing ? receiverEmail : senderEmail;
+        this.signedAmount = signedAmount(type, outgoing, grossAmount, feeAmount, netAmount);
+    }
+
+    // TOP_UP: +net for the receiver ; P2P: -(gross+fee) for the sender, +gross for the receiver ;
+    // WITHDRAWAL: -(gross+fee) for the sender
+    private static BigDecimal signedAmount(TransactionType type, boolean outgoing,
+                                           BigDecimal gross, BigDecimal fee, BigDecimal net) {
+        if (type == null) return BigDecimal.ZERO;
+        return switch (type) {
+            case TOP_UP -> outgoing ? BigDecimal.ZERO : net;
+            case P2P_TRANSFER -> outgoing ? gross.add(fee).negate() : gross;
+            case WITHDRAWAL -> outgoing ? gross.add(fee).negate() : BigDecimal.ZERO;
+        };
+    }
+
+    // Username if present, otherwise email (view helper, not part of the JSON row)
+    @JsonIgnore
+    public String getCounterparty() {
+        if (counterpartyUsername != null && !counterpartyUsername.isEmpty()) return counterpartyUsername;
+        return (counterpartyEmail != null) ? counterpartyEmail : "-";
+    }
+}
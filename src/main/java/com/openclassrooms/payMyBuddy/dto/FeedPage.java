@@ -0,0 +1,23 @@
+package com.openclassrooms.payMyBuddy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * One bounded page of a transaction feed.
+ * nextCursor is null when there is nothing older to load.
+ */
+@AllArgsConstructor
+@Getter
+public class FeedPage<T> {
+
+    private List<T> items;
+
+    private FeedCursor nextCursor;
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.openclassrooms.payMyBuddy.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+// JSON page of the feed: nextCursor is the opaque ?before= token of the next page, null on the last page
+@Value
+public class FeedPageDTO {
+
+    List<FeedItemDTO> items;
+
+    String nextCursor;
+
+    public static FeedPageDTO of(FeedPage<FeedItemDTO> page) {
+        return new FeedPageDTO(page.getItems(), page.hasMore() ? page.getNextCursor().encode() : null);
+    }
+}
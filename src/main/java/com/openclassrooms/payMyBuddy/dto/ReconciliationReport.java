@@ -0,0 +1,50 @@
+package com.openclassrooms.payMyBuddy.dto;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Result of a balance reconciliation run: users.balance compared with what the transactions imply.
+ * Suspects come from the parallel scan (not a single snapshot: payments may land meanwhile); they are then
+ * re-checked one by one in a consistent read, and only confirmed discrepancies are listed.
+ */
+@Value
+public class ReconciliationReport {
+
+    long maxTransactionId;      // transactions scanned: id <= maxTransactionId
+
+    long transactionsScanned;
+
+    int partitions;
+
+    int usersChecked;
+
+    long suspects;              // balance differed in the parallel scan
+
+    int rechecked;              // suspects re-checked in a consistent read (at most paymybuddy.reconciliation.max-reported)
+
+    List<Discrepancy> discrepancies;
+
+    Duration elapsed;
+
+    public boolean isClean() {
+        return discrepancies.isEmpty() && rechecked == suspects;
+    }
+
+    @Value
+    public static class Discrepancy {
+
+        Integer userId;
+
+        BigDecimal expected;    // implied by the transactions
+
+        BigDecimal actual;      // users.balance
+
+        BigDecimal difference;  // actual - expected
+
+        BigDecimal ledger;      // ledger postings (latest snapshot + postings after it)
+    }
+}
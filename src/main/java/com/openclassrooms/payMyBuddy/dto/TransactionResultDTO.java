@@ -0,0 +1,26 @@
+package com.openclassrooms.payMyBuddy.dto;
+
+import com.openclassrooms.payMyBuddy.model.Transaction;
+import com.openclassrooms.payMyBuddy.model.TransactionType;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+// JSON result of a money operation: the amounts actually applied, without the sender/receiver entities
+@Value
+public class TransactionResultDTO {
+
+    Integer id;
+
+    TransactionType type;
+
+    BigDecimal grossAmount;
+
+    BigDecimal feeAmount;
+
+    BigDecimal netAmount;
+
+    public static TransactionResultDTO of(Transaction tx) {
+        return new TransactionResultDTO(tx.getId(), tx.getType(), tx.getGrossAmount(), tx.getFeeAmount(), tx.getNetAmount());
+    }
+}
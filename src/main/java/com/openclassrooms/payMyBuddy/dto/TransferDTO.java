@@ -17,4 +17,7 @@ public class TransferDTO {
     private BigDecimal amount;
 
     private String description;
+
+    // Hidden form token: a resubmitted form (double click, browser retry) is applied only once
+    private String idempotencyKey;
 }
@@ -0,0 +1,66 @@
+package com.openclassrooms.payMyBuddy.logging;
+
+import java.util.regex.Pattern;
+
+/**
+ * Email masking for logs and error messages (ex: "marine@gmail.com" -> "m***@gmail.com").
+ * Same output as the former {@code email.replaceAll("(^.).*(@.*$)", "$1***$2")}, computed with a char scan
+ * instead of compiling a regex on every call.
+ * Use {@link #masked(String)} as a log argument: the mask is only computed if the level is enabled.
+ */
+public final class EmailMasker {
+
+    static final String UNKNOWN = "unknown";
+    private static final String STARS = "***";
+
+    // Only used for the rare values containing a line terminator, where "." semantics matter
+    private static final Pattern MASK = Pattern.compile("(^.).*(@.*$)");
+
+    private EmailMasker() {
+    }
+
+    // Masked email now (exception messages, values reused in several places)
+    public static String mask(String email) {
+        if (email == null) {
+            return UNKNOWN;
+        }
+        int length = email.length();
+        if (length == 0) {
+            return email;
+        }
+        int first = Character.charCount(email.codePointAt(0));
+        int at = -1;
+        for (int i = 0; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '@') {
+                at = i; // last '@' wins, like the greedy ".*"
+            } else if (isLineTerminator(c)) {
+                return MASK.matcher(email).replaceAll("$1***$2");
+            }
+        }
+        if (at < first) {
+            return email; // no '@' after the first character: left as is
+        }
+        return new StringBuilder(first + STARS.length() + length - at)
+                .append(email, 0, first)
+                .append(STARS)
+                .append(email, at, length)
+                .toString();
+    }
+
+    // Log argument masked on toString(), i.e. only when the logger formats the message
+    public static Object masked(String email) {
+        return new Masked(email);
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private record Masked(String email) {
+        @Override
+        public String toString() {
+            return mask(email);
+        }
+    }
+}
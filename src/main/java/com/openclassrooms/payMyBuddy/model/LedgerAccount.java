@@ -0,0 +1,7 @@
+package com.openclassrooms.payMyBuddy.model;
+
+public enum LedgerAccount {
+    WALLET,          // a user's wallet (user_id set)
+    BANK_CLEARING,   // money entering (top-up) or leaving (withdrawal) through the bank
+    FEE_REVENUE      // 0.5% fees collected by the application
+}
@@ -0,0 +1,39 @@
+package com.openclassrooms.payMyBuddy.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Wallet balance including every posting up to lastPostingId: balance = latest snapshot + postings after it
+@Entity
+@Immutable
+@Table(name = "ledger_balance_snapshots", indexes = {
+        @Index(name = "ix_ledger_snapshots_user", columnList = "user_id, last_posting_id")
+})
+@Getter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString
+public class LedgerBalanceSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @Column(name = "user_id", nullable = false, updatable = false)
+    private Integer userId;
+
+    @Column(name = "balance", nullable = false, precision = 19, scale = 2, updatable = false)
+    private BigDecimal balance;
+
+    @Column(name = "last_posting_id", nullable = false, updatable = false)
+    private Long lastPostingId;
+
+    @Column(name = "taken_at", nullable = false, updatable = false)
+    private LocalDateTime takenAt;
+}
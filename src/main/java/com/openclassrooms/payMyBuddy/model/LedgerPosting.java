@@ -0,0 +1,53 @@
+package com.openclassrooms.payMyBuddy.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One leg of a double-entry record: never updated nor deleted, the legs of a transaction sum to zero
+@Entity
+@Immutable
+@Table(name = "ledger_postings", indexes = {
+        @Index(name = "ix_ledger_postings_wallet", columnList = "account, user_id, id"),
+        @Index(name = "ix_ledger_postings_transaction", columnList = "transaction_id")
+})
+@Getter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString
+public class LedgerPosting {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    @Column(name = "transaction_id", nullable = false, updatable = false)
+    private Integer transactionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "account", nullable = false, length = 20, updatable = false)
+    private LedgerAccount account;
+
+    @Column(name = "user_id", updatable = false)
+    private Integer userId;           // only for WALLET postings
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "direction", nullable = false, length = 6, updatable = false)
+    private PostingDirection direction;
+
+    @Column(name = "amount", nullable = false, precision = 19, scale = 2, updatable = false)
+    private BigDecimal amount;        // always > 0, the direction gives the sign
+
+    @Column(name = "created_at", insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    // Effect on the account balance: +amount for a credit, -amount for a debit
+    public BigDecimal signedAmount() {
+        return (direction == PostingDirection.CREDIT) ? amount : amount.negate();
+    }
+}
@@ -0,0 +1,6 @@
+package com.openclassrooms.payMyBuddy.model;
+
+public enum PostingDirection {
+    DEBIT,   // money leaves the account
+    CREDIT   // money enters the account
+}
@@ -1,5 +1,6 @@
 package com.openclassrooms.payMyBuddy.model;
 
+import com.openclassrooms.payMyBuddy.dto.FeedItemDTO;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -8,6 +9,20 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "transactions")
+// Feed rows of TransactionRepository.findFeedFirstPage / findFeedBefore (native SQL -> FeedItemDTO)
+@SqlResultSetMapping(name = "FeedItem", classes = @ConstructorResult(targetClass = FeedItemDTO.class, columns = {
+        @ColumnResult(name = "id", type = Integer.class),
+        @ColumnResult(name = "created_at", type = LocalDateTime.class),
+        @ColumnResult(name = "type", type = String.class),
+        @ColumnResult(name = "description", type = String.class),
+        @ColumnResult(name = "outgoing", type = Boolean.class),
+        @ColumnResult(name = "sender_username", type = String.class),
+        @ColumnResult(name = "sender_email", type = String.class),
+        @ColumnResult(name = "receiver_username", type = String.class),
+        @ColumnResult(name = "receiver_email", type = String.class),
+        @ColumnResult(name = "gross_amount", type = BigDecimal.class),
+        @ColumnResult(name = "fee_amount", type = BigDecimal.class),
+        @ColumnResult(name = "net_amount", type = BigDecimal.class)}))
 @Getter @Setter
 @NoArgsConstructor @AllArgsConstructor
 @Builder(toBuilder = true)
@@ -46,4 +61,8 @@ public class Transaction {
 
     @Column(name = "created_at", insertable = false, updatable = false)
     private LocalDateTime createdAt;
+
+    // "<userId>:<form token>" for form submissions, null otherwise; unique => a submission is applied once
+    @Column(name = "idempotency_key", length = 80, unique = true, updatable = false)
+    private String idempotencyKey;
 }
@@ -0,0 +1,41 @@
+package com.openclassrooms.payMyBuddy.repository;
+
+import com.openclassrooms.payMyBuddy.model.LedgerPosting;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface LedgerPostingRepository extends JpaRepository<LedgerPosting, Long> {
+
+    List<LedgerPosting> findByTransactionIdOrderById(Integer transactionId);
+
+    @Query("select coalesce(max(p.id), 0) from LedgerPosting p")
+    Long findMaxId();
+
+    // Wallet delta after a snapshot: range scan on (account, user_id, id)
+    @Query("""
+            select coalesce(sum(case when p.direction = com.openclassrooms.payMyBuddy.model.PostingDirection.CREDIT
+                                     then p.amount else -p.amount end), 0)
+            from LedgerPosting p
+            where p.account = com.openclassrooms.payMyBuddy.model.LedgerAccount.WALLET
+              and p.userId = :userId and p.id > :afterId
+            """)
+    BigDecimal sumWalletAfter(@Param("userId") Integer userId, @Param("afterId") Long afterId);
+
+    // Per wallet: [userId, delta] for postings in (afterId, upToId]
+    @Query("""
+            select p.userId,
+                   sum(case when p.direction = com.openclassrooms.payMyBuddy.model.PostingDirection.CREDIT
+                            then p.amount else -p.amount end)
+            from LedgerPosting p
+            where p.account = com.openclassrooms.payMyBuddy.model.LedgerAccount.WALLET
+              and p.id > :afterId and p.id <= :upToId
+            group by p.userId
+            """)
+    List<Object[]> sumWalletsBetween(@Param("afterId") Long afterId, @Param("upToId") Long upToId);
+}
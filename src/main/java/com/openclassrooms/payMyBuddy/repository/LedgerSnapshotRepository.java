@@ -0,0 +1,28 @@
+package com.openclassrooms.payMyBuddy.repository;
+
+import com.openclassrooms.payMyBuddy.model.LedgerBalanceSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LedgerSnapshotRepository extends JpaRepository<LedgerBalanceSnapshot, Long> {
+
+    Optional<LedgerBalanceSnapshot> findFirstByUserIdOrderByLastPostingIdDesc(Integer userId);
+
+    // Latest snapshot of each of the given wallets
+    @Query("""
+            select s from LedgerBalanceSnapshot s
+            where s.userId in :userIds
+              and s.lastPostingId = (select max(s2.lastPostingId) from LedgerBalanceSnapshot s2 where s2.userId = s.userId)
+            """)
+    List<LedgerBalanceSnapshot> findLatestFor(@Param("userIds") Collection<Integer> userIds);
+
+    @Query("select coalesce(max(s.lastPostingId), 0) from LedgerBalanceSnapshot s")
+    Long findMaxLastPostingId();
+}
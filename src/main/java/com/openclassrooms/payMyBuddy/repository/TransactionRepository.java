@@ -1,10 +1,15 @@
 package com.openclassrooms.payMyBuddy.repository;
 
+import com.openclassrooms.payMyBuddy.dto.FeedItemDTO;
 import com.openclassrooms.payMyBuddy.model.Transaction;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.NativeQuery;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Integer> {
@@ -13,6 +18,61 @@ public interface TransactionRepository extends JpaRepository<Transaction, Intege
 
     List<Transaction> findByReceiverIdOrderByCreatedAtDesc(Integer receiverId);
 
-    List<Transaction> findBySenderIdOrReceiverIdOrderByCreatedAtDesc(Integer senderId, Integer receiverId);
+    Optional<Transaction> findByIdempotencyKey(String idempotencyKey);
+
+    // Feed keyset pagination on (created_at, id), one statement per page: each UNION ALL branch walks its composite
+    // index for at most :limit ids, then only the page rows are read by primary key with both parties (FeedItem).
+    @NativeQuery(value = """
+            SELECT t.id, t.created_at, t.type, t.description,
+                   CASE WHEN t.sender_id = :userId THEN TRUE ELSE FALSE END AS outgoing,
+                   s.username AS sender_username, s.email AS sender_email,
+                   r.username AS receiver_username, r.email AS receiver_email,
+                   t.gross_amount, t.fee_amount, t.net_amount
+            FROM (
+                SELECT u.id, u.created_at FROM (
+                    (SELECT id, created_at FROM transactions WHERE sender_id = :userId
+                     ORDER BY created_at DESC, id DESC LIMIT :limit)
+                    UNION ALL
+                    (SELECT id, created_at FROM transactions WHERE receiver_id = :userId
+                     ORDER BY created_at DESC, id DESC LIMIT :limit)
+                ) u
+                ORDER BY u.created_at DESC, u.id DESC
+                LIMIT :limit
+            ) f
+            JOIN transactions t ON t.id = f.id
+            LEFT JOIN users s ON s.id = t.sender_id
+            LEFT JOIN users r ON r.id = t.receiver_id
+            ORDER BY f.created_at DESC, f.id DESC
+            """, sqlResultSetMapping = "FeedItem")
+    List<FeedItemDTO> findFeedFirstPage(@Param("userId") Integer userId, @Param("limit") int limit);
+
+    @NativeQuery(value = """
+            SELECT t.id, t.created_at, t.type, t.description,
+                   CASE WHEN t.sender_id = :userId THEN TRUE ELSE FALSE END AS outgoing,
+                   s.username AS sender_username, s.email AS sender_email,
+                   r.username AS receiver_username, r.email AS receiver_email,
+                   t.gross_amount, t.fee_amount, t.net_amount
+            FROM (
+                SELECT u.id, u.created_at FROM (
+                    (SELECT id, created_at FROM transactions WHERE sender_id = :userId
+                       AND (created_at < :createdAt OR (created_at = :createdAt AND id < :id))
+                     ORDER BY created_at DESC, id DESC LIMIT :limit)
+                    UNION ALL
+                    (SELECT id, created_at FROM transactions WHERE receiver_id = :userId
+                       AND (created_at < :createdAt OR (created_at = :createdAt AND id < :id))
+                     ORDER BY created_at DESC, id DESC LIMIT :limit)
+                ) u
+                ORDER BY u.created_at DESC, u.id DESC
+                LIMIT :limit
+            ) f
+            JOIN transactions t ON t.id = f.id
+            LEFT JOIN users s ON s.id = t.sender_id
+            LEFT JOIN users r ON r.id = t.receiver_id
+            ORDER BY f.created_at DESC, f.id DESC
+            """, sqlResultSetMapping = "FeedItem")
+    List<FeedItemDTO> findFeedBefore(@Param("userId") Integer userId,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Integer id,
+                                     @Param("limit") int limit);
 
 }
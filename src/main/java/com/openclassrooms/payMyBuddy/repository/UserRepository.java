@@ -1,9 +1,15 @@
 package com.openclassrooms.payMyBuddy.repository;
 
+import com.openclassrooms.payMyBuddy.dto.AccountSummaryDTO;
+import com.openclassrooms.payMyBuddy.dto.ConnectionDTO;
 import com.openclassrooms.payMyBuddy.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +20,57 @@ public interface UserRepository extends JpaRepository<User, Integer> {
 
     Optional<User> findFirstByIsBankTrue();
 
+    // Ids only: the bank account is resolved once and then referenced by id (see BankAccountResolver)
+    @Query("select u.id from User u where u.isBank = true order by u.id")
+    List<Integer> findBankIds();
+
     List<User> findByIsBankFalseAndEmailContainingIgnoreCase(String keyword);
 
+    // Dashboard read models (projections, nothing tracked by the persistence context)
+    @Query("""
+            select new com.openclassrooms.payMyBuddy.dto.AccountSummaryDTO(u.id, u.username, u.email, u.balance)
+            from User u
+            where u.id = :id
+            """)
+    Optional<AccountSummaryDTO> findAccountSummaryById(@Param("id") Integer id);
+
+    // Receiver of a JSON transfer: the id is all WalletService needs
+    @Query("select u.id from User u where u.email = :email")
+    Optional<Integer> findIdByEmail(@Param("email") String email);
+
+    @Query("""
+            select new com.openclassrooms.payMyBuddy.dto.ConnectionDTO(c.id, c.username, c.email)
+            from User u
+            join u.connections c
+            where u.id = :userId
+            order by c.username
+            """)
+    List<ConnectionDTO> findConnectionsOf(@Param("userId") Integer userId);
+
+    // Balance engine: single-statement updates, the row lock is the only serialisation point.
+    // version is bumped so entity-based writers (profile update...) never overwrite a newer balance.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update User u
+            set u.balance = u.balance - :amount, u.version = u.version + 1
+            where u.id = :id and u.balance >= :amount
+            """)
+    int debitIfSufficient(@Param("id") Integer id, @Param("amount") BigDecimal amount);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update User u
+            set u.balance = u.balance + :amount, u.version = u.version + 1
+            where u.id = :id
+            """)
+    int credit(@Param("id") Integer id, @Param("amount") BigDecimal amount);
+
+    // Password re-encoded at login (BCrypt cost raised): only the hash column, no entity load
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update User u
+            set u.password = :hash, u.version = u.version + 1
+            where u.id = :id
+            """)
+    int updatePassword(@Param("id") Integer id, @Param("hash") String hash);
 }
@@ -0,0 +1,73 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import com.openclassrooms.payMyBuddy.logging.EmailMasker;
+import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserService;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+
+import java.util.Map;
+
+/**
+ * OAuth2 (Facebook) login: loads the provider profile, finds or creates the PayMyBuddy account once,
+ * refuses the bank account, and returns an AccountPrincipal carrying users.id.
+ */
+@Slf4j
+public class AccountOAuth2UserService implements OAuth2UserService<OAuth2UserRequest, OAuth2User> {
+
+    private final UserService userService;
+    private final OAuth2UserService<OAuth2UserRequest, OAuth2User> delegate;
+
+    public AccountOAuth2UserService(UserService userService) {
+        this(userService, new DefaultOAuth2UserService());
+    }
+
+    AccountOAuth2UserService(UserService userService, OAuth2UserService<OAuth2UserRequest, OAuth2User> delegate) {
+        this.userService = userService;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public OAuth2User loadUser(OAuth2UserRequest request) throws OAuth2AuthenticationException {
+        OAuth2User oauthUser = delegate.loadUser(request);
+        Map<String, Object> attrs = oauthUser.getAttributes();
+
+        // Required email (needed to create or find the user)
+        String email = null;
+        if (attrs.get("email") instanceof String e && !e.trim().isEmpty()) {
+            email = e.trim().toLowerCase();
+        }
+        if (email == null) {
+            log.warn("AccountOAuth2UserService.loadUser - OAuth2 login without email provider={}",
+                    request.getClientRegistration().getRegistrationId());
+            throw new OAuth2AuthenticationException(new OAuth2Error("missing_email"), "Email permission is required.");
+        }
+
+        User user = userService.getOrCreateOAuth2User(email, displayName(attrs, email));
+
+        // the 'Bank' account is not authorized to authenticate
+        if (user.isBank()) {
+            log.warn("AccountOAuth2UserService.loadUser - bank user blocked email={}", EmailMasker.masked(email));
+            throw new OAuth2AuthenticationException(new OAuth2Error("access_denied"), "User not found : " + email);
+        }
+
+        log.info("AccountOAuth2UserService.loadUser - success userId={} email={}", user.getId(), EmailMasker.masked(email));
+        return AccountPrincipal.oauth2(user, oauthUser.getAuthorities());
+    }
+
+    // Display name (Facebook: "name" or "first_name"/"last_name"), email as fallback
+    static String displayName(Map<String, Object> attrs, String email) {
+        if (attrs.get("name") instanceof String n && !n.trim().isEmpty()) {
+            return n.trim();
+        }
+        String first = (attrs.get("first_name") instanceof String f) ? f.trim() : "";
+        String last = (attrs.get("last_name") instanceof String l) ? l.trim() : "";
+        String name = (first + " " + last).trim();
+        return name.isEmpty() ? email : name;
+    }
+}
@@ -0,0 +1,146 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import com.openclassrooms.payMyBuddy.model.User;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Authenticated PayMyBuddy account, for form login and OAuth2 alike: users.id, email and display name,
+ * filled once at authentication (bank account already refused). Controllers read the id from here
+ * instead of looking the user up by email on every request.
+ * getName()/getUsername() return the email, like the stock principals did.
+ */
+public class AccountPrincipal implements UserDetails, OAuth2User, CredentialsContainer {
+
+    private static final long serialVersionUID = 1L;
+
+    static final GrantedAuthority ROLE_USER = new SimpleGrantedAuthority("ROLE_USER");
+    static final GrantedAuthority ROLE_ADMIN = new SimpleGrantedAuthority("ROLE_ADMIN");
+
+    private final Integer id;
+    private final String email;
+    private final String displayName;
+    private String password; // form login only, erased once authenticated
+    private final Set<GrantedAuthority> authorities;
+    private final Map<String, Object> attributes; // OAuth2: {email} only, empty for form login
+
+    private AccountPrincipal(Integer id, String email, String displayName, String password,
+                             Collection<? extends GrantedAuthority> authorities, Map<String, Object> attributes) {
+        this.id = id;
+        this.email = email;
+        this.displayName = displayName;
+        this.password = password;
+        this.authorities = Set.copyOf(authorities);
+        this.attributes = (attributes == null) ? Map.of() : Collections.unmodifiableMap(new LinkedHashMap<>(attributes));
+    }
+
+    // Form login: the password hash is needed by DaoAuthenticationProvider, then erased
+    public static AccountPrincipal formLogin(User user) {
+        return new AccountPrincipal(user.getId(), user.getEmail(), user.getUsername(), user.getPassword(),
+                List.of(ROLE_USER), null);
+    }
+
+    // OAuth2 login: provider authorities kept, ROLE_USER added. Of the provider profile only the email is kept
+    // (the rest was read once at authentication): the principal is stored in every session row
+    public static AccountPrincipal oauth2(User user, Collection<? extends GrantedAuthority> providerAuthorities) {
+        // plain authorities: an OAuth2UserAuthority would store every provider attribute a second time in the session
+        Set<GrantedAuthority> authorities = new LinkedHashSet<>();
+        for (GrantedAuthority authority : providerAuthorities) {
+            authorities.add(new SimpleGrantedAuthority(authority.getAuthority()));
+        }
+        authorities.add(ROLE_USER);
+        return new AccountPrincipal(user.getId(), user.getEmail(), user.getUsername(), null, authorities,
+                Map.of("email", user.getEmail()));
+    }
+
+    // API bearer token (ApiTokenService): rebuilt from the signed claims, no database read
+    public static AccountPrincipal apiToken(Integer id, String email, String displayName) {
+        return new AccountPrincipal(id, email, displayName, null, List.of(ROLE_USER), null);
+    }
+
+    // Independent instance (the ProviderManager erases the credentials of the one it authenticated)
+    AccountPrincipal copy() {
+        return new AccountPrincipal(id, email, displayName, password, authorities, attributes);
+    }
+
+    // Same account with ROLE_ADMIN added (form login of an account listed in AdminAccounts)
+    public AccountPrincipal asAdmin() {
+        Set<GrantedAuthority> withAdmin = new LinkedHashSet<>(authorities);
+        withAdmin.add(ROLE_ADMIN);
+        return new AccountPrincipal(id, email, displayName, password, withAdmin, attributes);
+    }
+
+    // Same account with a re-encoded password hash (BCrypt cost raised, see CustomUserDetailsService.updatePassword)
+    public AccountPrincipal withPassword(String newPassword) {
+        return new AccountPrincipal(id, email, displayName, newPassword, authorities, attributes);
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        password = null;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    // Same account = same users.id (session registry, remember-me, tests)
+    @Override
+    public boolean equals(Object o) {
+        return (o instanceof AccountPrincipal other) && id != null && id.equals(other.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return (id == null) ? 0 : id.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "AccountPrincipal[id=" + id + "]"; // no email/password in logs
+    }
+}
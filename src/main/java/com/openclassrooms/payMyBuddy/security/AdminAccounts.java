@@ -0,0 +1,26 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Accounts allowed to call the actuator admin hooks (paymybuddy.security.admin-emails): their password login
+ * adds ROLE_ADMIN to ROLE_USER. An OAuth2 login or an API bearer token never carries it, so a provider
+ * account sharing the email cannot become an administrator.
+ */
+public class AdminAccounts {
+
+    private final Set<String> emails;
+
+    public AdminAccounts(Collection<String> emails) {
+        this.emails = emails.stream()
+                .map(e -> e.trim().toLowerCase())
+                .filter(e -> !e.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    public boolean isAdmin(String email) {
+        return email != null && emails.contains(email.trim().toLowerCase());
+    }
+}
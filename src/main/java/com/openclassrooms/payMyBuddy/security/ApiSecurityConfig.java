@@ -0,0 +1,95 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.context.NullSecurityContextRepository;
+import org.springframework.security.web.savedrequest.NullRequestCache;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stateless chain for /api/**, checked before the browser chain of SpringSecurityConfig:
+ * no session, no CSRF (no cookie is ever trusted), bearer tokens from ApiTokenService.
+ * POST /api/auth/token (form parameters username + password) exchanges the credentials for a token,
+ * through the same DaoAuthenticationProvider as the login form (user cache, bounded BCrypt, rate limit).
+ */
+@Slf4j
+@Configuration
+public class ApiSecurityConfig {
+
+    public static final String TOKEN_PATH = "/api/auth/token";
+
+    @Bean
+    @Order(1)
+    public SecurityFilterChain apiSecurityFilterChain(HttpSecurity http,
+                                                      ApiTokenService apiTokenService,
+                                                      DaoAuthenticationProvider authenticationProvider,
+                                                      LoginRateLimiter loginRateLimiter) throws Exception {
+        AuthenticationEntryPoint unauthorized = new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED);
+
+        UsernamePasswordAuthenticationFilter tokenEndpoint =
+                new UsernamePasswordAuthenticationFilter(new ProviderManager(authenticationProvider));
+        tokenEndpoint.setRequiresAuthenticationRequestMatcher(
+                PathPatternRequestMatcher.withDefaults().matcher(HttpMethod.POST, TOKEN_PATH));
+        tokenEndpoint.setSecurityContextRepository(new NullSecurityContextRepository());
+        tokenEndpoint.setAuthenticationSuccessHandler((request, response, authentication) ->
+                writeToken(response, apiTokenService, (AccountPrincipal) authentication.getPrincipal()));
+        tokenEndpoint.setAuthenticationFailureHandler((request, response, ex) -> {
+            if (ex instanceof AuthenticationServiceException) { // BCrypt pool saturated: retry later
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            } else {
+                unauthorized.commence(request, response, ex);
+            }
+        });
+
+        http
+                .securityMatcher("/api/**")
+                .csrf(AbstractHttpConfigurer::disable)
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .securityContext(context -> context.securityContextRepository(new NullSecurityContextRepository()))
+                .requestCache(cache -> cache.requestCache(new NullRequestCache()))
+                .exceptionHandling(ex -> ex.authenticationEntryPoint(unauthorized))
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers(HttpMethod.POST, TOKEN_PATH).permitAll()
+                        .anyRequest().authenticated())
+                .addFilterBefore(new LoginRateLimitFilter(loginRateLimiter), UsernamePasswordAuthenticationFilter.class)
+                .addFilterAt(tokenEndpoint, UsernamePasswordAuthenticationFilter.class)
+                .addFilterAfter(new ApiTokenAuthenticationFilter(apiTokenService, unauthorized),
+                        UsernamePasswordAuthenticationFilter.class);
+
+        return http.build();
+    }
+
+    // OAuth2-style token response
+    private static void writeToken(HttpServletResponse response, ApiTokenService apiTokenService,
+                                   AccountPrincipal principal) throws IOException {
+        String token = apiTokenService.issue(principal);
+        log.info("ApiSecurityConfig.writeToken - token issued userId={}", principal.getId());
+        response.setStatus(HttpStatus.OK.value());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"access_token\":\"" + token + "\",\"token_type\":\"Bearer\",\"expires_in\":"
+                + apiTokenService.getTtl().toSeconds() + "}");
+    }
+}
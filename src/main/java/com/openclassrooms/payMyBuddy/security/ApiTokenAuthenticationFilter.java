@@ -0,0 +1,62 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * /api/** chain: "Authorization: Bearer <token>" -> AccountPrincipal in the SecurityContext of this request only.
+ * No token: the request goes on unauthenticated (the token endpoint is public, the rest answers 401).
+ * Invalid or expired token: 401 right away.
+ */
+@Slf4j
+public class ApiTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final ApiTokenService apiTokenService;
+    private final AuthenticationEntryPoint entryPoint;
+
+    public ApiTokenAuthenticationFilter(ApiTokenService apiTokenService, AuthenticationEntryPoint entryPoint) {
+        this.apiTokenService = apiTokenService;
+        this.entryPoint = entryPoint;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        AccountPrincipal principal;
+        try {
+            principal = apiTokenService.verify(header.substring(BEARER.length()).trim());
+        } catch (AuthenticationException ex) {
+            log.info("ApiTokenAuthenticationFilter.doFilterInternal - rejected path={} reason={}",
+                    request.getServletPath(), ex.getMessage());
+            SecurityContextHolder.clearContext();
+            entryPoint.commence(request, response, ex);
+            return;
+        }
+
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                principal, null, principal.getAuthorities()));
+        SecurityContextHolder.setContext(context);
+        chain.doFilter(request, response);
+    }
+}
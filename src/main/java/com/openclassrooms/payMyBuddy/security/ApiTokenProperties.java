@@ -0,0 +1,28 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Signing keys of the /api/** bearer tokens (HMAC-SHA256), by key id.
+ * ex: paymybuddy.api.token.keys.k2=<base64 secret, 32 bytes min>, paymybuddy.api.token.active-key=k2
+ * New tokens are signed with the active key; every listed key is still accepted (rotation).
+ * Without any key, a random one is generated at startup: tokens then only work on that node, until restart.
+ */
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "paymybuddy.api.token")
+public class ApiTokenProperties {
+
+    private Duration ttl = Duration.ofMinutes(15);
+
+    private String activeKey;
+
+    private Map<String, String> keys = new LinkedHashMap<>();
+}
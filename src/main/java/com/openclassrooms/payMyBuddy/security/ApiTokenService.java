@@ -0,0 +1,207 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Short-lived bearer tokens of the /api/** chain: compact JWS (HS256) signed with a local key, carrying the
+ * account id, email and display name, so an API call is authenticated without any session or database read.
+ * The header segment is the same for every token of a key id: it is encoded once per key, and verification
+ * finds the key by comparing that prefix (no header decoding, no map lookup per call). The Mac of each key
+ * is initialized once: pooled threads keep a copy, virtual threads (one per request) clone it.
+ */
+@Slf4j
+@Component
+public class ApiTokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_KEY_BYTES = 32;
+
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64_DECODER = Base64.getUrlDecoder();
+
+    private final SigningKey activeKey;
+    private final SigningKey[] keys;
+    private final Duration ttl;
+    private final Clock clock;
+
+    @Autowired
+    public ApiTokenService(ApiTokenProperties properties) {
+        this(properties, Clock.systemUTC());
+    }
+
+    ApiTokenService(ApiTokenProperties properties, Clock clock) {
+        Map<String, byte[]> secrets = new LinkedHashMap<>();
+        properties.getKeys().forEach((kid, secret) -> secrets.put(kid, decodeSecret(kid, secret)));
+
+        String active = properties.getActiveKey();
+        if (secrets.isEmpty()) {
+            byte[] random = new byte[MIN_KEY_BYTES];
+            new SecureRandom().nextBytes(random);
+            active = "local";
+            secrets.put(active, random);
+            log.warn("ApiTokenService - no paymybuddy.api.token.keys configured: random key, tokens only valid on this node until restart");
+        } else if (active == null || !secrets.containsKey(active)) {
+            throw new IllegalStateException("paymybuddy.api.token.active-key must name one of paymybuddy.api.token.keys");
+        }
+
+        List<SigningKey> all = new ArrayList<>();
+        SigningKey activeSigningKey = null;
+        for (Map.Entry<String, byte[]> secret : secrets.entrySet()) {
+            SigningKey key = new SigningKey(secret.getKey(), secret.getValue());
+            all.add(key);
+            if (secret.getKey().equals(active)) {
+                activeSigningKey = key;
+            }
+        }
+        this.keys = all.toArray(SigningKey[]::new);
+        this.activeKey = activeSigningKey;
+        this.ttl = properties.getTtl();
+        this.clock = clock;
+    }
+
+    private static byte[] decodeSecret(String kid, String secret) {
+        if (!kid.matches("[A-Za-z0-9_-]+")) {
+            throw new IllegalStateException("API token key id must only use letters, digits, '-' and '_': " + kid);
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(secret.trim());
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalStateException("paymybuddy.api.token.keys." + kid + " must be base64", ex);
+        }
+        if (bytes.length < MIN_KEY_BYTES) {
+            throw new IllegalStateException("paymybuddy.api.token.keys." + kid + " must hold at least " + MIN_KEY_BYTES + " bytes");
+        }
+        return bytes;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public String issue(AccountPrincipal principal) {
+        long now = clock.instant().getEpochSecond();
+        Claims claims = new Claims(String.valueOf(principal.getId()), principal.getEmail(), principal.getDisplayName(),
+                now, now + ttl.toSeconds());
+        String payload;
+        try {
+            payload = B64.encodeToString(JSON.writeValueAsBytes(claims));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Token claims could not be written", ex);
+        }
+        String signingInput = activeKey.headerSegment + "." + payload;
+        return signingInput + "." + B64.encodeToString(activeKey.sign(signingInput));
+    }
+
+    /**
+     * Returns the account of a valid, unexpired token.
+     * @throws BadCredentialsException for an unknown key, a bad signature, a malformed or expired token
+     */
+    public AccountPrincipal verify(String token) {
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot <= 0 || lastDot <= firstDot) {
+            throw new BadCredentialsException("Malformed token");
+        }
+
+        SigningKey key = keyFor(token, firstDot);
+        if (key == null) {
+            throw new BadCredentialsException("Unknown signing key");
+        }
+
+        byte[] expected = key.sign(token.substring(0, lastDot));
+        byte[] signature;
+        try {
+            signature = B64_DECODER.decode(token.substring(lastDot + 1));
+        } catch (IllegalArgumentException ex) {
+            throw new BadCredentialsException("Malformed token");
+        }
+        if (!MessageDigest.isEqual(expected, signature)) {
+            throw new BadCredentialsException("Bad token signature");
+        }
+
+        Claims claims;
+        try {
+            claims = JSON.readValue(B64_DECODER.decode(token.substring(firstDot + 1, lastDot)), Claims.class);
+        } catch (IOException | IllegalArgumentException ex) {
+            throw new BadCredentialsException("Malformed token");
+        }
+        if (claims.exp() <= clock.instant().getEpochSecond()) {
+            throw new BadCredentialsException("Token expired");
+        }
+        try {
+            return AccountPrincipal.apiToken(Integer.valueOf(claims.sub()), claims.email(), claims.name());
+        } catch (NumberFormatException ex) {
+            throw new BadCredentialsException("Malformed token");
+        }
+    }
+
+    // Header segment comparison in place: no substring, no JSON parsing of the header
+    private SigningKey keyFor(String token, int headerLength) {
+        for (SigningKey key : keys) {
+            if (key.headerSegment.length() == headerLength && token.startsWith(key.headerSegment)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    // Registered claims (sub = account id, iat / exp in epoch seconds) + email and display name
+    private record Claims(String sub, String email, String name, long iat, long exp) {
+    }
+
+    private static final class SigningKey {
+        private final String headerSegment;
+        private final Mac initialized;
+        private final ThreadLocal<Mac> perThread;
+
+        SigningKey(String kid, byte[] secret) {
+            this.headerSegment = B64.encodeToString(
+                    ("{\"alg\":\"HS256\",\"typ\":\"JWT\",\"kid\":\"" + kid + "\"}").getBytes(StandardCharsets.UTF_8));
+            try {
+                this.initialized = Mac.getInstance(ALGORITHM);
+                this.initialized.init(new SecretKeySpec(secret, ALGORITHM));
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("HmacSHA256 unavailable", ex);
+            }
+            this.perThread = ThreadLocal.withInitial(this::copy);
+        }
+
+        byte[] sign(String signingInput) {
+            // A virtual thread lives for one request: a ThreadLocal would only add a Mac per request to its map
+            Mac mac = Thread.currentThread().isVirtual() ? copy() : perThread.get();
+            return mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)); // doFinal resets the Mac
+        }
+
+        // Clone of the initialized Mac: no provider lookup, no key schedule
+        private Mac copy() {
+            try {
+                return (Mac) initialized.clone();
+            } catch (CloneNotSupportedException ex) {
+                throw new IllegalStateException("HmacSHA256 Mac cannot be cloned", ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import com.openclassrooms.payMyBuddy.service.CustomUserDetailsService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+@Configuration
+public class AuthenticationConfig {
+
+    // Form login: CustomUserDetailsService behind the bounded, expiring UserDetailsCache.
+    // Hashes weaker than the configured BCrypt strength are re-encoded after a successful login.
+    @Bean
+    public DaoAuthenticationProvider authenticationProvider(CustomUserDetailsService userDetailsService,
+                                                            PasswordEncoder passwordEncoder,
+                                                            UserDetailsCache userDetailsCache) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService) {
+            @Override
+            public Authentication authenticate(Authentication authentication) {
+                try {
+                    return super.authenticate(authentication);
+                } catch (PasswordHashingBusyException ex) {
+                    // not a credentials problem: the login page asks to retry instead of "invalid credentials"
+                    throw new AuthenticationServiceException(ex.getMessage(), ex);
+                }
+            }
+        };
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserCache(userDetailsCache);
+        provider.setUserDetailsPasswordService(userDetailsService);
+        return provider;
+    }
+}
@@ -0,0 +1,64 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import com.openclassrooms.payMyBuddy.logging.EmailMasker;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Throttles the credential endpoints before any work is done: POST /login (form login, checked ahead of
+ * UsernamePasswordAuthenticationFilter), POST /register and POST /api/auth/token (API chain).
+ * Over the limit -> 429 with Retry-After,
+ * so no user lookup and no BCrypt hash is spent on the request.
+ * The client IP is the servlet remote address (set server.forward-headers-strategy behind a proxy).
+ */
+@Slf4j
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    private final LoginRateLimiter limiter;
+
+    public LoginRateLimitFilter(LoginRateLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod())) {
+            return true;
+        }
+        String path = request.getServletPath();
+        return !"/login".equals(path) && !"/register".equals(path) && !ApiSecurityConfig.TOKEN_PATH.equals(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // login form and token endpoint: "username" holds the email; registration form: "email"
+        String account = "/register".equals(request.getServletPath())
+                ? request.getParameter("email")
+                : request.getParameter("username");
+
+        LoginRateLimiter.Decision decision = limiter.tryAcquire(request.getRemoteAddr(), account);
+        if (decision == LoginRateLimiter.Decision.ALLOWED) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        log.warn("LoginRateLimitFilter.doFilterInternal - {} path={} ip={} email={}",
+                decision, request.getServletPath(), request.getRemoteAddr(), EmailMasker.masked(account));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(limiter.retryAfterSeconds(decision)));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("Too many attempts, please try again later.");
+    }
+}
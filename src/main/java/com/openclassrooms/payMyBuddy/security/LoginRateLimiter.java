@@ -0,0 +1,174 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets for the credential endpoints (POST /login, POST /register): one per client IP and one
+ * per account (email as typed, normalized). A bucket holds `capacity` attempts and refills continuously
+ * over `refillPeriod`; a bucket idle long enough to be full again is dropped, so an absent key means
+ * "full bucket" and memory only holds clients that are actually being throttled.
+ * Keys are spread over lock stripes (no global lock on the login path), each stripe bounded and kept
+ * in access order: the least recently seen keys are evicted first when a stripe is full.
+ */
+public class LoginRateLimiter {
+
+    public enum Decision { ALLOWED, IP_LIMITED, ACCOUNT_LIMITED }
+
+    private final Limit ipLimit;
+    private final Limit accountLimit;
+    private final long idleNanos; // a bucket idle for a full refill period is full again
+    private final Stripe[] stripes;
+    private final int maxEntriesPerStripe;
+    private final LongSupplier nanoClock;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder ipRejected = new LongAdder();
+    private final LongAdder accountRejected = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LoginRateLimiter(int ipCapacity, int accountCapacity, Duration refillPeriod, int maxEntries, int stripeCount) {
+        this(ipCapacity, accountCapacity, refillPeriod, maxEntries, stripeCount, System::nanoTime);
+    }
+
+    LoginRateLimiter(int ipCapacity, int accountCapacity, Duration refillPeriod, int maxEntries, int stripeCount,
+                     LongSupplier nanoClock) {
+        if (ipCapacity < 1 || accountCapacity < 1 || maxEntries < 1 || stripeCount < 1 || refillPeriod.isNegative()
+                || refillPeriod.isZero()) {
+            throw new IllegalArgumentException("Rate limit capacities, period, max-entries and stripes must be positive");
+        }
+        this.idleNanos = refillPeriod.toNanos();
+        this.ipLimit = new Limit(ipCapacity, Math.max(1, idleNanos / ipCapacity));
+        this.accountLimit = new Limit(accountCapacity, Math.max(1, idleNanos / accountCapacity));
+        int count = Integer.highestOneBit(stripeCount - 1) << 1; // next power of two, for the mask
+        this.stripes = new Stripe[Math.max(1, count)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.maxEntriesPerStripe = Math.max(1, maxEntries / stripes.length);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Takes one token from the IP bucket, then (if an account is given) from the account bucket.
+     * A request refused by its IP does not consume the account token: a flood from one address
+     * cannot lock the victim's account for other clients any faster than the account limit allows.
+     */
+    public Decision tryAcquire(String ip, String account) {
+        long now = nanoClock.getAsLong();
+        if (!take("ip:" + ip, ipLimit, now)) {
+            ipRejected.increment();
+            return Decision.IP_LIMITED;
+        }
+        if (account != null && !account.isBlank()
+                && !take("account:" + account.trim().toLowerCase(), accountLimit, now)) {
+            accountRejected.increment();
+            return Decision.ACCOUNT_LIMITED;
+        }
+        allowed.increment();
+        return Decision.ALLOWED;
+    }
+
+    // Seconds until the next token for a refused request (Retry-After)
+    public long retryAfterSeconds(Decision decision) {
+        Limit limit = (decision == Decision.ACCOUNT_LIMITED) ? accountLimit : ipLimit;
+        return Math.max(1, Duration.ofNanos(limit.nanosPerToken()).toSeconds());
+    }
+
+    private boolean take(String key, Limit limit, long now) {
+        Stripe stripe = stripes[spread(key.hashCode()) & (stripes.length - 1)];
+        synchronized (stripe) {
+            stripe.evictIdle(now);
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                bucket = new Bucket(limit.capacity, now);
+                stripe.buckets.put(key, bucket);
+                if (stripe.buckets.size() > maxEntriesPerStripe) {
+                    Iterator<String> eldest = stripe.buckets.keySet().iterator();
+                    eldest.next();
+                    eldest.remove();
+                    evictions.increment();
+                }
+            }
+            return bucket.tryTake(limit, now);
+        }
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.buckets.size();
+            }
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.buckets.clear();
+            }
+        }
+    }
+
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    public long getIpRejected() {
+        return ipRejected.sum();
+    }
+
+    public long getAccountRejected() {
+        return accountRejected.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // capacity tokens, one more every nanosPerToken
+    private record Limit(int capacity, long nanosPerToken) {
+    }
+
+    private static final class Bucket {
+        private double tokens;
+        private long lastSeen;
+
+        Bucket(int capacity, long now) {
+            this.tokens = capacity;
+            this.lastSeen = now;
+        }
+
+        boolean tryTake(Limit limit, long now) {
+            tokens = Math.min(limit.capacity(), tokens + (double) (now - lastSeen) / limit.nanosPerToken());
+            lastSeen = now;
+            if (tokens < 1) {
+                return false;
+            }
+            tokens -= 1;
+            return true;
+        }
+    }
+
+    private final class Stripe {
+        // Access order: the least recently seen bucket is at the head
+        private final LinkedHashMap<String, Bucket> buckets = new LinkedHashMap<>(16, 0.75f, true);
+
+        void evictIdle(long now) {
+            Iterator<Map.Entry<String, Bucket>> it = buckets.entrySet().iterator();
+            while (it.hasNext() && now - it.next().getValue().lastSeen >= idleNanos) {
+                it.remove();
+            }
+        }
+    }
+}
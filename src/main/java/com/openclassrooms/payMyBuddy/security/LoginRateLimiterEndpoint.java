@@ -0,0 +1,33 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Admin hook: GET /actuator/ratelimit shows the login/registration throttling counters, DELETE resets every bucket
+@Component
+@Endpoint(id = "ratelimit")
+@RequiredArgsConstructor
+public class LoginRateLimiterEndpoint {
+
+    private final LoginRateLimiter loginRateLimiter;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        return Map.of("trackedKeys", loginRateLimiter.size(),
+                "allowed", loginRateLimiter.getAllowed(),
+                "ipRejected", loginRateLimiter.getIpRejected(),
+                "accountRejected", loginRateLimiter.getAccountRejected(),
+                "evictions", loginRateLimiter.getEvictions());
+    }
+
+    @DeleteOperation
+    public Map<String, Object> clear() {
+        loginRateLimiter.clear();
+        return stats();
+    }
+}
@@ -0,0 +1,9 @@
+package com.openclassrooms.payMyBuddy.security;
+
+// Every BCrypt worker busy and the wait queue full (or the wait too long): the caller should retry later
+public class PasswordHashingBusyException extends IllegalStateException {
+
+    public PasswordHashingBusyException() {
+        super("Too many requests right now, please try again in a few seconds.");
+    }
+}
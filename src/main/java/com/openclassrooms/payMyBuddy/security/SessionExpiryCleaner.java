@@ -0,0 +1,90 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Deletes expired JDBC sessions in small batches (one short transaction each) instead of one DELETE over
+ * every expired row, which would hold row locks on SPRING_SESSION for as long as the whole purge takes.
+ * Every node runs it: the delete re-checks the expiry, so a session touched meanwhile is kept, and two nodes
+ * deleting the same batch only see 0 rows updated. Attributes go with their session (ON DELETE CASCADE).
+ */
+@Slf4j
+public class SessionExpiryCleaner {
+
+    private static final String SELECT_EXPIRED =
+            "SELECT PRIMARY_ID FROM SPRING_SESSION WHERE EXPIRY_TIME < ? ORDER BY EXPIRY_TIME LIMIT ?";
+    private static final String DELETE_IF_EXPIRED =
+            "DELETE FROM SPRING_SESSION WHERE PRIMARY_ID = ? AND EXPIRY_TIME < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final LongSupplier clock;
+
+    private final LongAdder deleted = new LongAdder();
+
+    public SessionExpiryCleaner(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, int batchSize) {
+        this(jdbcTemplate, transactionTemplate, batchSize, System::currentTimeMillis);
+    }
+
+    SessionExpiryCleaner(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, int batchSize,
+                         LongSupplier clock) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("paymybuddy.session.cleanup-batch-size must be >= 1");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.clock = clock;
+    }
+
+    // Returns the number of sessions deleted
+    @Scheduled(fixedDelayString = "${paymybuddy.session.cleanup-interval:PT1M}",
+            initialDelayString = "${paymybuddy.session.cleanup-interval:PT1M}")
+    public int cleanUpExpiredSessions() {
+        long now = clock.getAsLong();
+        int total = 0;
+        int batches = 0;
+        Batch batch;
+        do {
+            batch = transactionTemplate.execute(status -> deleteBatch(now));
+            total += batch.deleted();
+            batches++;
+        } while (batch.selected() == batchSize); // a partial batch was the last one
+        deleted.add(total);
+        if (total > 0) {
+            log.info("SessionExpiryCleaner.cleanUpExpiredSessions - deleted={} batches={}", total, batches);
+        }
+        return total;
+    }
+
+    private Batch deleteBatch(long now) {
+        List<String> ids = jdbcTemplate.queryForList(SELECT_EXPIRED, String.class, now, batchSize);
+        if (ids.isEmpty()) {
+            return new Batch(0, 0);
+        }
+        int[] counts = jdbcTemplate.batchUpdate(DELETE_IF_EXPIRED, ids.stream()
+                .map(id -> new Object[]{id, now})
+                .toList());
+        int deletedRows = 0;
+        for (int count : counts) {
+            deletedRows += (count == Statement.SUCCESS_NO_INFO) ? 1 : count; // rewritten batches report no count
+        }
+        return new Batch(ids.size(), deletedRows);
+    }
+
+    private record Batch(int selected, int deleted) {
+    }
+
+    public long getDeleted() {
+        return deleted.sum();
+    }
+}
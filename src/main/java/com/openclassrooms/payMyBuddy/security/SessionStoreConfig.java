@@ -0,0 +1,62 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.MapSessionRepository;
+import org.springframework.session.config.SessionRepositoryCustomizer;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * HTTP session store, chosen with paymybuddy.session.store:
+ * - jdbc (default): Spring Session JDBC on the application database (db/migration/V5__spring_session.sql), so any node
+ *   can serve any request and a redeploy keeps everyone signed in. Attributes are deserialized lazily,
+ *   only the changed ones are written back, and expired rows are removed in batches by SessionExpiryCleaner.
+ * - memory: one node only, for tests and local runs.
+ * The security context only holds the AccountPrincipal (id, email, display name, authorities; for OAuth2 the email
+ * is the only provider attribute kept) and no saved request.
+ */
+@Configuration(proxyBeanMethods = false)
+public class SessionStoreConfig {
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "paymybuddy.session.store", havingValue = "memory")
+    @EnableSpringHttpSession
+    static class InMemory {
+
+        @Bean
+        MapSessionRepository sessionRepository(@Value("${server.servlet.session.timeout:PT30M}") Duration timeout) {
+            MapSessionRepository repository = new MapSessionRepository(new ConcurrentHashMap<>());
+            repository.setDefaultMaxInactiveInterval(timeout);
+            return repository;
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "paymybuddy.session.store", havingValue = "jdbc", matchIfMissing = true)
+    static class Jdbc {
+
+        // Runs after Spring Boot's customizer: its single DELETE of every expired row is replaced by SessionExpiryCleaner
+        @Bean
+        @Order(Ordered.LOWEST_PRECEDENCE)
+        SessionRepositoryCustomizer<JdbcIndexedSessionRepository> disableBulkSessionCleanup() {
+            return repository -> repository.setCleanupCron(Scheduled.CRON_DISABLED);
+        }
+
+        @Bean
+        SessionExpiryCleaner sessionExpiryCleaner(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                                  @Value("${paymybuddy.session.cleanup-batch-size:500}") int batchSize) {
+            return new SessionExpiryCleaner(jdbcTemplate, transactionTemplate, batchSize);
+        }
+    }
+}
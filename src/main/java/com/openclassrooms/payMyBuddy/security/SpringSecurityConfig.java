@@ -1,32 +1,57 @@
 package com.openclassrooms.payMyBuddy.security;
 
+import com.openclassrooms.payMyBuddy.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.authentication.AuthenticationServiceException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.ExceptionMappingAuthenticationFailureHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.savedrequest.NullRequestCache;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
 public class SpringSecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http,
+                                                   AccountOAuth2UserService oauth2UserService,
+                                                   LoginRateLimiter loginRateLimiter) throws Exception {
         http
+                // 429 before any user lookup or password hash (POST /login and POST /register)
+                .addFilterBefore(new LoginRateLimitFilter(loginRateLimiter), UsernamePasswordAuthenticationFilter.class)
+
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/login", "/register", "/register/**", "/css/**", "/js/**", "/images/**").permitAll()
+                        .requestMatchers("/login", "/register", "/register/**", "/css/**", "/js/**", "/images/**", "/actuator/health").permitAll()
+                        // admin hooks (bank account refresh, reconciliation, cache and rate limit resets, retry counters): AdminAccounts only
+                        .requestMatchers(EndpointRequest.toAnyEndpoint().excluding("health")).hasRole("ADMIN")
                         .anyRequest().authenticated())
 
                 .formLogin(form -> form
                         .loginPage("/login")
                         .defaultSuccessUrl("/transfer", true)
+                        .failureHandler(loginFailureHandler())
                         .permitAll())
 
                 .oauth2Login(oauth -> oauth
                         .loginPage("/login")
+                        .userInfoEndpoint(userInfo -> userInfo.userService(oauth2UserService)) // AccountPrincipal
                         .defaultSuccessUrl("/transfer", true))
 
+                // both logins always land on /transfer: no request to replay, nothing to keep in the session
+                .requestCache(cache -> cache.requestCache(new NullRequestCache()))
+
                 .logout(logout -> logout
                         .logoutUrl("/logout")
                         .logoutSuccessUrl("/login?logout")
@@ -35,8 +60,45 @@ public class SpringSecurityConfig {
         return http.build();
     }
 
+    // OAuth2 login -> AccountPrincipal (account found or created once, at authentication)
+    @Bean
+    public AccountOAuth2UserService oauth2UserService(UserService userService) {
+        return new AccountOAuth2UserService(userService);
+    }
+
+    // Admin hooks (/actuator/* except health): password login of these emails only, none by default
+    @Bean
+    public AdminAccounts adminAccounts(@Value("${paymybuddy.security.admin-emails:}") String emails) {
+        return new AdminAccounts(List.of(StringUtils.commaDelimitedListToStringArray(emails)));
+    }
+
+    // BCrypt on its own bounded pool: a login spike fails fast instead of holding every request thread.
+    // Raising the strength re-encodes each hash at the next successful login (AuthenticationConfig).
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(@Value("${paymybuddy.security.bcrypt.strength:10}") int strength,
+                                                  @Value("${paymybuddy.security.bcrypt.threads:0}") int threads,
+                                                  @Value("${paymybuddy.security.bcrypt.queue-capacity:64}") int queueCapacity,
+                                                  @Value("${paymybuddy.security.bcrypt.max-wait:PT5S}") Duration maxWait) {
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        int poolSize = (threads > 0) ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(bcrypt, poolSize, queueCapacity, maxWait);
+    }
+
+    // Token buckets per client IP and per account for the credential endpoints (see LoginRateLimitFilter)
+    @Bean
+    public LoginRateLimiter loginRateLimiter(@Value("${paymybuddy.security.rate-limit.ip-capacity:30}") int ipCapacity,
+                                             @Value("${paymybuddy.security.rate-limit.account-capacity:10}") int accountCapacity,
+                                             @Value("${paymybuddy.security.rate-limit.refill-period:PT1M}") Duration refillPeriod,
+                                             @Value("${paymybuddy.security.rate-limit.max-entries:100000}") int maxEntries,
+                                             @Value("${paymybuddy.security.rate-limit.stripes:16}") int stripes) {
+        return new LoginRateLimiter(ipCapacity, accountCapacity, refillPeriod, maxEntries, stripes);
+    }
+
+    // Hashing pool saturated (AuthenticationServiceException) -> /login?busy, bad credentials -> /login?error
+    private static ExceptionMappingAuthenticationFailureHandler loginFailureHandler() {
+        ExceptionMappingAuthenticationFailureHandler handler = new ExceptionMappingAuthenticationFailureHandler();
+        handler.setExceptionMappings(Map.of(AuthenticationServiceException.class.getName(), "/login?busy"));
+        handler.setDefaultFailureUrl("/login?error");
+        return handler;
     }
 }
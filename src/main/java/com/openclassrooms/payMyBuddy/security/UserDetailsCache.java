@@ -0,0 +1,133 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Form login: email -> AccountPrincipal recently loaded by CustomUserDetailsService, so a login storm
+ * does not run one findByEmail per attempt. Bounded (oldest entries evicted first) and expiring.
+ * A wrong password against a cached entry makes DaoAuthenticationProvider reload from the database,
+ * and UserService.updateProfile invalidates the entry of an updated account; the TTL bounds how long
+ * another instance may still accept an old password.
+ */
+@Component
+public class UserDetailsCache implements UserCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    // Insertion order = age order (same TTL for every entry): expired entries are always at the head
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public UserDetailsCache(@Value("${paymybuddy.security.user-cache.max-entries:10000}") int maxEntries,
+                            @Value("${paymybuddy.security.user-cache.ttl:PT5M}") Duration ttl) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("paymybuddy.security.user-cache.max-entries must be >= 1");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    // The login form sends the email as typed: same normalization as CustomUserDetailsService
+    private static String key(String username) {
+        return (username == null) ? null : username.trim().toLowerCase();
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        String key = key(username);
+        Entry entry;
+        synchronized (this) {
+            evictExpired(System.nanoTime());
+            entry = (key == null) ? null : entries.get(key);
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.principal.copy();
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        if (!(user instanceof AccountPrincipal principal) || principal.getPassword() == null) {
+            return; // only our principals, with the hash still present (not yet erased)
+        }
+        String key = key(principal.getUsername());
+        Entry entry = new Entry(principal.copy(), System.nanoTime() + ttlNanos);
+        synchronized (this) {
+            evictExpired(System.nanoTime());
+            entries.remove(key); // re-inserted at the tail with a fresh expiry
+            entries.put(key, entry);
+            if (entries.size() > maxEntries) {
+                Iterator<String> oldest = entries.keySet().iterator();
+                oldest.next();
+                oldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        String key = key(username);
+        if (key == null) {
+            return;
+        }
+        synchronized (this) {
+            if (entries.remove(key) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        invalidations.add(entries.size());
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext() && it.next().getValue().expiresAt - now <= 0) {
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    private record Entry(AccountPrincipal principal, long expiresAt) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Admin hook: GET /actuator/usercache shows the login cache hit/miss counters, DELETE empties it
+@Component
+@Endpoint(id = "usercache")
+@RequiredArgsConstructor
+public class UserDetailsCacheEndpoint {
+
+    private final UserDetailsCache userDetailsCache;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        long hits = userDetailsCache.getHits();
+        long misses = userDetailsCache.getMisses();
+        return Map.of("size", userDetailsCache.size(),
+                "hits", hits,
+                "misses", misses,
+                "hitRatio", (hits + misses == 0) ? 0.0 : (double) hits / (hits + misses),
+                "evictions", userDetailsCache.getEvictions(),
+                "invalidations", userDetailsCache.getInvalidations());
+    }
+
+    @DeleteOperation
+    public Map<String, Object> clear() {
+        userDetailsCache.clear();
+        return stats();
+    }
+}
@@ -0,0 +1,249 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.dto.ReconciliationReport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Checks that users.balance equals what the transactions imply, with the fee rules of WalletService:
+ * TOP_UP credits the net, P2P_TRANSFER debits gross + fee from the sender and credits gross,
+ * WITHDRAWAL debits gross + fee. The bank account is not a wallet and is skipped.
+ * Starting point: the opening ledger snapshot of each wallet (last_posting_id = 0, written by the V4 migration,
+ * the seed or the dataset generator), which already includes every transaction older than the ledger (those
+ * have no postings). Only transactions from the first posted one onwards are added to it; 0 without a snapshot.
+ *
+ * 1) transactions are scanned in id-range partitions on a fork-join pool, plain JDBC rows (no entities),
+ *    summed in cents per user in primitive int -> long maps, merged pairwise, on top of the opening balances;
+ * 2) users.balance is streamed and compared;
+ * 3) each suspect is re-checked in a single REPEATABLE READ transaction (payments keep running meanwhile),
+ *    with its ledger balance (LedgerService.walletBalance) read in the same snapshot as a third opinion.
+ */
+@Slf4j
+@Service
+public class BalanceReconciliationService {
+
+    static final String PARTITION_SQL = """
+            SELECT sender_id, receiver_id, type,
+                   ROUND(gross_amount * 100), ROUND(fee_amount * 100), ROUND(net_amount * 100)
+            FROM transactions
+            WHERE id > ? AND id <= ?
+            """;
+
+    static final String BALANCES_SQL = "SELECT id, ROUND(balance * 100) FROM users WHERE is_bank = false";
+
+    // One opening snapshot per wallet (the first one, should it have been written twice)
+    static final String OPENING_BALANCES_SQL = """
+            SELECT s.user_id, ROUND(s.balance * 100)
+            FROM ledger_balance_snapshots s
+            WHERE s.last_posting_id = 0
+              AND s.id = (SELECT MIN(s2.id) FROM ledger_balance_snapshots s2
+                          WHERE s2.user_id = s.user_id AND s2.last_posting_id = 0)
+            """;
+
+    // Last transaction included in the opening snapshots: the one before the first posted transaction
+    // (no posting yet: every transaction up to maxId predates the ledger)
+    static final String OPENING_LAST_TRANSACTION_SQL =
+            "SELECT COALESCE(MIN(transaction_id) - 1, ?) FROM ledger_postings";
+
+    static final String EXPECTED_FOR_USER_SQL = """
+            SELECT COALESCE((SELECT ROUND(s.balance * 100) FROM ledger_balance_snapshots s
+                             WHERE s.user_id = ? AND s.last_posting_id = 0 ORDER BY s.id LIMIT 1), 0)
+                 + COALESCE(SUM(CASE WHEN receiver_id = ? AND type IN ('TOP_UP', 'P2P_TRANSFER')
+                                     THEN ROUND(net_amount * 100) ELSE 0 END), 0)
+                 - COALESCE(SUM(CASE WHEN sender_id = ? AND type IN ('P2P_TRANSFER', 'WITHDRAWAL')
+                                     THEN ROUND((gross_amount + fee_amount) * 100) ELSE 0 END), 0)
+            FROM transactions
+            WHERE (sender_id = ? OR receiver_id = ?) AND id > ?
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final LedgerService ledger;
+    private final TransactionTemplate consistentRead;
+    private final int parallelism;
+    private final long partitionSize;
+    private final int maxReported;
+
+    public BalanceReconciliationService(JdbcTemplate jdbc,
+                                        LedgerService ledger,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${paymybuddy.reconciliation.parallelism:4}") int parallelism,
+                                        @Value("${paymybuddy.reconciliation.partition-size:100000}") long partitionSize,
+                                        @Value("${paymybuddy.reconciliation.max-reported:1000}") int maxReported) {
+        if (parallelism < 1 || partitionSize < 1 || maxReported < 0) {
+            throw new IllegalArgumentException("Invalid paymybuddy.reconciliation settings");
+        }
+        this.jdbc = jdbc;
+        this.ledger = ledger;
+        this.consistentRead = new TransactionTemplate(transactionManager);
+        this.consistentRead.setReadOnly(true);
+        this.consistentRead.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.parallelism = parallelism;
+        this.partitionSize = partitionSize;
+        this.maxReported = maxReported;
+    }
+
+    // Disabled unless paymybuddy.reconciliation.cron is set (e.g. "0 30 3 * * *")
+    @Scheduled(cron = "${paymybuddy.reconciliation.cron:-}")
+    public void scheduledRun() {
+        reconcile();
+    }
+
+    public ReconciliationReport reconcile() {
+        long start = System.nanoTime();
+
+        // Bounds fixed at start: later transactions are left to the re-check
+        long minId = jdbc.queryForObject("SELECT COALESCE(MIN(id), 0) FROM transactions", Long.class);
+        long maxId = jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM transactions", Long.class);
+        long openingId = jdbc.queryForObject(OPENING_LAST_TRANSACTION_SQL, Long.class, maxId);
+        long fromId = Math.max(minId - 1, Math.min(openingId, maxId));
+        log.info("BalanceReconciliationService.reconcile - start ids=({}, {}] parallelism={} partitionSize={}",
+                fromId, maxId, parallelism, partitionSize);
+
+        // 1) Expected balances: opening snapshots + later transactions, in parallel
+        Partial expected;
+        try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+            expected = pool.invoke(new PartitionTask(fromId, maxId));
+        }
+        jdbc.query(OPENING_BALANCES_SQL, (RowCallbackHandler) rs -> expected.sums.addTo(rs.getInt(1), rs.getLong(2)));
+
+        // 2) Compare with users.balance (streamed)
+        List<Integer> suspects = new ArrayList<>();
+        int[] usersChecked = {0};
+        jdbc.query(BALANCES_SQL, (RowCallbackHandler) rs -> {
+            usersChecked[0]++;
+            int userId = rs.getInt(1);
+            if (rs.getLong(2) != expected.sums.get(userId)) {
+                suspects.add(userId);
+            }
+        });
+
+        // 3) Confirm suspects one by one in a consistent snapshot
+        List<ReconciliationReport.Discrepancy> confirmed = new ArrayList<>();
+        int rechecked = 0;
+        for (Integer userId : suspects) {
+            if (rechecked >= maxReported) break;
+            rechecked++;
+            ReconciliationReport.Discrepancy d = recheck(userId, fromId);
+            if (d != null) confirmed.add(d);
+        }
+
+        ReconciliationReport report = new ReconciliationReport(maxId, expected.rows, expected.partitions,
+                usersChecked[0], suspects.size(), rechecked, List.copyOf(confirmed),
+                Duration.ofNanos(System.nanoTime() - start));
+        if (report.isClean()) {
+            log.info("BalanceReconciliationService.reconcile - clean rows={} partitions={} users={} elapsedMs={}",
+                    report.getTransactionsScanned(), report.getPartitions(), report.getUsersChecked(),
+                    report.getElapsed().toMillis());
+        } else {
+            log.warn("BalanceReconciliationService.reconcile - discrepancies={} suspects={} rechecked={} rows={} users={} elapsedMs={}",
+                    confirmed.size(), report.getSuspects(), rechecked, report.getTransactionsScanned(),
+                    report.getUsersChecked(), report.getElapsed().toMillis());
+        }
+        return report;
+    }
+
+    // Recomputes one user's expected balance (opening snapshot + transactions after fromId) and reads users.balance
+    // in the same snapshot; null if they match. Otherwise the ledger balance tells which side drifted:
+    // equal to expected -> users.balance was updated wrongly, equal to actual -> a transaction row is wrong
+    ReconciliationReport.Discrepancy recheck(Integer userId, long fromId) {
+        return consistentRead.execute(status -> {
+            Long expectedCents = jdbc.queryForObject(EXPECTED_FOR_USER_SQL, Long.class,
+                    userId, userId, userId, userId, userId, fromId);
+            Long actualCents = jdbc.queryForObject("SELECT ROUND(balance * 100) FROM users WHERE id = ?", Long.class, userId);
+            long exp = (expectedCents == null) ? 0L : expectedCents;
+            long act = (actualCents == null) ? 0L : actualCents;
+            if (exp == act) {
+                return null;
+            }
+            BigDecimal ledgerBalance = ledger.walletBalance(userId);
+            log.warn("BalanceReconciliationService.recheck - userId={} expected={} actual={} ledger={}",
+                    userId, BigDecimal.valueOf(exp, 2), BigDecimal.valueOf(act, 2), ledgerBalance);
+            return new ReconciliationReport.Discrepancy(userId, BigDecimal.valueOf(exp, 2),
+                    BigDecimal.valueOf(act, 2), BigDecimal.valueOf(act - exp, 2), ledgerBalance);
+        });
+    }
+
+    // Balance effect of one transaction row, in cents (same rules as WalletService)
+    static void accumulate(IntLongHashMap sums, int senderId, int receiverId, String type,
+                           long gross, long fee, long net) {
+        switch (type) {
+            case "TOP_UP" -> sums.addTo(receiverId, net);
+            case "P2P_TRANSFER" -> {
+                sums.addTo(senderId, -(gross + fee));
+                sums.addTo(receiverId, net);
+            }
+            case "WITHDRAWAL" -> sums.addTo(senderId, -(gross + fee));
+            default -> throw new IllegalStateException("Unknown transaction type: " + type);
+        }
+    }
+
+    private Partial scan(long fromExclusive, long toInclusive) {
+        Partial partial = new Partial(new IntLongHashMap(1024));
+        partial.partitions = 1;
+        jdbc.query(PARTITION_SQL, (RowCallbackHandler) rs -> {
+            accumulate(partial.sums, rs.getInt(1), rs.getInt(2), rs.getString(3),
+                    rs.getLong(4), rs.getLong(5), rs.getLong(6));
+            partial.rows++;
+        }, fromExclusive, toInclusive);
+        return partial;
+    }
+
+    // Sums of one id range (or of several merged ranges)
+    private static final class Partial {
+        IntLongHashMap sums;
+        long rows;
+        int partitions;
+
+        Partial(IntLongHashMap sums) {
+            this.sums = sums;
+        }
+
+        Partial merge(Partial other) {
+            // the smaller map is folded into the bigger one
+            IntLongHashMap big = (sums.size() >= other.sums.size()) ? sums : other.sums;
+            IntLongHashMap small = (big == sums) ? other.sums : sums;
+            Partial merged = new Partial(big.mergeFrom(small));
+            merged.rows = rows + other.rows;
+            merged.partitions = partitions + other.partitions;
+            return merged;
+        }
+    }
+
+    // Ids (from, to]: split in halves until a range fits in one partition
+    private final class PartitionTask extends RecursiveTask<Partial> {
+
+        private final long from;
+        private final long to;
+
+        PartitionTask(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= partitionSize) {
+                return scan(from, to);
+            }
+            long mid = from + (to - from) / 2;
+            PartitionTask left = new PartitionTask(from, mid);
+            left.fork();
+            Partial right = new PartitionTask(mid, to).compute();
+            return left.join().merge(right);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+// Admin hook: GET /actuator/bankaccount shows the cached id, POST re-reads it (e.g. after changing users.is_bank)
+@Component
+@Endpoint(id = "bankaccount")
+@RequiredArgsConstructor
+public class BankAccountEndpoint {
+
+    private final BankAccountResolver bankAccountResolver;
+
+    @ReadOperation
+    public Map<String, Object> bankAccount() {
+        return Map.of("resolved", bankAccountResolver.isResolved(),
+                "bankId", bankAccountResolver.isResolved() ? bankAccountResolver.getBankId() : "none");
+    }
+
+    @WriteOperation
+    public Map<String, Object> refresh() {
+        return Map.of("resolved", true, "bankId", bankAccountResolver.refresh());
+    }
+}
@@ -0,0 +1,22 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+// /actuator/health is DOWN while no bank account is resolved: no payment can succeed
+@Component
+@RequiredArgsConstructor
+public class BankAccountHealthIndicator implements HealthIndicator {
+
+    private final BankAccountResolver bankAccountResolver;
+
+    @Override
+    public Health health() {
+        if (!bankAccountResolver.isResolved()) {
+            return Health.down().withDetail("reason", "Bank user not found (is_bank = true)").build();
+        }
+        return Health.up().withDetail("bankId", bankAccountResolver.getBankId()).build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Holds the id of the system bank account (users.is_bank = true).
+ * It is resolved once at startup (the application refuses to start without it, unless
+ * paymybuddy.bank.fail-fast=false) and only re-read on refresh(), so money movements
+ * never query users.is_bank.
+ */
+@Slf4j
+@Component
+public class BankAccountResolver {
+
+    private final UserRepository userRepository;
+    private final boolean failFast;
+
+    private volatile Integer bankId; // null until resolved
+
+    public BankAccountResolver(UserRepository userRepository,
+                               @Value("${paymybuddy.bank.fail-fast:true}") boolean failFast) {
+        this.userRepository = userRepository;
+        this.failFast = failFast;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resolveOnStartup() {
+        try {
+            refresh();
+        } catch (IllegalStateException ex) {
+            if (failFast) throw ex;
+            log.warn("BankAccountResolver.resolveOnStartup - {} (fail-fast disabled)", ex.getMessage());
+        }
+    }
+
+    // Re-reads the bank account id (admin hook, see BankAccountEndpoint)
+    public Integer refresh() {
+        List<Integer> ids = userRepository.findBankIds();
+        if (ids.isEmpty()) {
+            bankId = null;
+            log.error("BankAccountResolver.refresh - bank user not found (is_bank = true)");
+            throw new IllegalStateException("Bank user not found (is_bank = true)");
+        }
+        if (ids.size() > 1) {
+            log.warn("BankAccountResolver.refresh - several bank users ids={}, using the first one", ids);
+        }
+        Integer previous = bankId;
+        bankId = ids.get(0);
+        log.info("BankAccountResolver.refresh - bankId={} previous={}", bankId, previous);
+        return bankId;
+    }
+
+    public Integer getBankId() {
+        Integer id = bankId;
+        // Not resolved at startup (fail-fast disabled, empty database...): try once more
+        return (id != null) ? id : refresh();
+    }
+
+    public boolean isResolved() {
+        return bankId != null;
+    }
+
+    public boolean isBank(Integer userId) {
+        return userId != null && userId.equals(getBankId());
+    }
+}
@@ -0,0 +1,48 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.logging.EmailMasker;
+import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import com.openclassrooms.payMyBuddy.security.AccountPrincipal;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+/**
+ * The authenticated caller: id and email.
+ * With an AccountPrincipal (form login, OAuth2, bearer token) both are read from the principal, without any query;
+ * any other principal falls back to CurrentUserService for the email and to a lookup by email for the id.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CurrentAccount {
+
+    private final CurrentUserService currentUserService;
+    private final UserRepository userRepository;
+
+    public String email(Authentication auth) {
+        AccountPrincipal principal = principal(auth);
+        if (principal != null && principal.getEmail() != null) {
+            return principal.getEmail();
+        }
+        return currentUserService.requireEmail(auth);
+    }
+
+    public Integer id(Authentication auth) {
+        AccountPrincipal principal = principal(auth);
+        if (principal != null && principal.getId() != null) {
+            return principal.getId();
+        }
+        String email = email(auth);
+        return userRepository.findIdByEmail(email)
+                .orElseThrow(() -> {
+                    log.warn("CurrentAccount.id - user not found email={}", EmailMasker.masked(email));
+                    return new IllegalArgumentException("User not found: " + email);
+                });
+    }
+
+    private static AccountPrincipal principal(Authentication auth) {
+        return (auth != null && auth.getPrincipal() instanceof AccountPrincipal principal) ? principal : null;
+    }
+}
@@ -1,5 +1,7 @@
 package com.openclassrooms.payMyBuddy.service;
 
+import com.openclassrooms.payMyBuddy.logging.EmailMasker;
+import com.openclassrooms.payMyBuddy.security.AccountPrincipal;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
@@ -11,10 +13,6 @@ import java.util.Map;
 @Component
 public class CurrentUserService {
 
-    private String maskEmail(String email) {
-        return (email == null) ? "unknown" : email.trim().toLowerCase().replaceAll("(^.).*(@.*$)", "$1***$2");
-    }
-
     // Return the user's email (form login or OAuth2), or throw if not found
     public String requireEmail(Authentication auth) {
         if (auth == null) {
@@ -22,6 +20,11 @@ public class CurrentUserService {
             throw new IllegalStateException("Cannot find user email.");
         }
 
+        // Our own principal (form login and OAuth2): email already normalized at authentication
+        if (auth.getPrincipal() instanceof AccountPrincipal principal) {
+            return principal.getEmail();
+        }
+
         // OAuth2: read "email" from user attributes
         if (auth instanceof OAuth2AuthenticationToken oauth) {
             Map<String, Object> attrs = oauth.getPrincipal().getAttributes();
@@ -29,7 +32,7 @@ public class CurrentUserService {
             if (value instanceof String s) {
                 String email = s.trim().toLowerCase();
                 if (!email.isEmpty()) {
-                    log.info("CurrentUserService.requireEmail - OAuth2 resolved email={}", maskEmail(email));
+                    log.info("CurrentUserService.requireEmail - OAuth2 resolved email={}", EmailMasker.masked(email));
                     return email;
                 }
             }
@@ -44,7 +47,7 @@ public class CurrentUserService {
             throw new IllegalStateException("Cannot find user email.");
         }
         String email = name.trim().toLowerCase();
-        log.info("CurrentUserService.requireEmail - form resolved email={}", maskEmail(email));
+        log.info("CurrentUserService.requireEmail - form resolved email={}", EmailMasker.masked(email));
         return email;
     }
 }
\ No newline at end of file
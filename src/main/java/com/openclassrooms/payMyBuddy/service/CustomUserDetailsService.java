@@ -1,27 +1,32 @@
 package com.openclassrooms.payMyBuddy.service;
 
+import com.openclassrooms.payMyBuddy.logging.EmailMasker;
 import com.openclassrooms.payMyBuddy.model.User;
 import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import com.openclassrooms.payMyBuddy.security.AccountPrincipal;
+import com.openclassrooms.payMyBuddy.security.AdminAccounts;
+import com.openclassrooms.payMyBuddy.security.UserDetailsCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-
-import java.util.List;
+import org.springframework.transaction.annotation.Transactional;
 
 @Slf4j
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     private UserRepository userRepository;
 
-    private String maskEmail(String email) {
-        return (email == null) ? "unknown" : email.trim().toLowerCase().replaceAll("(^.).*(@.*$)", "$1***$2");
-    }
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private AdminAccounts adminAccounts;
 
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
@@ -31,26 +36,53 @@ public class CustomUserDetailsService implements UserDetailsService {
         }
 
         String normalizedEmail = email.trim().toLowerCase();
-        log.info("CustomUserDetailsService.loadUserByUsername - attempt email={}", maskEmail(normalizedEmail));
+        log.info("CustomUserDetailsService.loadUserByUsername - attempt email={}", EmailMasker.masked(normalizedEmail));
 
         User user = userRepository.findByEmail(normalizedEmail)
                 .orElseThrow(() -> {
-                    log.warn("CustomUserDetailsService.loadUserByUsername - not found email={}", maskEmail(normalizedEmail));
+                    log.warn("CustomUserDetailsService.loadUserByUsername - not found email={}", EmailMasker.masked(normalizedEmail));
                     return new UsernameNotFoundException("User not found : " + normalizedEmail);
                 });
 
         // the 'Bank' account is not authorized to authenticate
         if (user.isBank()) {
-            log.warn("CustomUserDetailsService.loadUserByUsername - bank user blocked email={}", maskEmail(user.getEmail()));
+            log.warn("CustomUserDetailsService.loadUserByUsername - bank user blocked email={}", EmailMasker.masked(user.getEmail()));
+            throw new UsernameNotFoundException("User not found : " + normalizedEmail);
+        }
+
+        // accounts created by OAuth2 login have no password: refused like an unknown email
+        if (UserService.OAUTH2_ONLY_PASSWORD.equals(user.getPassword())) {
+            log.info("CustomUserDetailsService.loadUserByUsername - OAuth2-only account email={}", EmailMasker.masked(user.getEmail()));
             throw new UsernameNotFoundException("User not found : " + normalizedEmail);
         }
 
         log.info("CustomUserDetailsService.loadUserByUsername - success userId={} email={}",
-                user.getId(), maskEmail(user.getEmail()));
+                user.getId(), EmailMasker.masked(user.getEmail()));
+
+        // id, email and display name travel with the session: no email -> id lookup per request
+        AccountPrincipal principal = AccountPrincipal.formLogin(user);
+        if (adminAccounts.isAdmin(user.getEmail())) {
+            log.info("CustomUserDetailsService.loadUserByUsername - admin account userId={}", user.getId());
+            return principal.asAdmin();
+        }
+        return principal;
+    }
+
+    // Called by DaoAuthenticationProvider after a successful login when the stored hash is weaker
+    // than the configured BCrypt strength: the new hash replaces it, the cached copy is dropped
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        if (!(user instanceof AccountPrincipal principal)) {
+            log.warn("CustomUserDetailsService.updatePassword - unexpected principal type={}", user.getClass().getSimpleName());
+            return user;
+        }
+
+        int updated = userRepository.updatePassword(principal.getId(), newPassword);
+        userDetailsCache.removeUserFromCache(principal.getEmail());
+        log.info("CustomUserDetailsService.updatePassword - password re-encoded userId={} updated={}",
+                principal.getId(), updated);
 
-        return new org.springframework.security.core.userdetails.User(
-                user.getEmail(),
-                user.getPassword(),
-                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        return principal.withPassword(newPassword);
     }
 }
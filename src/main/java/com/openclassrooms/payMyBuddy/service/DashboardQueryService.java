@@ -0,0 +1,116 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.dto.AccountSummaryDTO;
+import com.openclassrooms.payMyBuddy.dto.ConnectionDTO;
+import com.openclassrooms.payMyBuddy.dto.DashboardDTO;
+import com.openclassrooms.payMyBuddy.dto.FeedItemDTO;
+import com.openclassrooms.payMyBuddy.dto.FeedPage;
+import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Assembles the dashboard (GET /transfer) with exactly one query per data set:
+ * 1) account summary (balance), 2) friends, 3) first feed page, all keyed by the principal's user id.
+ * Friends and feed are independent, so they can run in parallel on virtual threads
+ * (paymybuddy.dashboard.parallel-reads=true).
+ */
+@Slf4j
+@Service
+public class DashboardQueryService {
+
+    private final UserRepository userRepository;
+    private final TransactionService transactionService;
+    private final ExecutorService executor; // null => sequential reads
+
+    public DashboardQueryService(UserRepository userRepository,
+                                 TransactionService transactionService,
+                                 @Value("${paymybuddy.dashboard.parallel-reads:false}") boolean parallelReads) {
+        this.userRepository = userRepository;
+        this.transactionService = transactionService;
+        this.executor = parallelReads ? Executors.newVirtualThreadPerTaskExecutor() : null;
+    }
+
+    public DashboardDTO load(Integer userId) {
+        if (userId == null) {
+            log.warn("DashboardQueryService.load - null userId");
+            throw new IllegalArgumentException("User id must not be null.");
+        }
+        long start = System.nanoTime();
+
+        // 1) Account (a deleted account stops here, before the other reads)
+        AccountSummaryDTO account = userRepository.findAccountSummaryById(userId)
+                .orElseThrow(() -> {
+                    log.warn("DashboardQueryService.load - user not found userId={}", userId);
+                    return new IllegalArgumentException("User not found : id = " + userId);
+                });
+        Duration accountTime = Duration.ofNanos(System.nanoTime() - start);
+
+        // 2) + 3) Friends and feed (independent)
+        Supplier<Timed<List<ConnectionDTO>>> friendsRead =
+                () -> timed(() -> userRepository.findConnectionsOf(userId));
+        Supplier<Timed<FeedPage<FeedItemDTO>>> feedRead =
+                () -> timed(() -> transactionService.getFeedPage(userId, null, TransactionService.DEFAULT_FEED_PAGE_SIZE));
+
+        Timed<List<ConnectionDTO>> friends;
+        Timed<FeedPage<FeedItemDTO>> feed;
+        if (executor == null) {
+            friends = friendsRead.get();
+            feed = feedRead.get();
+        } else {
+            Future<Timed<List<ConnectionDTO>>> friendsTask = executor.submit(friendsRead::get);
+            Future<Timed<FeedPage<FeedItemDTO>>> feedTask = executor.submit(feedRead::get);
+            friends = join(friendsTask);
+            feed = join(feedTask);
+        }
+
+        DashboardDTO.Timings timings = new DashboardDTO.Timings(
+                accountTime, friends.elapsed, feed.elapsed, Duration.ofNanos(System.nanoTime() - start));
+
+        log.info("DashboardQueryService.load - userId={} friends={} feedItems={} parallel={} timingsMs[account={} friends={} feed={} total={}]",
+                userId, friends.value.size(), feed.value.getItems().size(), executor != null,
+                timings.getAccount().toMillis(), timings.getFriends().toMillis(),
+                timings.getFeed().toMillis(), timings.getTotal().toMillis());
+
+        return new DashboardDTO(account, List.copyOf(friends.value), feed.value, timings);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.close();
+        }
+    }
+
+    private record Timed<T>(T value, Duration elapsed) {
+    }
+
+    private static <T> Timed<T> timed(Supplier<T> read) {
+        long start = System.nanoTime();
+        T value = read.get();
+        return new Timed<>(value, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    // Wait for a parallel read and rethrow its own exception (not the ExecutionException wrapper)
+    private static <T> T join(Future<T> task) {
+        try {
+            return task.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("Dashboard read failed", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Dashboard read interrupted", ex);
+        }
+    }
+}
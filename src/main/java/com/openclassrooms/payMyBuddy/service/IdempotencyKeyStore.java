@@ -0,0 +1,93 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.model.Transaction;
+import com.openclassrooms.payMyBuddy.model.TransactionType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Recently used idempotency keys -> what their transaction applied (id, type, amounts, receiver id).
+ * Immutable values only, never the entity: nothing here outlives the persistence context it was read in.
+ * Bounded (oldest entries evicted first) and expiring; it only saves the database lookup for
+ * replays, the unique constraint on transactions.idempotency_key stays the source of truth.
+ */
+@Component
+public class IdempotencyKeyStore {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    // Insertion order = age order (same TTL for every entry): expired entries are always at the head
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    public IdempotencyKeyStore(@Value("${paymybuddy.idempotency.max-entries:10000}") int maxEntries,
+                               @Value("${paymybuddy.idempotency.ttl:PT30M}") Duration ttl) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("paymybuddy.idempotency.max-entries must be >= 1");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    // Result of an idempotent submission. receiverId: null when the other party is the bank
+    public record Submitted(Integer transactionId, TransactionType type, BigDecimal grossAmount,
+                            BigDecimal feeAmount, BigDecimal netAmount, Integer receiverId) {
+
+        // getReceiver().getId() does not initialise a lazy proxy
+        public static Submitted of(Transaction tx) {
+            return new Submitted(tx.getId(), tx.getType(), tx.getGrossAmount(), tx.getFeeAmount(), tx.getNetAmount(),
+                    tx.getReceiver() == null ? null : tx.getReceiver().getId());
+        }
+
+        // What a replay returns: id, type and amounts, no sender/receiver
+        public Transaction toTransaction(String idempotencyKey) {
+            Transaction tx = new Transaction();
+            tx.setId(transactionId);
+            tx.setType(type);
+            tx.setGrossAmount(grossAmount);
+            tx.setFeeAmount(feeAmount);
+            tx.setNetAmount(netAmount);
+            tx.setIdempotencyKey(idempotencyKey);
+            return tx;
+        }
+    }
+
+    public synchronized Submitted get(String key) {
+        long now = System.nanoTime();
+        evictExpired(now);
+        Entry entry = entries.get(key);
+        return (entry == null) ? null : entry.submitted;
+    }
+
+    public synchronized void put(String key, Submitted submitted) {
+        long now = System.nanoTime();
+        evictExpired(now);
+        entries.remove(key); // re-inserted at the tail with a fresh expiry
+        entries.put(key, new Entry(submitted, now + ttlNanos));
+        if (entries.size() > maxEntries) {
+            Iterator<String> oldest = entries.keySet().iterator();
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext() && it.next().getValue().expiresAt - now <= 0) {
+            it.remove();
+        }
+    }
+
+    private record Entry(Submitted submitted, long expiresAt) {
+    }
+}
@@ -0,0 +1,110 @@
+package com.openclassrooms.payMyBuddy.service;
+
+/**
+ * Minimal open-addressing map int -> long (no boxing, two flat arrays), used to sum amounts in cents
+ * per user id over millions of rows. Not thread-safe: one instance per partition, merged afterwards.
+ */
+final class IntLongHashMap {
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private int[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int size;
+    private int resizeAt;
+
+    IntLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    // Fibonacci hashing: spreads sequential ids over the table
+    private int slot(int key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(keys.length)));
+    }
+
+    void addTo(int key, long delta) {
+        int mask = keys.length - 1;
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) {
+                values[i] = Math.addExact(values[i], delta);
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        used[i] = true;
+        keys[i] = key;
+        values[i] = delta;
+        if (++size > resizeAt) {
+            rehash();
+        }
+    }
+
+    long get(int key) {
+        int mask = keys.length - 1;
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) return values[i];
+            i = (i + 1) & mask;
+        }
+        return 0L;
+    }
+
+    boolean containsKey(int key) {
+        int mask = keys.length - 1;
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(IntLongConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) action.accept(keys[i], values[i]);
+        }
+    }
+
+    // Adds every entry of other into this map
+    IntLongHashMap mergeFrom(IntLongHashMap other) {
+        other.forEach(this::addTo);
+        return this;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        long[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(keys.length << 1);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) addTo(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((k, v) -> sb.append(sb.length() > 1 ? ", " : "").append(k).append('=').append(v));
+        return sb.append('}').toString();
+    }
+
+    @FunctionalInterface
+    interface IntLongConsumer {
+        void accept(int key, long value);
+    }
+}
@@ -0,0 +1,103 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.model.LedgerAccount;
+import com.openclassrooms.payMyBuddy.model.LedgerBalanceSnapshot;
+import com.openclassrooms.payMyBuddy.model.LedgerPosting;
+import com.openclassrooms.payMyBuddy.model.PostingDirection;
+import com.openclassrooms.payMyBuddy.model.Transaction;
+import com.openclassrooms.payMyBuddy.repository.LedgerPostingRepository;
+import com.openclassrooms.payMyBuddy.repository.LedgerSnapshotRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only double-entry ledger: every Transaction is recorded as postings (debit/credit legs,
+ * fee leg to FEE_REVENUE) whose signed amounts sum to zero. Postings are only ever inserted.
+ * A wallet balance is its latest snapshot plus the postings after it (see LedgerSnapshotService).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LedgerService {
+
+    private final LedgerPostingRepository postingRepo;
+    private final LedgerSnapshotRepository snapshotRepo;
+
+    // Writes the legs of a saved transaction, in the caller's transaction (money moves and postings commit together)
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<LedgerPosting> record(Transaction tx) {
+        List<LedgerPosting> legs = legsOf(tx);
+
+        BigDecimal total = legs.stream().map(LedgerPosting::signedAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        if (total.signum() != 0) {
+            log.error("Ledger - unbalanced entry txId={} type={} total={}", tx.getId(), tx.getType(), total);
+            throw new IllegalStateException("Unbalanced ledger entry for transaction " + tx.getId());
+        }
+
+        List<LedgerPosting> saved = postingRepo.saveAll(legs);
+        log.debug("Ledger - recorded txId={} type={} legs={}", tx.getId(), tx.getType(), saved.size());
+        return saved;
+    }
+
+    List<LedgerPosting> legsOf(Transaction tx) {
+        if (tx == null || tx.getId() == null || tx.getType() == null) {
+            throw new IllegalArgumentException("A saved transaction is required");
+        }
+        BigDecimal gross = tx.getGrossAmount();
+        BigDecimal fee = tx.getFeeAmount();
+        BigDecimal net = tx.getNetAmount();
+
+        List<LedgerPosting> legs = new ArrayList<>(3);
+        switch (tx.getType()) {
+            case TOP_UP -> {
+                // bank -> wallet: the user receives the net, the fee is kept
+                add(legs, tx, LedgerAccount.BANK_CLEARING, null, PostingDirection.DEBIT, gross);
+                add(legs, tx, LedgerAccount.WALLET, tx.getReceiver().getId(), PostingDirection.CREDIT, net);
+            }
+            case P2P_TRANSFER -> {
+                // sender pays gross + fee, receiver gets gross
+                add(legs, tx, LedgerAccount.WALLET, tx.getSender().getId(), PostingDirection.DEBIT, gross.add(fee));
+                add(legs, tx, LedgerAccount.WALLET, tx.getReceiver().getId(), PostingDirection.CREDIT, net);
+            }
+            case WITHDRAWAL -> {
+                // wallet -> bank: the user pays gross + fee, gross leaves through the bank
+                add(legs, tx, LedgerAccount.WALLET, tx.getSender().getId(), PostingDirection.DEBIT, gross.add(fee));
+                add(legs, tx, LedgerAccount.BANK_CLEARING, null, PostingDirection.CREDIT, net);
+            }
+        }
+        add(legs, tx, LedgerAccount.FEE_REVENUE, null, PostingDirection.CREDIT, fee);
+        return legs;
+    }
+
+    // Zero legs (fee rounded to 0.00) are not written
+    private void add(List<LedgerPosting> legs, Transaction tx, LedgerAccount account, Integer userId,
+                     PostingDirection direction, BigDecimal amount) {
+        if (amount == null || amount.signum() == 0) return;
+        legs.add(LedgerPosting.builder()
+                .transactionId(tx.getId())
+                .account(account)
+                .userId(userId)
+                .direction(direction)
+                .amount(amount)
+                .build());
+    }
+
+    // Wallet balance from the ledger only: latest snapshot + postings after it (bounded range scan)
+    @Transactional(readOnly = true)
+    public BigDecimal walletBalance(Integer userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User id must not be null.");
+        }
+        LedgerBalanceSnapshot snapshot = snapshotRepo.findFirstByUserIdOrderByLastPostingIdDesc(userId).orElse(null);
+        BigDecimal base = (snapshot == null) ? BigDecimal.ZERO : snapshot.getBalance();
+        long after = (snapshot == null) ? 0L : snapshot.getLastPostingId();
+        return base.add(postingRepo.sumWalletAfter(userId, after));
+    }
+}
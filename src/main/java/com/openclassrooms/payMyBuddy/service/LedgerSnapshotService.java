@@ -0,0 +1,81 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.model.LedgerBalanceSnapshot;
+import com.openclassrooms.payMyBuddy.repository.LedgerPostingRepository;
+import com.openclassrooms.payMyBuddy.repository.LedgerSnapshotRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Periodic wallet balance snapshots, so LedgerService.walletBalance only scans the postings of the last period.
+ * A run snapshots up to the highest posting id seen by the previous run: ids are allocated before commit,
+ * so a posting with a lower id may still be in flight right now, but not one interval later.
+ * Only inserts, and only touches ledger tables: it never contends with payments.
+ */
+@Slf4j
+@Service
+public class LedgerSnapshotService {
+
+    private final LedgerPostingRepository postingRepo;
+    private final LedgerSnapshotRepository snapshotRepo;
+
+    private volatile long settledWatermark = -1; // max posting id seen on the previous run
+
+    public LedgerSnapshotService(LedgerPostingRepository postingRepo, LedgerSnapshotRepository snapshotRepo) {
+        this.postingRepo = postingRepo;
+        this.snapshotRepo = snapshotRepo;
+    }
+
+    @Scheduled(fixedDelayString = "${paymybuddy.ledger.snapshot-interval:PT15M}",
+            initialDelayString = "${paymybuddy.ledger.snapshot-interval:PT15M}")
+    @Transactional
+    public int takeSnapshots() {
+        long upTo = settledWatermark;
+        settledWatermark = postingRepo.findMaxId();
+        return snapshotUpTo(upTo);
+    }
+
+    // Snapshots every wallet with postings in (last snapshot watermark, upTo]; returns the number of snapshots written
+    @Transactional
+    public int snapshotUpTo(long upTo) {
+        long from = snapshotRepo.findMaxLastPostingId();
+        if (upTo <= from) {
+            log.debug("LedgerSnapshotService.snapshotUpTo - nothing to do from={} upTo={}", from, upTo);
+            return 0;
+        }
+
+        List<Object[]> deltas = postingRepo.sumWalletsBetween(from, upTo);
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        List<Integer> userIds = deltas.stream().map(row -> (Integer) row[0]).toList();
+        Map<Integer, BigDecimal> previous = snapshotRepo.findLatestFor(userIds).stream()
+                .collect(Collectors.toMap(LedgerBalanceSnapshot::getUserId, LedgerBalanceSnapshot::getBalance,
+                        (a, b) -> a));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<LedgerBalanceSnapshot> snapshots = new ArrayList<>(deltas.size());
+        for (Object[] row : deltas) {
+            Integer userId = (Integer) row[0];
+            BigDecimal delta = (BigDecimal) row[1];
+            snapshots.add(LedgerBalanceSnapshot.builder()
+                    .userId(userId)
+                    .balance(previous.getOrDefault(userId, BigDecimal.ZERO).add(delta))
+                    .lastPostingId(upTo) // the balance includes every posting <= upTo
+                    .takenAt(now)
+                    .build());
+        }
+        snapshotRepo.saveAll(snapshots);
+        log.info("LedgerSnapshotService.snapshotUpTo - snapshots={} from={} upTo={}", snapshots.size(), from, upTo);
+        return snapshots.size();
+    }
+}
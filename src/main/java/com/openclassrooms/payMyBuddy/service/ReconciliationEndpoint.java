@@ -0,0 +1,21 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.dto.ReconciliationReport;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+// Admin hook: POST /actuator/reconciliation runs a balance reconciliation and returns its report
+@Component
+@Endpoint(id = "reconciliation")
+@RequiredArgsConstructor
+public class ReconciliationEndpoint {
+
+    private final BalanceReconciliationService reconciliationService;
+
+    @WriteOperation
+    public ReconciliationReport run() {
+        return reconciliationService.reconcile();
+    }
+}
@@ -1,5 +1,8 @@
 package com.openclassrooms.payMyBuddy.service;
 
+import com.openclassrooms.payMyBuddy.dto.FeedCursor;
+import com.openclassrooms.payMyBuddy.dto.FeedItemDTO;
+import com.openclassrooms.payMyBuddy.dto.FeedPage;
 import com.openclassrooms.payMyBuddy.model.Transaction;
 import com.openclassrooms.payMyBuddy.repository.TransactionRepository;
 import lombok.extern.slf4j.Slf4j;
@@ -13,6 +16,10 @@ import java.util.Optional;
 @Service
 public class TransactionService {
 
+    // Feed page size bounds (the dashboard never loads the whole history)
+    public static final int DEFAULT_FEED_PAGE_SIZE = 20;
+    public static final int MAX_FEED_PAGE_SIZE = 100;
+
     @Autowired
     TransactionRepository transactionRepository;
 
@@ -59,14 +66,30 @@ public class TransactionService {
         return list;
     }
 
-    public List<Transaction> getFeedForUser(Integer userId) {
+    // One page of the feed (read-only projections), newest first. before == null -> first page
+    public FeedPage<FeedItemDTO> getFeedPage(Integer userId, FeedCursor before, int size) {
         if (userId == null) {
-            log.warn("TransactionService.getFeedForUser - null userId");
+            log.warn("TransactionService.getFeedPage - null userId");
             throw new IllegalArgumentException("User id must not be null.");
         }
-        log.info("TransactionService.getFeedForUser - userId={}", userId);
-        List<Transaction> list = transactionRepository.findBySenderIdOrReceiverIdOrderByCreatedAtDesc(userId, userId);
-        log.info("TransactionService.getFeedForUser - userId={} count={}", userId, list.size());
-        return list;
+        int pageSize = Math.min(Math.max(size, 1), MAX_FEED_PAGE_SIZE);
+        log.info("TransactionService.getFeedPage - userId={} before={} size={}", userId, before, pageSize);
+
+        // Fetch one extra row to know whether an older page exists (one statement, see TransactionRepository)
+        int limit = pageSize + 1;
+        List<FeedItemDTO> rows = (before == null)
+                ? transactionRepository.findFeedFirstPage(userId, limit)
+                : transactionRepository.findFeedBefore(userId, before.getCreatedAt(), before.getId(), limit);
+
+        boolean hasMore = rows.size() > pageSize;
+        List<FeedItemDTO> items = hasMore ? rows.subList(0, pageSize) : rows;
+        FeedCursor next = null;
+        if (hasMore) {
+            FeedItemDTO last = items.get(items.size() - 1);
+            next = new FeedCursor(last.getCreatedAt(), last.getId());
+        }
+
+        log.info("TransactionService.getFeedPage - userId={} count={} hasMore={}", userId, items.size(), hasMore);
+        return new FeedPage<>(items, next);
     }
-}
\ No newline at end of file
+}
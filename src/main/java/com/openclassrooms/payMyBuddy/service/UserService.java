@@ -1,30 +1,34 @@
 package com.openclassrooms.payMyBuddy.service;
 
+import com.openclassrooms.payMyBuddy.dto.AccountSummaryDTO;
+import com.openclassrooms.payMyBuddy.dto.ConnectionDTO;
+import com.openclassrooms.payMyBuddy.logging.EmailMasker;
 import com.openclassrooms.payMyBuddy.model.Transaction;
 import com.openclassrooms.payMyBuddy.model.User;
 import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import com.openclassrooms.payMyBuddy.security.UserDetailsCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.UUID;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
+    // Stored instead of a hash for accounts created by OAuth2 login: not a BCrypt hash, never matches
+    public static final String OAUTH2_ONLY_PASSWORD = "!oauth2-only";
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final WalletService walletService;
-
-    // Mask email (ex: m***e@gmail.com)
-    private String maskEmail(String email) {
-        return (email == null) ? "unknown" : email.replaceAll("(^.).*(@.*$)", "$1***$2");
-    }
+    private final UserDetailsCache userDetailsCache;
 
     // 1) Basic read operations
     public Iterable<User> getUsers() {
@@ -47,10 +51,40 @@ public class UserService {
             throw new IllegalArgumentException("Email must not be null.");
         }
         String norm = email.trim().toLowerCase();
-        log.info("UserService.getUserByEmail - email={}", maskEmail(norm));
+        log.info("UserService.getUserByEmail - email={}", EmailMasker.masked(norm));
         return userRepository.findByEmail(norm);
     }
 
+    // Read models of the JSON API (projections, no entity loaded)
+    public AccountSummaryDTO getAccountSummary(Integer userId) {
+        if (userId == null) {
+            log.warn("UserService.getAccountSummary - null userId");
+            throw new IllegalArgumentException("User id must not be null.");
+        }
+        log.info("UserService.getAccountSummary - userId={}", userId);
+        return userRepository.findAccountSummaryById(userId)
+                .orElseThrow(() -> new NoSuchElementException("User not found : id = " + userId));
+    }
+
+    public List<ConnectionDTO> getConnections(Integer userId) {
+        if (userId == null) {
+            log.warn("UserService.getConnections - null userId");
+            throw new IllegalArgumentException("User id must not be null.");
+        }
+        log.info("UserService.getConnections - userId={}", userId);
+        return userRepository.findConnectionsOf(userId);
+    }
+
+    public Optional<Integer> getUserIdByEmail(String email) {
+        if (email == null) {
+            log.warn("UserService.getUserIdByEmail - null email");
+            throw new IllegalArgumentException("Email must not be null.");
+        }
+        String norm = email.trim().toLowerCase();
+        log.info("UserService.getUserIdByEmail - email={}", EmailMasker.masked(norm));
+        return userRepository.findIdByEmail(norm);
+    }
+
     // 2) Registration
     public User registerUser(User user) {
         if (user == null || user.getEmail() == null || user.getPassword() == null) {
@@ -59,10 +93,10 @@ public class UserService {
         }
 
         String normalizedEmail = user.getEmail().trim().toLowerCase();
-        log.info("UserService.registerUser - attempt email={}", maskEmail(normalizedEmail));
+        log.info("UserService.registerUser - attempt email={}", EmailMasker.masked(normalizedEmail));
 
         userRepository.findByEmail(normalizedEmail).ifPresent(u -> {
-            log.warn("UserService.registerUser - email already exists email={}", maskEmail(normalizedEmail));
+            log.warn("UserService.registerUser - email already exists email={}", EmailMasker.masked(normalizedEmail));
             throw new IllegalArgumentException("This email already exists.");
         });
 
@@ -77,7 +111,7 @@ public class UserService {
         }
 
         User saved = userRepository.save(user);
-        log.info("UserService.registerUser - success userId={} email={}", saved.getId(), maskEmail(saved.getEmail()));
+        log.info("UserService.registerUser - success userId={} email={}", saved.getId(), EmailMasker.masked(saved.getEmail()));
         return saved;
     }
 
@@ -88,22 +122,24 @@ public class UserService {
         }
 
         String normalizedEmail = email.trim().toLowerCase();
-        log.info("UserService.getOrCreateOAuth2User - lookup email={}", maskEmail(normalizedEmail));
+        log.info("UserService.getOrCreateOAuth2User - lookup email={}", EmailMasker.masked(normalizedEmail));
 
         Optional<User> existing = userRepository.findByEmail(normalizedEmail);
         if (existing.isPresent()) {
             log.info("UserService.getOrCreateOAuth2User - found userId={} email={}",
-                    existing.get().getId(), maskEmail(normalizedEmail));
+                    existing.get().getId(), EmailMasker.masked(normalizedEmail));
             return existing.get();
         }
 
+        // Provider-only account: no password to hash, the marker is refused by form login
         User u = new User();
         u.setEmail(normalizedEmail);
         u.setUsername((name == null || name.trim().isEmpty()) ? normalizedEmail : name.trim());
-        u.setPassword(UUID.randomUUID().toString()); // random password (prevents form-login usage)
+        u.setPassword(OAUTH2_ONLY_PASSWORD);
+        u.setBalance(BigDecimal.ZERO);
 
-        User created = registerUser(u);
-        log.info("UserService.getOrCreateOAuth2User - created userId={} email={}", created.getId(), maskEmail(created.getEmail()));
+        User created = userRepository.save(u);
+        log.info("UserService.getOrCreateOAuth2User - created userId={} email={}", created.getId(), EmailMasker.masked(created.getEmail()));
         return created;
     }
 
@@ -143,7 +179,7 @@ public class UserService {
         }
 
         String recEmail = receiverEmail.trim().toLowerCase();
-        log.info("UserService.transfer - start fromId={} toEmail={} amount={}", senderId, maskEmail(recEmail), amount);
+        log.info("UserService.transfer - start fromId={} toEmail={} amount={}", senderId, EmailMasker.masked(recEmail), amount);
 
         // Load sender (to ensure it's not the Bank user)
         User sender = userRepository.findById(senderId)
@@ -181,10 +217,10 @@ public class UserService {
         String meEmail = ownerEmail.trim().toLowerCase();
         String frEmail = friendEmail.trim().toLowerCase();
 
-        log.info("UserService.addConnection - owner={} friend={}", maskEmail(meEmail), maskEmail(frEmail));
+        log.info("UserService.addConnection - owner={} friend={}", EmailMasker.masked(meEmail), EmailMasker.masked(frEmail));
 
         if (meEmail.equals(frEmail)) {
-            log.warn("UserService.addConnection - self connection owner={}", maskEmail(meEmail));
+            log.warn("UserService.addConnection - self connection owner={}", EmailMasker.masked(meEmail));
             throw new IllegalArgumentException("You cannot add yourself.");
         }
 
@@ -211,10 +247,10 @@ public class UserService {
         String meEmail = ownerEmail.trim().toLowerCase();
         String frEmail = friendEmail.trim().toLowerCase();
 
-        log.info("UserService.removeConnection - owner={} friend={}", maskEmail(meEmail), maskEmail(frEmail));
+        log.info("UserService.removeConnection - owner={} friend={}", EmailMasker.masked(meEmail), EmailMasker.masked(frEmail));
 
         if (meEmail.equals(frEmail)) {
-            log.warn("UserService.removeConnection - self remove owner={}", maskEmail(meEmail));
+            log.warn("UserService.removeConnection - self remove owner={}", EmailMasker.masked(meEmail));
             throw new IllegalArgumentException("You cannot remove yourself.");
         }
 
@@ -238,7 +274,7 @@ public class UserService {
         }
 
         log.info("UserService.updateProfile - start currentEmail={} newEmail={}",
-                maskEmail(currentEmail), maskEmail(newEmail));
+                EmailMasker.masked(currentEmail), EmailMasker.masked(newEmail));
 
         User me = getUserByEmail(currentEmail)
                 .orElseThrow(() -> new IllegalArgumentException("User not found: " + currentEmail));
@@ -255,7 +291,7 @@ public class UserService {
             if (!normalized.isBlank() && !normalized.equals(me.getEmail())) {
                 userRepository.findByEmail(normalized).ifPresent(other -> {
                     if (!other.getId().equals(me.getId())) {
-                        log.warn("UserService.updateProfile - email already exists newEmail={}", maskEmail(normalized));
+                        log.warn("UserService.updateProfile - email already exists newEmail={}", EmailMasker.masked(normalized));
                         throw new IllegalArgumentException("This email already exists.");
                     }
                 });
@@ -286,7 +322,10 @@ public class UserService {
         }
 
         User saved = userRepository.save(me);
-        log.info("UserService.updateProfile - success userId={} email={}", saved.getId(), maskEmail(saved.getEmail()));
+        // Next form login reloads email, password hash and display name (old and new email keys)
+        userDetailsCache.removeUserFromCache(currentEmail);
+        userDetailsCache.removeUserFromCache(saved.getEmail());
+        log.info("UserService.updateProfile - success userId={} email={}", saved.getId(), EmailMasker.masked(saved.getEmail()));
         return saved;
     }
 
@@ -297,7 +336,7 @@ public class UserService {
             throw new IllegalArgumentException("Email must not be null.");
         }
         String normEmail = email.trim().toLowerCase();
-        log.info("UserService.updateIbanBicByEmail - start email={}", maskEmail(normEmail));
+        log.info("UserService.updateIbanBicByEmail - start email={}", EmailMasker.masked(normEmail));
 
         User u = userRepository.findByEmail(normEmail)
                 .orElseThrow(() -> new IllegalArgumentException("User not found: " + normEmail));
@@ -320,7 +359,7 @@ public class UserService {
         u.setBic(cleanBic);
 
         User saved = userRepository.save(u);
-        log.info("UserService.updateIbanBicByEmail - success userId={} email={}", saved.getId(), maskEmail(saved.getEmail()));
+        log.info("UserService.updateIbanBicByEmail - success userId={} email={}", saved.getId(), EmailMasker.masked(saved.getEmail()));
         return saved;
     }
 }
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.openclassrooms.payMyBuddy.service;
+
+// A money movement refused by the wallet rules (balance too low, no IBAN/BIC): nothing was applied
+public class WalletOperationRefusedException extends IllegalStateException {
+
+    public WalletOperationRefusedException(String message) {
+        super(message);
+    }
+}
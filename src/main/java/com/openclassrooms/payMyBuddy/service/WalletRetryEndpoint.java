@@ -0,0 +1,33 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.model.TransactionType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Admin hook: GET /actuator/walletretry shows the concurrency conflicts per wallet operation and the hottest accounts
+@Component
+@Endpoint(id = "walletretry")
+@RequiredArgsConstructor
+public class WalletRetryEndpoint {
+
+    static final int HOT_ACCOUNTS = 20;
+
+    private final WalletRetryExecutor walletRetryExecutor;
+
+    @ReadOperation
+    public Map<String, Object> stats() {
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (TransactionType type : TransactionType.values()) {
+            operations.put(type.name(), Map.of("conflicts", walletRetryExecutor.getConflicts(type),
+                    "exhausted", walletRetryExecutor.getExhausted(type)));
+        }
+        return Map.of("operations", operations,
+                "trackedAccounts", walletRetryExecutor.getTrackedAccounts(),
+                "hotAccounts", walletRetryExecutor.getMostConflictedAccounts(HOT_ACCOUNTS));
+    }
+}
@@ -0,0 +1,130 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.model.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a wallet operation (one whole transaction per attempt) when it fails on a concurrency conflict
+ * (optimistic lock, deadlock, lock wait timeout), with bounded attempts and jittered exponential backoff.
+ * Contention on hot accounts then costs latency instead of an "Unexpected error" for the user.
+ * Conflicts are counted per operation and per account (GET /actuator/walletretry, WalletRetryEndpoint).
+ */
+@Slf4j
+@Component
+public class WalletRetryExecutor {
+
+    // Per-account counters are only kept for this many accounts (the hot ones show up first)
+    static final int MAX_TRACKED_ACCOUNTS = 10_000;
+
+    private final WalletRetryProperties properties;
+
+    private final Map<TransactionType, LongAdder> conflictsByOperation = new EnumMap<>(TransactionType.class);
+    private final Map<TransactionType, LongAdder> exhaustedByOperation = new EnumMap<>(TransactionType.class);
+    private final Map<Integer, LongAdder> conflictsByAccount = new ConcurrentHashMap<>();
+
+    public WalletRetryExecutor(WalletRetryProperties properties) {
+        this.properties = properties;
+        // Filled once here, read-only afterwards: safe to share between threads
+        for (TransactionType type : TransactionType.values()) {
+            conflictsByOperation.put(type, new LongAdder());
+            exhaustedByOperation.put(type, new LongAdder());
+        }
+    }
+
+    public <T> T execute(TransactionType operation, Supplier<T> attempt, Integer... accountIds) {
+        WalletRetryProperties.Policy policy = properties.policyFor(operation);
+        int attemptNo = 1;
+        while (true) {
+            try {
+                return attempt.get();
+            } catch (ConcurrencyFailureException ex) {
+                recordConflict(operation, accountIds);
+                if (attemptNo >= policy.getMaxAttempts()) {
+                    exhaustedByOperation.get(operation).increment();
+                    log.warn("Retry - giving up op={} accounts={} attempts={} reason={}",
+                            operation, accountIds, attemptNo, ex.getClass().getSimpleName());
+                    throw ex;
+                }
+                long backoff = backoffMillis(policy, attemptNo);
+                log.info("Retry - conflict op={} accounts={} attempt={}/{} backoffMs={}",
+                        operation, accountIds, attemptNo, policy.getMaxAttempts(), backoff);
+                if (!pause(backoff)) {
+                    throw ex; // interrupted: stop retrying
+                }
+                attemptNo++;
+            }
+        }
+    }
+
+    // Full jitter: uniform in [0, min(max, initial * 2^(attempt-1))]
+    long backoffMillis(WalletRetryProperties.Policy policy, int attemptNo) {
+        long ceiling = policy.getInitialBackoffMs() << Math.min(attemptNo - 1, 20);
+        ceiling = Math.min(ceiling, policy.getMaxBackoffMs());
+        return (ceiling <= 0) ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private boolean pause(long millis) {
+        if (millis <= 0) return true;
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void recordConflict(TransactionType operation, Integer... accountIds) {
+        conflictsByOperation.get(operation).increment();
+        for (Integer id : accountIds) {
+            if (id == null) continue;
+            LongAdder counter = conflictsByAccount.get(id);
+            if (counter == null) {
+                if (conflictsByAccount.size() >= MAX_TRACKED_ACCOUNTS) continue;
+                counter = conflictsByAccount.computeIfAbsent(id, k -> new LongAdder());
+            }
+            counter.increment();
+        }
+    }
+
+    // Metrics
+    public long getConflicts(TransactionType operation) {
+        return conflictsByOperation.get(operation).sum();
+    }
+
+    public long getExhausted(TransactionType operation) {
+        return exhaustedByOperation.get(operation).sum();
+    }
+
+    public long getConflictsForAccount(Integer accountId) {
+        LongAdder counter = conflictsByAccount.get(accountId);
+        return (counter == null) ? 0 : counter.sum();
+    }
+
+    public int getTrackedAccounts() {
+        return conflictsByAccount.size();
+    }
+
+    // The accounts with the most conflicts first (hot accounts), at most limit of them
+    public Map<Integer, Long> getMostConflictedAccounts(int limit) {
+        Map<Integer, Long> top = new LinkedHashMap<>();
+        conflictsByAccount.entrySet().stream()
+                .map(e -> Map.entry(e.getKey(), e.getValue().sum()))
+                .sorted(Map.Entry.<Integer, Long>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .forEach(e -> top.put(e.getKey(), e.getValue()));
+        return top;
+    }
+}
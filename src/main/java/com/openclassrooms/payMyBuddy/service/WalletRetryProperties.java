@@ -0,0 +1,42 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.model.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Retry policy of the wallet operations on concurrency conflicts, per operation type.
+ * ex: paymybuddy.wallet.retry.operations.p2p-transfer.max-attempts=6
+ */
+@Getter @Setter
+@Component
+@ConfigurationProperties(prefix = "paymybuddy.wallet.retry")
+public class WalletRetryProperties {
+
+    // Used for every operation without its own entry
+    private Policy defaults = new Policy();
+
+    private Map<TransactionType, Policy> operations = new EnumMap<>(TransactionType.class);
+
+    public Policy policyFor(TransactionType operation) {
+        return operations.getOrDefault(operation, defaults);
+    }
+
+    @Getter @Setter
+    @NoArgsConstructor @AllArgsConstructor
+    public static class Policy {
+
+        private int maxAttempts = 4;          // first try included
+
+        private long initialBackoffMs = 10;   // doubled after each conflict...
+
+        private long maxBackoffMs = 200;      // ...up to this cap (full jitter below it)
+    }
+}
@@ -7,12 +7,15 @@ import com.openclassrooms.payMyBuddy.repository.TransactionRepository;
 import com.openclassrooms.payMyBuddy.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.Optional;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 
 @Slf4j
 @Service
@@ -21,36 +24,130 @@ public class WalletService {
 
     private final UserRepository userRepo;
     private final TransactionRepository txRepo;
+    private final TransactionOperations transactionTemplate;
+    private final WalletRetryExecutor retry;
+    private final BankAccountResolver bankAccount;
+    private final IdempotencyKeyStore idempotencyKeys;
+    private final LedgerService ledger;
 
     // 0.5% fee
     private static final BigDecimal FEE_RATE = new BigDecimal("0.005");
     private static final BigDecimal MIN_AMOUNT = new BigDecimal("0.01");
 
+    // Form token (UUID): letters, digits, '-' and '_' only
+    private static final Pattern IDEMPOTENCY_TOKEN = Pattern.compile("[A-Za-z0-9_-]{8,64}");
+
     // Round to 2 decimal places (HALF_UP)
-    private BigDecimal round(BigDecimal value) {
+    static BigDecimal round(BigDecimal value) {
         return value.setScale(2, RoundingMode.HALF_UP);
     }
 
-    private void validateAmount(BigDecimal amount) {
+    // 0.5% of the (already rounded) gross amount, rounded
+    static BigDecimal fee(BigDecimal gross) {
+        return round(gross.multiply(FEE_RATE));
+    }
+
+    static void validateAmount(BigDecimal amount) {
         if (amount == null || amount.compareTo(MIN_AMOUNT) < 0) {
             log.warn("Validation failed - amount invalid: amount={} (min={})", amount, MIN_AMOUNT);
             throw new IllegalArgumentException("Amount must be >= " + MIN_AMOUNT);
         }
     }
 
-    // Fetch the Bank user (users.is_bank = true)
+    // Bank user (users.is_bank = true): id resolved once at startup, no query here
     private User bank() {
-        Optional<User> opt = userRepo.findFirstByIsBankTrue();
-        if (opt.isEmpty()) {
-            log.error("Bank user not found (is_bank = true)");
-            throw new IllegalStateException("Bank user not found (is_bank = true)");
+        return userRepo.getReferenceById(bankAccount.getBankId());
+    }
+
+    // Guarded debit: balance = balance - amount WHERE id = ? AND balance >= amount (no read-modify-write)
+    private void debitOrThrow(Integer userId, BigDecimal amount, String insufficientMessage) {
+        if (userRepo.debitIfSufficient(userId, amount) == 1) return;
+        if (!userRepo.existsById(userId)) {
+            throw new NoSuchElementException("User not found : id = " + userId);
         }
-        return opt.get();
+        log.warn("Debit refused - insufficient balance userId={} required={}", userId, amount);
+        throw new WalletOperationRefusedException(insufficientMessage);
     }
 
+    private void creditOrThrow(Integer userId, BigDecimal amount) {
+        if (userRepo.credit(userId, amount) != 1) {
+            throw new NoSuchElementException("User not found : id = " + userId);
+        }
+    }
+
+    // Idempotent submission: a token already used by this user returns the transaction it created,
+    // without running the operation again. Scoped per user: "<userId>:<token>" is what the unique index sees.
+    // receiverId: recipient of a P2P transfer, null for top-ups and withdrawals (the other party is the bank).
+    private Transaction idempotent(TransactionType type, Integer userId, Integer receiverId, BigDecimal amount,
+                                   String token, Function<String, Transaction> operation) {
+        if (token == null || token.isBlank() || userId == null) {
+            return operation.apply(null);
+        }
+        if (!IDEMPOTENCY_TOKEN.matcher(token).matches()) {
+            log.warn("Idempotency - invalid token userId={}", userId);
+            throw new IllegalArgumentException("Invalid idempotency key");
+        }
+        String key = userId + ":" + token;
+
+        IdempotencyKeyStore.Submitted cached = idempotencyKeys.get(key);
+        if (cached != null) {
+            checkSameSubmission(cached, type, receiverId, amount);
+            log.info("Idempotency - duplicate submission, returning txId={} type={}", cached.transactionId(), type);
+            return cached.toTransaction(key);
+        }
+        Transaction previous = txRepo.findByIdempotencyKey(key).orElse(null);
+        if (previous != null) {
+            return replay(previous, type, receiverId, amount, key);
+        }
+
+        try {
+            Transaction saved = operation.apply(key);
+            idempotencyKeys.put(key, IdempotencyKeyStore.Submitted.of(saved));
+            return saved;
+        } catch (DataIntegrityViolationException ex) {
+            // Concurrent duplicate: the other submission committed first, this one was rolled back
+            Transaction winner = txRepo.findByIdempotencyKey(key).orElseThrow(() -> ex);
+            return replay(winner, type, receiverId, amount, key);
+        }
+    }
+
+    private Transaction replay(Transaction previous, TransactionType type, Integer receiverId, BigDecimal amount,
+                               String key) {
+        IdempotencyKeyStore.Submitted submitted = IdempotencyKeyStore.Submitted.of(previous);
+        checkSameSubmission(submitted, type, receiverId, amount);
+        idempotencyKeys.put(key, submitted);
+        log.info("Idempotency - duplicate submission, returning txId={} type={}", previous.getId(), type);
+        return previous;
+    }
+
+    // Same token with other values (stale page resubmitted after editing the form, API client reusing a key):
+    // refuse instead of guessing
+    private static void checkSameSubmission(IdempotencyKeyStore.Submitted previous, TransactionType type,
+                                            Integer receiverId, BigDecimal amount) {
+        if (previous.type() != type || amount == null
+                || previous.grossAmount().compareTo(round(amount)) != 0
+                || (receiverId != null && !receiverId.equals(previous.receiverId()))) {
+            log.warn("Idempotency - token reused with other values txId={} type={} receiverId={} amount={}",
+                    previous.transactionId(), type, receiverId, amount);
+            throw new IllegalArgumentException("This form has already been submitted, please reload the page.");
+        }
+    }
+
+    // Each public operation = one transaction per attempt, re-run by WalletRetryExecutor on concurrency conflicts
+
     // 1) TOP UP: add money to the user's account in the app (0.5% fee)
-    @Transactional
     public Transaction topUp(Integer userId, BigDecimal amount, String description) {
+        return topUp(userId, amount, description, null);
+    }
+
+    public Transaction topUp(Integer userId, BigDecimal amount, String description, String idempotencyToken) {
+        return idempotent(TransactionType.TOP_UP, userId, null, amount, idempotencyToken,
+                key -> retry.execute(TransactionType.TOP_UP,
+                        () -> transactionTemplate.execute(status -> doTopUp(userId, amount, description, key)),
+                        userId));
+    }
+
+    private Transaction doTopUp(Integer userId, BigDecimal amount, String description, String idempotencyKey) {
         if (userId == null) {
             log.warn("TopUp - missing userId");
             throw new IllegalArgumentException("userId is required");
@@ -59,15 +156,15 @@ public class WalletService {
 
         log.info("TopUp - start userId={} amount={}", userId, amount);
 
-        User user = userRepo.findById(userId).orElseThrow();
         User bank = bank();
 
         BigDecimal gross = round(amount);
-        BigDecimal fee = round(gross.multiply(FEE_RATE));
+        BigDecimal fee = fee(gross);
         BigDecimal net = round(gross.subtract(fee));
 
         // Credit only the net amount to the user's balance
-        user.setBalance(user.getBalance().add(net));
+        creditOrThrow(userId, net);
+        User user = userRepo.getReferenceById(userId);
 
         // Save the transaction
         Transaction tx = new Transaction();
@@ -78,23 +175,36 @@ public class WalletService {
         tx.setGrossAmount(gross);
         tx.setFeeAmount(fee);
         tx.setNetAmount(net);
+        tx.setIdempotencyKey(idempotencyKey);
 
         Transaction saved = txRepo.save(tx);
+        ledger.record(saved); // immutable double-entry postings, same database transaction
         log.info("TopUp - success userId={} txId={} gross={} fee={} net={}",
                 userId, saved.getId(), gross, fee, net);
         return saved;
     }
 
     // 2) P2P TRANSFER: transfer between users (0.5% fee)
-    @Transactional
     public Transaction transferP2P(Integer senderId, Integer receiverId, BigDecimal amount, String description) {
+        return transferP2P(senderId, receiverId, amount, description, null);
+    }
+
+    public Transaction transferP2P(Integer senderId, Integer receiverId, BigDecimal amount, String description,
+                                   String idempotencyToken) {
+        return idempotent(TransactionType.P2P_TRANSFER, senderId, receiverId, amount, idempotencyToken,
+                key -> retry.execute(TransactionType.P2P_TRANSFER,
+                        () -> transactionTemplate.execute(status -> doTransferP2P(senderId, receiverId, amount, description, key)),
+                        senderId, receiverId));
+    }
+
+    private Transaction doTransferP2P(Integer senderId, Integer receiverId, BigDecimal amount, String description,
+                                      String idempotencyKey) {
         if (senderId == null || receiverId == null || senderId.equals(receiverId)) {
             log.warn("P2P - invalid users: senderId={} receiverId={}", senderId, receiverId);
             throw new IllegalArgumentException("Invalid users");
         }
 
-        User bank = bank();
-        if (senderId.equals(bank.getId()) || receiverId.equals(bank.getId())) {
+        if (bankAccount.isBank(senderId) || bankAccount.isBank(receiverId)) {
             log.warn("P2P - bank user involved: senderId={} receiverId={}", senderId, receiverId);
             throw new IllegalArgumentException("Bank user cannot participate in P2P transfers");
         }
@@ -102,23 +212,21 @@ public class WalletService {
         validateAmount(amount);
         log.info("P2P - start fromId={} toId={} amount={}", senderId, receiverId, amount);
 
-        User sender = userRepo.findById(senderId).orElseThrow();
-        User receiver = userRepo.findById(receiverId).orElseThrow();
-
         BigDecimal gross = round(amount);
-        BigDecimal fee = round(gross.multiply(FEE_RATE));
+        BigDecimal fee = fee(gross);
         BigDecimal totalDebit = gross.add(fee);
 
-        // Check balance
-        if (sender.getBalance().compareTo(totalDebit) < 0) {
-            log.warn("P2P - insufficient balance fromId={} balance={} required={}",
-                    senderId, sender.getBalance(), totalDebit);
-            throw new IllegalStateException("Insufficient balance");
+        // Balance updates: both rows are locked in ascending id order, so A->B and B->A never deadlock.
+        // If the debit is refused after the credit, the exception rolls the whole transaction back.
+        if (senderId < receiverId) {
+            debitOrThrow(senderId, totalDebit, "Insufficient balance");
+            creditOrThrow(receiverId, gross);
+        } else {
+            creditOrThrow(receiverId, gross);
+            debitOrThrow(senderId, totalDebit, "Insufficient balance");
         }
-
-        // Balance updates
-        sender.setBalance(sender.getBalance().subtract(totalDebit));
-        receiver.setBalance(receiver.getBalance().add(gross));
+        User sender = userRepo.getReferenceById(senderId);
+        User receiver = userRepo.getReferenceById(receiverId);
 
         // Save the transaction
         Transaction tx = new Transaction();
@@ -129,16 +237,28 @@ public class WalletService {
         tx.setGrossAmount(gross);
         tx.setFeeAmount(fee);
         tx.setNetAmount(gross);
+        tx.setIdempotencyKey(idempotencyKey);
 
         Transaction saved = txRepo.save(tx);
+        ledger.record(saved);
         log.info("P2P - success txId={} fromId={} toId={} gross={} fee={} totalDebit={}",
                 saved.getId(), senderId, receiverId, gross, fee, totalDebit);
         return saved;
     }
 
     // WITHDRAWAL: transfer money to the user's bank account (0.5% fee)
-    @Transactional
     public Transaction withdrawToBank(Integer userId, BigDecimal amount, String description) {
+        return withdrawToBank(userId, amount, description, null);
+    }
+
+    public Transaction withdrawToBank(Integer userId, BigDecimal amount, String description, String idempotencyToken) {
+        return idempotent(TransactionType.WITHDRAWAL, userId, null, amount, idempotencyToken,
+                key -> retry.execute(TransactionType.WITHDRAWAL,
+                        () -> transactionTemplate.execute(status -> doWithdrawToBank(userId, amount, description, key)),
+                        userId));
+    }
+
+    private Transaction doWithdrawToBank(Integer userId, BigDecimal amount, String description, String idempotencyKey) {
         if (userId == null) {
             log.warn("Withdraw - missing userId");
             throw new IllegalArgumentException("userId is required");
@@ -152,23 +272,17 @@ public class WalletService {
         // IBAN/BIC must be provided for withdrawal
         if (user.getIban() == null || user.getBic() == null) {
             log.warn("Withdraw - missing IBAN/BIC userId={}", userId);
-            throw new IllegalStateException("IBAN/BIC are required for withdrawal");
+            throw new WalletOperationRefusedException("IBAN/BIC are required for withdrawal");
         }
 
         User bank = bank();
 
         BigDecimal gross = round(amount);
-        BigDecimal fee = round(gross.multiply(FEE_RATE));
+        BigDecimal fee = fee(gross);
         BigDecimal totalDebit = gross.add(fee); // what the user pays
 
-        if (user.getBalance().compareTo(totalDebit) < 0) {
-            log.warn("Withdraw - insufficient balance userId={} balance={} required={}",
-                    userId, user.getBalance(), totalDebit);
-            throw new IllegalStateException("Insufficient balance for withdrawal + fee");
-        }
-
-        // Update balance
-        user.setBalance(user.getBalance().subtract(totalDebit));
+        // Update balance (refused atomically if balance < gross + fee)
+        debitOrThrow(userId, totalDebit, "Insufficient balance for withdrawal + fee");
 
         // Save the transaction
         Transaction tx = new Transaction();
@@ -179,8 +293,10 @@ public class WalletService {
         tx.setGrossAmount(gross);
         tx.setFeeAmount(fee);
         tx.setNetAmount(gross);
+        tx.setIdempotencyKey(idempotencyKey);
 
         Transaction saved = txRepo.save(tx);
+        ledger.record(saved);
         log.info("Withdraw - success txId={} userId={} gross={} fee={} totalDebit={}",
                 saved.getId(), userId, gross, fee, totalDebit);
         return saved;
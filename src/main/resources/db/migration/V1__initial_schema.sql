@@ -0,0 +1,46 @@
+--
+-- Initial PayMyBuddy schema (formerly the sql/01_schema.sql dump), in dependency order.
+-- Applied by Flyway at startup on the database of spring.datasource.url.
+--
+
+CREATE TABLE `users` (
+  `id` int NOT NULL AUTO_INCREMENT,
+  `username` varchar(25) NOT NULL,
+  `email` varchar(25) NOT NULL,
+  `password` varchar(100) NOT NULL,
+  `balance` decimal(19,2) NOT NULL DEFAULT '0.00',
+  `version` bigint NOT NULL,
+  `iban` varchar(34) DEFAULT NULL,
+  `bic` varchar(11) DEFAULT NULL,
+  `is_bank` tinyint(1) NOT NULL DEFAULT '0',
+  PRIMARY KEY (`id`),
+  UNIQUE KEY `email_UNIQUE` (`email`),
+  UNIQUE KEY `username_UNIQUE` (`username`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE `transactions` (
+  `id` int NOT NULL AUTO_INCREMENT,
+  `sender_id` int NOT NULL,
+  `receiver_id` int NOT NULL,
+  `description` varchar(100) DEFAULT NULL,
+  `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  `type` varchar(20) NOT NULL,
+  `gross_amount` decimal(19,2) NOT NULL,
+  `fee_amount` decimal(19,2) NOT NULL,
+  `net_amount` decimal(19,2) NOT NULL,
+  PRIMARY KEY (`id`),
+  KEY `ix_transactions_type` (`type`),
+  KEY `ix_transactions_sender` (`sender_id`),
+  KEY `ix_transactions_receiver` (`receiver_id`),
+  CONSTRAINT `fk_transactions_receiver` FOREIGN KEY (`receiver_id`) REFERENCES `users` (`id`) ON UPDATE RESTRICT,
+  CONSTRAINT `fk_transactions_sender` FOREIGN KEY (`sender_id`) REFERENCES `users` (`id`) ON UPDATE RESTRICT
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE `user_connections` (
+  `user_id` int NOT NULL,
+  `connection_id` int NOT NULL,
+  PRIMARY KEY (`user_id`,`connection_id`),
+  KEY `uc_connection_idx` (`connection_id`),
+  CONSTRAINT `uc_connection` FOREIGN KEY (`connection_id`) REFERENCES `users` (`id`) ON DELETE CASCADE ON UPDATE CASCADE,
+  CONSTRAINT `uc_user` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`) ON DELETE CASCADE ON UPDATE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
@@ -0,0 +1,15 @@
+--
+-- Composite indexes for the keyset-paginated transaction feed
+-- (TransactionRepository.findFeedFirstPage / findFeedBefore).
+-- The feed reads sent and received ids in two UNION ALL branches, one per index,
+-- each in (created_at, id) order and limited to the page size.
+--
+
+ALTER TABLE `transactions`
+  ADD KEY `ix_transactions_sender_created` (`sender_id`, `created_at`, `id`),
+  ADD KEY `ix_transactions_receiver_created` (`receiver_id`, `created_at`, `id`);
+
+-- The single-column indexes are now left prefixes of the composite ones
+ALTER TABLE `transactions`
+  DROP KEY `ix_transactions_sender`,
+  DROP KEY `ix_transactions_receiver`;
@@ -0,0 +1,10 @@
+--
+-- Idempotency key of the form submission that created a transaction
+-- (WalletService, POST /transfer). The unique index is the source of truth:
+-- a resubmitted form can never insert a second row, whatever the in-memory cache says.
+-- NULL for transactions created without a key (several NULLs are allowed).
+--
+
+ALTER TABLE `transactions`
+  ADD COLUMN `idempotency_key` varchar(80) DEFAULT NULL,
+  ADD UNIQUE KEY `ux_transactions_idempotency_key` (`idempotency_key`);
@@ -0,0 +1,41 @@
+--
+-- Append-only double-entry ledger (LedgerService).
+-- Each transaction is written as postings whose signed amounts sum to zero:
+--   TOP_UP       BANK_CLEARING debit gross, WALLET(receiver) credit net, FEE_REVENUE credit fee
+--   P2P_TRANSFER WALLET(sender) debit gross + fee, WALLET(receiver) credit gross, FEE_REVENUE credit fee
+--   WITHDRAWAL   WALLET(sender) debit gross + fee, BANK_CLEARING credit gross, FEE_REVENUE credit fee
+-- Rows are only inserted. A wallet balance is its latest snapshot + the postings after it.
+--
+
+CREATE TABLE `ledger_postings` (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `transaction_id` int NOT NULL,
+  `account` varchar(20) NOT NULL,
+  `user_id` int DEFAULT NULL,
+  `direction` varchar(6) NOT NULL,
+  `amount` decimal(19,2) NOT NULL,
+  `created_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (`id`),
+  KEY `ix_ledger_postings_wallet` (`account`, `user_id`, `id`),
+  KEY `ix_ledger_postings_transaction` (`transaction_id`),
+  CONSTRAINT `fk_ledger_postings_transaction` FOREIGN KEY (`transaction_id`) REFERENCES `transactions` (`id`),
+  CONSTRAINT `fk_ledger_postings_user` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`),
+  CONSTRAINT `ck_ledger_postings_amount` CHECK (`amount` > 0)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+CREATE TABLE `ledger_balance_snapshots` (
+  `id` bigint NOT NULL AUTO_INCREMENT,
+  `user_id` int NOT NULL,
+  `balance` decimal(19,2) NOT NULL,
+  `last_posting_id` bigint NOT NULL,
+  `taken_at` datetime NOT NULL,
+  PRIMARY KEY (`id`),
+  KEY `ix_ledger_snapshots_user` (`user_id`, `last_posting_id`),
+  CONSTRAINT `fk_ledger_snapshots_user` FOREIGN KEY (`user_id`) REFERENCES `users` (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_0900_ai_ci;
+
+-- Opening balances: existing wallets start from their current users.balance (history before the ledger is not replayed)
+INSERT INTO `ledger_balance_snapshots` (`user_id`, `balance`, `last_posting_id`, `taken_at`)
+SELECT `id`, `balance`, 0, NOW()
+FROM `users`
+WHERE `is_bank` = 0;
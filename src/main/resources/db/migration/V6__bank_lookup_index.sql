@@ -0,0 +1,11 @@
+--
+-- Bank account lookup (UserRepository.findBankIds / findFirstByIsBankTrue, BankAccountResolver):
+-- "is_bank = 1 order by id" reads the one or two bank rows from this index, already in id order
+-- (InnoDB appends the primary key), instead of scanning every user.
+--
+-- created_at needs no index of its own: every query filtering or sorting on it also fixes a party
+-- and is served by ix_transactions_sender_created / ix_transactions_receiver_created (V2).
+--
+
+ALTER TABLE `users`
+  ADD KEY `ix_users_is_bank` (`is_bank`);
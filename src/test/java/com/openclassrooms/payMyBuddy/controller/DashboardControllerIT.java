@@ -1,26 +1,45 @@
 package com.openclassrooms.payMyBuddy.controller;
 
+import com.openclassrooms.payMyBuddy.dto.AccountSummaryDTO;
+import com.openclassrooms.payMyBuddy.dto.ConnectionDTO;
+import com.openclassrooms.payMyBuddy.dto.DashboardDTO;
+import com.openclassrooms.payMyBuddy.dto.FeedCursor;
+import com.openclassrooms.payMyBuddy.dto.FeedItemDTO;
+import com.openclassrooms.payMyBuddy.dto.FeedPage;
+import com.openclassrooms.payMyBuddy.model.TransactionType;
 import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import com.openclassrooms.payMyBuddy.security.AccountPrincipal;
+import com.openclassrooms.payMyBuddy.service.CurrentAccount;
 import com.openclassrooms.payMyBuddy.service.CurrentUserService;
+import com.openclassrooms.payMyBuddy.service.DashboardQueryService;
 import com.openclassrooms.payMyBuddy.service.TransactionService;
 import com.openclassrooms.payMyBuddy.service.UserService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(DashboardController.class)
+@Import(CurrentAccount.class)
 class DashboardControllerIT {
 
     @Autowired MockMvc mvc;
@@ -28,6 +47,8 @@ class DashboardControllerIT {
     @MockBean UserService userService;
     @MockBean TransactionService transactionService;
     @MockBean CurrentUserService currentUserService;
+    @MockBean DashboardQueryService dashboardQueryService;
+    @MockBean UserRepository userRepository;
 
     // GET /connections: happy path -> renders "connections" view with required attributes    @Test
     @WithMockUser(username = "user@example.com", roles = "USER")
@@ -124,4 +145,63 @@ class DashboardControllerIT {
         verifyNoMoreInteractions(userService);
         verifyNoInteractions(transactionService);
     }
-}
\ No newline at end of file
+
+    // GET /transfer: renders the dashboard from the dashboard view model, keyed by the principal's id
+    @Test
+    void get_transfer_renders_dashboard() throws Exception {
+        User account = new User();
+        account.setId(1);
+        account.setEmail("user@example.com");
+        account.setUsername("User");
+
+        AccountSummaryDTO me = new AccountSummaryDTO(1, "User", "user@example.com", new BigDecimal("1234.50"));
+        FeedItemDTO tx = new FeedItemDTO(5, LocalDateTime.of(2025, 10, 1, 12, 0), TransactionType.P2P_TRANSFER,
+                "Dinner", "Clara", "clara@gmail.com", new BigDecimal("-10.05"));
+        DashboardDTO.Timings timings = new DashboardDTO.Timings(Duration.ZERO, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+        when(dashboardQueryService.load(1)).thenReturn(new DashboardDTO(me,
+                List.of(new ConnectionDTO(2, "Clara", "clara@gmail.com")),
+                new FeedPage<>(List.of(tx), null), timings));
+
+        mvc.perform(get("/transfer").with(user(AccountPrincipal.formLogin(account))))
+                .andExpect(status().isOk())
+                .andExpect(view().name("dashboard"))
+                .andExpect(content().string(containsString("1,234.50")))
+                .andExpect(content().string(containsString("value=\"clara@gmail.com\"")))
+                .andExpect(content().string(containsString("Dinner")));
+
+        verifyNoInteractions(userService, transactionService, userRepository, currentUserService);
+    }
+
+    // GET /transfer/feed: renders the next feed rows with a "load more" row when older ones exist
+    @Test
+    @WithMockUser(username = "user@example.com", roles = "USER")
+    void get_feed_renders_rows_fragment() throws Exception {
+        when(currentUserService.requireEmail(any())).thenReturn("user@example.com");
+        when(userRepository.findIdByEmail("user@example.com")).thenReturn(Optional.of(1));
+
+        FeedItemDTO tx = new FeedItemDTO(5, LocalDateTime.of(2025, 10, 1, 12, 0), TransactionType.P2P_TRANSFER,
+                null, "Clara", "clara@gmail.com", new BigDecimal("-10.05"));
+        FeedCursor before = new FeedCursor(LocalDateTime.of(2025, 10, 2, 12, 0), 9);
+        FeedCursor next = new FeedCursor(tx.getCreatedAt(), tx.getId());
+        when(transactionService.getFeedPage(eq(1), eq(before), anyInt()))
+                .thenReturn(new FeedPage<>(List.of(tx), next));
+
+        mvc.perform(get("/transfer/feed").param("before", before.encode()))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Clara")))
+                .andExpect(content().string(containsString("-10.05")))
+                .andExpect(content().string(containsString("data-next-cursor=\"" + next.encode() + "\"")));
+    }
+
+    // GET /transfer/feed with a garbage cursor -> 400
+    @Test
+    @WithMockUser(username = "user@example.com", roles = "USER")
+    void get_feed_invalid_cursor_returns_400() throws Exception {
+        when(currentUserService.requireEmail(any())).thenReturn("user@example.com");
+
+        mvc.perform(get("/transfer/feed").param("before", "garbage"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(userService, transactionService);
+    }
+}
@@ -1,25 +1,40 @@
 package com.openclassrooms.payMyBuddy.controller;
 
+import com.openclassrooms.payMyBuddy.dto.AccountSummaryDTO;
+import com.openclassrooms.payMyBuddy.dto.ConnectionDTO;
+import com.openclassrooms.payMyBuddy.dto.DashboardDTO;
+import com.openclassrooms.payMyBuddy.dto.FeedCursor;
+import com.openclassrooms.payMyBuddy.dto.FeedItemDTO;
+import com.openclassrooms.payMyBuddy.dto.FeedPage;
 import com.openclassrooms.payMyBuddy.dto.FriendDTO;
 import com.openclassrooms.payMyBuddy.dto.TransferDTO;
+import com.openclassrooms.payMyBuddy.model.TransactionType;
 import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import com.openclassrooms.payMyBuddy.security.AccountPrincipal;
+import com.openclassrooms.payMyBuddy.service.CurrentAccount;
 import com.openclassrooms.payMyBuddy.service.CurrentUserService;
+import com.openclassrooms.payMyBuddy.service.DashboardQueryService;
 import com.openclassrooms.payMyBuddy.service.TransactionService;
 import com.openclassrooms.payMyBuddy.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.ui.ConcurrentModel;
 import org.springframework.ui.Model;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.web.servlet.mvc.support.RedirectAttributesModelMap;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -37,9 +52,40 @@ class DashboardControllerTest {
     @Mock
     CurrentUserService currentUserService;
 
-    @InjectMocks
+    @Mock
+    DashboardQueryService dashboardQueryService;
+
+    @Mock
+    UserRepository userRepository;
+
     DashboardController controller;
 
+    @BeforeEach
+    void setUp() {
+        controller = new DashboardController(userService, transactionService, currentUserService, dashboardQueryService,
+                new CurrentAccount(currentUserService, userRepository));
+    }
+
+    private FeedItemDTO feedItem() {
+        return new FeedItemDTO(5, LocalDateTime.of(2025, 10, 1, 12, 0), TransactionType.P2P_TRANSFER,
+                null, "Clara", "clara@gmail.com", new BigDecimal("-10.05"));
+    }
+
+    // Principal of a form login: carries the user id
+    private TestingAuthenticationToken principalAuth() {
+        User me = new User();
+        me.setId(1);
+        me.setEmail("user@example.com");
+        me.setUsername("user");
+        return new TestingAuthenticationToken(AccountPrincipal.formLogin(me), null, "ROLE_USER");
+    }
+
+    private DashboardDTO dashboard(FeedPage<FeedItemDTO> feed) {
+        AccountSummaryDTO me = new AccountSummaryDTO(1, "User", "user@example.com", new BigDecimal("10.00"));
+        DashboardDTO.Timings timings = new DashboardDTO.Timings(Duration.ZERO, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+        return new DashboardDTO(me, List.of(new ConnectionDTO(2, "Clara", "clara@gmail.com")), feed, timings);
+    }
+
     // 1) GET /transfer with null auth -> IllegalStateException (thrown by requireEmail)
     @Test
     void showDashboard_whenAuthIsNull_throws() {
@@ -50,53 +96,117 @@ class DashboardControllerTest {
         assertThrows(IllegalStateException.class, () -> controller.showDashboard(null, model));
 
         verify(currentUserService).requireEmail(null);
-        verifyNoInteractions(userService, transactionService);
+        verifyNoInteractions(userService, transactionService, dashboardQueryService);
     }
 
-    // 2) GET /transfer with valid auth but user not found -> IllegalArgumentException
+    // 2) GET /transfer with our principal but the account is gone -> IllegalArgumentException
     @Test
     void showDashboard_whenUserNotFound_throws() {
         Model model = new ConcurrentModel();
-        var auth = new TestingAuthenticationToken("user@example.com", "pwd");
+        var auth = principalAuth();
 
-        when(currentUserService.requireEmail(auth)).thenReturn("user@example.com");
-        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.empty());
+        when(dashboardQueryService.load(1))
+                .thenThrow(new IllegalArgumentException("User not found : id = 1"));
 
         assertThrows(IllegalArgumentException.class, () -> controller.showDashboard(auth, model));
 
-        verify(currentUserService).requireEmail(auth);
-        verify(userService).getUserByEmail("user@example.com");
-        verifyNoMoreInteractions(userService);
-        verifyNoInteractions(transactionService);
+        verify(dashboardQueryService).load(1);
+        verifyNoInteractions(userService, transactionService, userRepository, currentUserService);
     }
 
-    // 3) GET /transfer happy path -> returns "dashboard" and fills the model
+    // 3) GET /transfer happy path -> returns "dashboard" and fills the model from the single dashboard load
     @Test
     void showDashboard_success_returnsDashboard_andFillsModel() {
         Model model = new ConcurrentModel();
-        var auth = new TestingAuthenticationToken("user@example.com", "pwd");
+        var auth = principalAuth();
+        DashboardDTO dashboard = dashboard(new FeedPage<>(List.of(), null));
 
-        User me = mock(User.class);
-        when(me.getId()).thenReturn(1);
-        when(me.getConnections()).thenReturn(Set.of());
-
-        when(currentUserService.requireEmail(auth)).thenReturn("user@example.com");
-        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(me));
-        when(transactionService.getFeedForUser(1)).thenReturn(List.of());
+        when(dashboardQueryService.load(1)).thenReturn(dashboard);
 
         String view = controller.showDashboard(auth, model);
 
         assertEquals("dashboard", view);
-        assertSame(me, model.getAttribute("me"));
-        assertNotNull(model.getAttribute("friends"));
+        assertSame(dashboard.getAccount(), model.getAttribute("me"));
+        assertSame(dashboard.getFriends(), model.getAttribute("friends"));
         assertNotNull(model.getAttribute("feed"));
+        assertNull(model.getAttribute("feedNextCursor"));
         assertTrue(model.getAttribute("friendForm") instanceof FriendDTO);
         assertTrue(model.getAttribute("transferForm") instanceof TransferDTO);
 
-        verify(currentUserService).requireEmail(auth);
-        verify(userService).getUserByEmail("user@example.com");
-        verify(transactionService, atLeastOnce()).getFeedForUser(1);
-        verifyNoMoreInteractions(userService);
+        verify(dashboardQueryService).load(1);
+        verifyNoMoreInteractions(dashboardQueryService);
+        verifyNoInteractions(userService, transactionService, userRepository, currentUserService);
+    }
+
+    // 3bis) GET /transfer with an older page available -> cursor exposed for "load more"
+    @Test
+    void showDashboard_whenMoreFeed_exposesNextCursor() {
+        Model model = new ConcurrentModel();
+        var auth = principalAuth();
+        FeedCursor next = new FeedCursor(LocalDateTime.of(2025, 10, 1, 12, 0), 42);
+
+        when(dashboardQueryService.load(1))
+                .thenReturn(dashboard(new FeedPage<>(List.of(feedItem()), next)));
+
+        controller.showDashboard(auth, model);
+
+        assertEquals(next.encode(), model.getAttribute("feedNextCursor"));
+    }
+
+    // 3ter) GET /transfer/feed -> next page rendered as the feed rows fragment
+    @Test
+    void loadMoreFeed_success_returnsRowsFragment() {
+        Model model = new ConcurrentModel();
+        var auth = new TestingAuthenticationToken("user@example.com", "pwd");
+
+        FeedCursor before = new FeedCursor(LocalDateTime.of(2025, 10, 1, 12, 0), 42);
+        List<FeedItemDTO> rows = List.of(feedItem());
+
+        when(currentUserService.requireEmail(auth)).thenReturn("user@example.com");
+        when(userRepository.findIdByEmail("user@example.com")).thenReturn(Optional.of(1));
+        when(transactionService.getFeedPage(1, before, TransactionService.DEFAULT_FEED_PAGE_SIZE))
+                .thenReturn(new FeedPage<>(rows, null));
+
+        String view = controller.loadMoreFeed(before.encode(), auth, model);
+
+        assertEquals("fragments/feed :: rows", view);
+        assertSame(rows, model.getAttribute("feed"));
+        assertNull(model.getAttribute("feedNextCursor"));
+    }
+
+    // 3ter-bis) GET /transfer/feed with our principal -> user id taken from it, no user lookup
+    @Test
+    void loadMoreFeed_withAccountPrincipal_doesNotLookUpUser() {
+        Model model = new ConcurrentModel();
+        User me = new User();
+        me.setId(1);
+        me.setEmail("user@example.com");
+        me.setUsername("user");
+        AccountPrincipal principal = AccountPrincipal.formLogin(me);
+        var auth = new TestingAuthenticationToken(principal, null, "ROLE_USER");
+        FeedCursor before = new FeedCursor(LocalDateTime.of(2025, 10, 1, 12, 0), 42);
+
+        when(currentUserService.requireEmail(auth)).thenReturn("user@example.com");
+        when(transactionService.getFeedPage(1, before, TransactionService.DEFAULT_FEED_PAGE_SIZE))
+                .thenReturn(new FeedPage<>(List.of(feedItem()), null));
+
+        assertEquals("fragments/feed :: rows", controller.loadMoreFeed(before.encode(), auth, model));
+        verifyNoInteractions(userRepository, userService);
+    }
+
+    // 3quater) GET /transfer/feed with a garbage cursor -> 400, no lookup
+    @Test
+    void loadMoreFeed_whenCursorInvalid_returnsBadRequest() {
+        Model model = new ConcurrentModel();
+        var auth = new TestingAuthenticationToken("user@example.com", "pwd");
+
+        when(currentUserService.requireEmail(auth)).thenReturn("user@example.com");
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> controller.loadMoreFeed("not-a-cursor", auth, model));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        verifyNoInteractions(userService, transactionService);
     }
 
     // 4) POST /connections with null auth -> IllegalStateException
@@ -61,9 +61,9 @@ public class LoginControllerIT {
         verifyNoInteractions(userService, transactionService);
     }
 
-    // GET / (home) OAuth2 with email & name -> creates/gets user then redirects to /transfer
+    // GET / (home) OAuth2 -> pure redirect to /transfer: the account was provisioned at authentication
     @Test
-    void home_oauth2User_createsOrGetsUser_and_redirects_transfer() throws Exception {
+    void home_oauth2User_redirects_transfer_withoutProvisioning() throws Exception {
         Map<String, Object> attrs = new HashMap<>();
         attrs.put("id", "123");                    // principal name attribute
         attrs.put("email", "John.Doe@example.com");
@@ -75,22 +75,6 @@ public class LoginControllerIT {
                 .andExpect(status().isFound())
                 .andExpect(redirectedUrl("/transfer"));
 
-        verify(userService).getOrCreateOAuth2User("john.doe@example.com", "John Doe");
-        verifyNoMoreInteractions(userService);
-        verifyNoInteractions(transactionService);
-    }
-
-    // GET / (home) OAuth2 but WITHOUT email -> redirects to /login and does NOT call service
-    @Test
-    void home_oauth2_without_email_redirects_to_login() throws Exception {
-        Map<String, Object> attrs = new HashMap<>();
-        attrs.put("id", "123");
-        attrs.put("name", "Someone"); // no email provided
-
-        mvc.perform(get("/").with(oauth2Login().attributes(a -> a.putAll(attrs))))
-                .andExpect(status().isFound())
-                .andExpect(redirectedUrl("/login"));
-
         verifyNoInteractions(userService, transactionService);
     }
 }
@@ -0,0 +1,198 @@
+package com.openclassrooms.payMyBuddy.controller;
+
+import com.openclassrooms.payMyBuddy.dto.AccountSummaryDTO;
+import com.openclassrooms.payMyBuddy.dto.ConnectionDTO;
+import com.openclassrooms.payMyBuddy.dto.FeedCursor;
+import com.openclassrooms.payMyBuddy.dto.FeedItemDTO;
+import com.openclassrooms.payMyBuddy.dto.FeedPage;
+import com.openclassrooms.payMyBuddy.model.Transaction;
+import com.openclassrooms.payMyBuddy.model.TransactionType;
+import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import com.openclassrooms.payMyBuddy.security.AccountPrincipal;
+import com.openclassrooms.payMyBuddy.security.ApiSecurityConfig;
+import com.openclassrooms.payMyBuddy.security.ApiTokenProperties;
+import com.openclassrooms.payMyBuddy.security.ApiTokenService;
+import com.openclassrooms.payMyBuddy.security.AuthenticationConfig;
+import com.openclassrooms.payMyBuddy.security.SpringSecurityConfig;
+import com.openclassrooms.payMyBuddy.security.UserDetailsCache;
+import com.openclassrooms.payMyBuddy.service.CurrentAccount;
+import com.openclassrooms.payMyBuddy.service.CurrentUserService;
+import com.openclassrooms.payMyBuddy.service.CustomUserDetailsService;
+import com.openclassrooms.payMyBuddy.service.TransactionService;
+import com.openclassrooms.payMyBuddy.service.UserService;
+import com.openclassrooms.payMyBuddy.service.WalletOperationRefusedException;
+import com.openclassrooms.payMyBuddy.service.WalletService;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// /api/v1 behind the bearer-token chain: JSON in and out, caller id from the token
+@WebMvcTest(WalletApiController.class)
+@Import({SpringSecurityConfig.class, ApiSecurityConfig.class, AuthenticationConfig.class, UserDetailsCache.class,
+        ApiTokenService.class, ApiTokenProperties.class, CurrentAccount.class, CurrentUserService.class})
+class WalletApiControllerIT {
+
+    @Autowired MockMvc mvc;
+    @Autowired ApiTokenService apiTokenService;
+
+    @MockBean WalletService walletService;
+    @MockBean UserService userService;
+    @MockBean TransactionService transactionService;
+    @MockBean UserRepository userRepository;
+    @MockBean CustomUserDetailsService customUserDetailsService;
+
+    String bearer;
+
+    @BeforeEach
+    void token() {
+        bearer = "Bearer " + apiTokenService.issue(AccountPrincipal.apiToken(7, "user@example.com", "User"));
+    }
+
+    private static Transaction tx(int id, TransactionType type, String gross, String fee, String net) {
+        return Transaction.builder().id(id).type(type)
+                .grossAmount(new BigDecimal(gross)).feeAmount(new BigDecimal(fee)).netAmount(new BigDecimal(net)).build();
+    }
+
+    @Test
+    void balance_returnsProjection_withoutAnyEntityLookup() throws Exception {
+        when(userService.getAccountSummary(7))
+                .thenReturn(new AccountSummaryDTO(7, "User", "user@example.com", new BigDecimal("42.50")));
+
+        mvc.perform(get("/api/v1/balance").header("Authorization", bearer))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.id").value(7))
+                .andExpect(jsonPath("$.balance").value(42.50));
+
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void feed_returnsItems_andOpaqueNextCursor() throws Exception {
+        LocalDateTime at = LocalDateTime.of(2025, 3, 1, 10, 0);
+        FeedItemDTO item = new FeedItemDTO(11, at, TransactionType.P2P_TRANSFER, "Lunch",
+                "Friend", "friend@example.com", new BigDecimal("-10.05"));
+        FeedCursor next = new FeedCursor(at, 11);
+        when(transactionService.getFeedPage(7, null, 1)).thenReturn(new FeedPage<>(List.of(item), next));
+
+        mvc.perform(get("/api/v1/feed").param("size", "1").header("Authorization", bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(11))
+                .andExpect(jsonPath("$.items[0].signedAmount").value(-10.05))
+                .andExpect(jsonPath("$.items[0].createdAt").value("2025-03-01T10:00:00"))
+                .andExpect(jsonPath("$.items[0].counterparty").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").value(next.encode()));
+    }
+
+    @Test
+    void feed_invalidCursor_is400() throws Exception {
+        mvc.perform(get("/api/v1/feed").param("before", "%%%").header("Authorization", bearer))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Invalid feed cursor."));
+    }
+
+    @Test
+    void transfer_withoutCsrf_returns201_withAppliedAmounts() throws Exception {
+        when(userService.getUserIdByEmail("friend@example.com")).thenReturn(Optional.of(9));
+        when(walletService.transferP2P(7, 9, new BigDecimal("10.00"), "Lunch", "k-1"))
+                .thenReturn(tx(55, TransactionType.P2P_TRANSFER, "10.00", "0.05", "10.00"));
+
+        mvc.perform(post("/api/v1/transfers").header("Authorization", bearer).header("Idempotency-Key", "k-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"receiverEmail\":\"friend@example.com\",\"amount\":10.00,\"description\":\"Lunch\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(55))
+                .andExpect(jsonPath("$.type").value("P2P_TRANSFER"))
+                .andExpect(jsonPath("$.feeAmount").value(0.05));
+    }
+
+    @Test
+    void transfer_insufficientBalance_is409_unknownReceiver_is400() throws Exception {
+        when(userService.getUserIdByEmail("friend@example.com")).thenReturn(Optional.of(9));
+        when(walletService.transferP2P(eq(7), eq(9), any(), any(), isNull()))
+                .thenThrow(new WalletOperationRefusedException("Insufficient balance"));
+        when(userService.getUserIdByEmail("ghost@example.com")).thenReturn(Optional.empty());
+
+        mvc.perform(post("/api/v1/transfers").header("Authorization", bearer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"receiverEmail\":\"friend@example.com\",\"amount\":1000}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Insufficient balance"));
+        mvc.perform(post("/api/v1/transfers").header("Authorization", bearer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"receiverEmail\":\"ghost@example.com\",\"amount\":1}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Receiver not found"));
+    }
+
+    @Test
+    void transfer_internalFailure_isNotMappedToConflict() {
+        when(userService.getUserIdByEmail("friend@example.com")).thenReturn(Optional.of(9));
+        when(walletService.transferP2P(eq(7), eq(9), any(), any(), isNull()))
+                .thenThrow(new IllegalStateException("HmacSHA256 unavailable"));
+
+        // not handled by the controller: the container's default error handling answers 500
+        ServletException ex = assertThrows(ServletException.class, () -> mvc.perform(post("/api/v1/transfers")
+                .header("Authorization", bearer)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"receiverEmail\":\"friend@example.com\",\"amount\":1}")));
+        assertInstanceOf(IllegalStateException.class, ex.getCause());
+    }
+
+    @Test
+    void topUp_andWithdrawal_return201() throws Exception {
+        when(walletService.topUp(7, new BigDecimal("100"), "in", null))
+                .thenReturn(tx(60, TransactionType.TOP_UP, "100.00", "0.50", "99.50"));
+        when(walletService.withdrawToBank(7, new BigDecimal("20"), null, null))
+                .thenReturn(tx(61, TransactionType.WITHDRAWAL, "20.00", "0.10", "20.00"));
+
+        mvc.perform(post("/api/v1/top-ups").header("Authorization", bearer)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"amount\":100,\"description\":\"in\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.netAmount").value(99.50));
+        mvc.perform(post("/api/v1/withdrawals").header("Authorization", bearer)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"amount\":20}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.type").value("WITHDRAWAL"));
+    }
+
+    @Test
+    void connections_listAndAdd() throws Exception {
+        when(userService.getConnections(7)).thenReturn(List.of(new ConnectionDTO(9, "Friend", "friend@example.com")));
+
+        mvc.perform(get("/api/v1/connections").header("Authorization", bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].email").value("friend@example.com"));
+        mvc.perform(post("/api/v1/connections").header("Authorization", bearer)
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"email\":\"friend@example.com\"}"))
+                .andExpect(status().isNoContent());
+
+        verify(userService).addConnection("user@example.com", "friend@example.com");
+    }
+
+    @Test
+    void withoutToken_is401() throws Exception {
+        mvc.perform(get("/api/v1/balance"))
+                .andExpect(status().isUnauthorized());
+        verifyNoInteractions(userService);
+    }
+}
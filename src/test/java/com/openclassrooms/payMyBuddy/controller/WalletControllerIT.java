@@ -1,6 +1,8 @@
 package com.openclassrooms.payMyBuddy.controller;
 
 import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import com.openclassrooms.payMyBuddy.service.CurrentAccount;
 import com.openclassrooms.payMyBuddy.service.CurrentUserService;
 import com.openclassrooms.payMyBuddy.service.UserService;
 import com.openclassrooms.payMyBuddy.service.WalletService;
@@ -8,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
@@ -22,6 +25,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(WalletController.class)
+@Import(CurrentAccount.class)
 class WalletControllerIT {
 
     @Autowired MockMvc mvc;
@@ -29,14 +33,14 @@ class WalletControllerIT {
     @MockBean WalletService walletService;
     @MockBean UserService userService;
     @MockBean CurrentUserService currentUserService;
+    @MockBean UserRepository userRepository;
 
     // TOP UP
 
     @Test
     void handleTransfer_topUp_success() throws Exception {
         when(currentUserService.requireEmail(any())).thenReturn("user@example.com");
-        User me = new User(); me.setId(1); me.setEmail("user@example.com");
-        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(me));
+        when(userRepository.findIdByEmail("user@example.com")).thenReturn(Optional.of(1));
 
         mvc.perform(post("/transfer")
                         .with(user("user@example.com").roles("USER"))
@@ -48,18 +52,17 @@ class WalletControllerIT {
                 .andExpect(redirectedUrl("/transfer"))
                 .andExpect(flash().attribute("success", "Deposit completed (0.5% fee applied)."));
 
-        verify(walletService).topUp(eq(1), eq(new BigDecimal("100.00")), eq("Top up"));
+        verify(walletService).topUp(eq(1), eq(new BigDecimal("100.00")), eq("Top up"), isNull());
         verifyNoMoreInteractions(walletService);
     }
 
     @Test
     void handleTransfer_topUp_businessError() throws Exception {
         when(currentUserService.requireEmail(any())).thenReturn("user@example.com");
-        User me = new User(); me.setId(1); me.setEmail("user@example.com");
-        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(me));
+        when(userRepository.findIdByEmail("user@example.com")).thenReturn(Optional.of(1));
 
         doThrow(new IllegalArgumentException("Deposit failed"))
-                .when(walletService).topUp(eq(1), eq(new BigDecimal("50.00")), eq("Fail"));
+                .when(walletService).topUp(eq(1), eq(new BigDecimal("50.00")), eq("Fail"), isNull());
 
         mvc.perform(post("/transfer")
                         .with(user("user@example.com").roles("USER"))
@@ -77,8 +80,7 @@ class WalletControllerIT {
     @Test
     void handleTransfer_withdraw_success() throws Exception {
         when(currentUserService.requireEmail(any())).thenReturn("user@example.com");
-        User me = new User(); me.setId(2); me.setEmail("user@example.com");
-        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(me));
+        when(userRepository.findIdByEmail("user@example.com")).thenReturn(Optional.of(2));
 
         mvc.perform(post("/transfer")
                         .with(user("user@example.com").roles("USER"))
@@ -90,18 +92,17 @@ class WalletControllerIT {
                 .andExpect(redirectedUrl("/transfer"))
                 .andExpect(flash().attribute("success", "Withdrawal initiated (0.5% fee applied)."));
 
-        verify(walletService).withdrawToBank(eq(2), eq(new BigDecimal("20.00")), eq("Cash out"));
+        verify(walletService).withdrawToBank(eq(2), eq(new BigDecimal("20.00")), eq("Cash out"), isNull());
         verifyNoMoreInteractions(walletService);
     }
 
     @Test
     void handleTransfer_withdraw_businessError() throws Exception {
         when(currentUserService.requireEmail(any())).thenReturn("user@example.com");
-        User me = new User(); me.setId(2); me.setEmail("user@example.com");
-        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(me));
+        when(userRepository.findIdByEmail("user@example.com")).thenReturn(Optional.of(2));
 
         doThrow(new IllegalArgumentException("Withdrawal failed"))
-                .when(walletService).withdrawToBank(eq(2), eq(new BigDecimal("200.00")), eq("Too much"));
+                .when(walletService).withdrawToBank(eq(2), eq(new BigDecimal("200.00")), eq("Too much"), isNull());
 
         mvc.perform(post("/transfer")
                         .with(user("user@example.com").roles("USER"))
@@ -120,10 +121,9 @@ class WalletControllerIT {
     void handleTransfer_p2p_success_whenTypeOmitted() throws Exception {
         when(currentUserService.requireEmail(any())).thenReturn("sender@example.com");
 
-        User sender = new User(); sender.setId(10); sender.setEmail("sender@example.com");
         User receiver = new User(); receiver.setId(20); receiver.setEmail("friend@example.com");
 
-        when(userService.getUserByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        when(userRepository.findIdByEmail("sender@example.com")).thenReturn(Optional.of(10));
         when(userService.getUserByEmail("friend@example.com")).thenReturn(Optional.of(receiver));
 
         mvc.perform(post("/transfer")
@@ -136,17 +136,16 @@ class WalletControllerIT {
                 .andExpect(redirectedUrl("/transfer"))
                 .andExpect(flash().attribute("success", "Transfer sent (0.5% fee paid by the sender)."));
 
-        verify(userService).getUserByEmail("sender@example.com");
+        verify(userRepository).findIdByEmail("sender@example.com");
         verify(userService).getUserByEmail("friend@example.com");
-        verify(walletService).transferP2P(eq(10), eq(20), eq(new BigDecimal("15.75")), eq("Thanks"));
+        verify(walletService).transferP2P(eq(10), eq(20), eq(new BigDecimal("15.75")), eq("Thanks"), isNull());
         verifyNoMoreInteractions(walletService);
     }
 
     @Test
     void handleTransfer_p2p_missingReceiverEmail() throws Exception {
         when(currentUserService.requireEmail(any())).thenReturn("sender@example.com");
-        User sender = new User(); sender.setId(10); sender.setEmail("sender@example.com");
-        when(userService.getUserByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        when(userRepository.findIdByEmail("sender@example.com")).thenReturn(Optional.of(10));
 
         mvc.perform(post("/transfer")
                         .with(user("sender@example.com").roles("USER"))
@@ -163,8 +162,7 @@ class WalletControllerIT {
     @Test
     void handleTransfer_p2p_receiverNotFound() throws Exception {
         when(currentUserService.requireEmail(any())).thenReturn("sender@example.com");
-        User sender = new User(); sender.setId(10); sender.setEmail("sender@example.com");
-        when(userService.getUserByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        when(userRepository.findIdByEmail("sender@example.com")).thenReturn(Optional.of(10));
         when(userService.getUserByEmail("missing@example.com")).thenReturn(Optional.empty());
 
         mvc.perform(post("/transfer")
@@ -180,4 +178,25 @@ class WalletControllerIT {
         verify(userService).getUserByEmail("missing@example.com");
         verifyNoInteractions(walletService);
     }
-}
\ No newline at end of file
+
+    // IDEMPOTENCY
+
+    @Test
+    void handleTransfer_hiddenIdempotencyKey_forwarded() throws Exception {
+        when(currentUserService.requireEmail(any())).thenReturn("user@example.com");
+        when(userRepository.findIdByEmail("user@example.com")).thenReturn(Optional.of(1));
+
+        mvc.perform(post("/transfer")
+                        .with(user("user@example.com").roles("USER"))
+                        .with(csrf())
+                        .param("type", "TOP_UP")
+                        .param("amount", "100.00")
+                        .param("description", "Top up")
+                        .param("idempotencyKey", "4b1c2a6e-0d1f-4f55-9d7a-1f0b7f2f3c11"))
+                .andExpect(status().isFound())
+                .andExpect(flash().attribute("success", "Deposit completed (0.5% fee applied)."));
+
+        verify(walletService).topUp(eq(1), eq(new BigDecimal("100.00")), eq("Top up"),
+                eq("4b1c2a6e-0d1f-4f55-9d7a-1f0b7f2f3c11"));
+    }
+}
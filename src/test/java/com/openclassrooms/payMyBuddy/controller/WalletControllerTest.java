@@ -3,12 +3,14 @@ package com.openclassrooms.payMyBuddy.controller;
 import com.openclassrooms.payMyBuddy.dto.TransferDTO;
 import com.openclassrooms.payMyBuddy.model.TransactionType;
 import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import com.openclassrooms.payMyBuddy.service.CurrentAccount;
 import com.openclassrooms.payMyBuddy.service.CurrentUserService;
 import com.openclassrooms.payMyBuddy.service.UserService;
 import com.openclassrooms.payMyBuddy.service.WalletService;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.TestingAuthenticationToken;
@@ -29,8 +31,14 @@ class WalletControllerTest {
     @Mock WalletService walletService;
     @Mock UserService userService;
     @Mock CurrentUserService currentUserService;
+    @Mock UserRepository userRepository;
 
-    @InjectMocks WalletController controller;
+    WalletController controller;
+
+    @BeforeEach
+    void setUp() {
+        controller = new WalletController(walletService, userService, new CurrentAccount(currentUserService, userRepository));
+    }
 
     // TOP UP
 
@@ -40,18 +48,17 @@ class WalletControllerTest {
         RedirectAttributes ra = new RedirectAttributesModelMap();
 
         when(currentUserService.requireEmail(auth)).thenReturn("user@example.com");
-        User me = new User(); me.setId(1); me.setEmail("user@example.com");
-        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(me));
+        when(userRepository.findIdByEmail("user@example.com")).thenReturn(Optional.of(1));
 
         TransferDTO dto = new TransferDTO();
         dto.setAmount(new BigDecimal("100"));
         dto.setDescription("Deposit test");
 
-        String view = controller.handleTransfer(TransactionType.TOP_UP, dto, auth, ra);
+        String view = controller.handleTransfer(TransactionType.TOP_UP, dto, null, auth, ra);
 
         assertEquals("redirect:/transfer", view);
         assertEquals("Deposit completed (0.5% fee applied).", ra.getFlashAttributes().get("success"));
-        verify(walletService).topUp(eq(1), eq(new BigDecimal("100")), eq("Deposit test"));
+        verify(walletService).topUp(eq(1), eq(new BigDecimal("100")), eq("Deposit test"), isNull());
         verifyNoMoreInteractions(walletService);
     }
 
@@ -61,17 +68,16 @@ class WalletControllerTest {
         RedirectAttributes ra = new RedirectAttributesModelMap();
 
         when(currentUserService.requireEmail(auth)).thenReturn("user@example.com");
-        User me = new User(); me.setId(1); me.setEmail("user@example.com");
-        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(me));
+        when(userRepository.findIdByEmail("user@example.com")).thenReturn(Optional.of(1));
 
         TransferDTO dto = new TransferDTO();
         dto.setAmount(new BigDecimal("50"));
         dto.setDescription("Fail deposit");
 
         doThrow(new IllegalArgumentException("Deposit failed"))
-                .when(walletService).topUp(eq(1), eq(new BigDecimal("50")), eq("Fail deposit"));
+                .when(walletService).topUp(eq(1), eq(new BigDecimal("50")), eq("Fail deposit"), isNull());
 
-        String view = controller.handleTransfer(TransactionType.TOP_UP, dto, auth, ra);
+        String view = controller.handleTransfer(TransactionType.TOP_UP, dto, null, auth, ra);
 
         assertEquals("redirect:/transfer", view);
         assertEquals("Deposit failed", ra.getFlashAttributes().get("error"));
@@ -83,17 +89,16 @@ class WalletControllerTest {
         RedirectAttributes ra = new RedirectAttributesModelMap();
 
         when(currentUserService.requireEmail(auth)).thenReturn("user@example.com");
-        User me = new User(); me.setId(1); me.setEmail("user@example.com");
-        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(me));
+        when(userRepository.findIdByEmail("user@example.com")).thenReturn(Optional.of(1));
 
         TransferDTO dto = new TransferDTO();
         dto.setAmount(new BigDecimal("10"));
         dto.setDescription("Boom");
 
         doThrow(new RuntimeException("boom"))
-                .when(walletService).topUp(eq(1), eq(new BigDecimal("10")), eq("Boom"));
+                .when(walletService).topUp(eq(1), eq(new BigDecimal("10")), eq("Boom"), isNull());
 
-        String view = controller.handleTransfer(TransactionType.TOP_UP, dto, auth, ra);
+        String view = controller.handleTransfer(TransactionType.TOP_UP, dto, null, auth, ra);
 
         assertEquals("redirect:/transfer", view);
         assertEquals("Unexpected error, please try again.", ra.getFlashAttributes().get("error"));
@@ -107,18 +112,17 @@ class WalletControllerTest {
         RedirectAttributes ra = new RedirectAttributesModelMap();
 
         when(currentUserService.requireEmail(auth)).thenReturn("user@example.com");
-        User me = new User(); me.setId(2); me.setEmail("user@example.com");
-        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(me));
+        when(userRepository.findIdByEmail("user@example.com")).thenReturn(Optional.of(2));
 
         TransferDTO dto = new TransferDTO();
         dto.setAmount(new BigDecimal("20"));
         dto.setDescription("Withdraw test");
 
-        String view = controller.handleTransfer(TransactionType.WITHDRAWAL, dto, auth, ra);
+        String view = controller.handleTransfer(TransactionType.WITHDRAWAL, dto, null, auth, ra);
 
         assertEquals("redirect:/transfer", view);
         assertEquals("Withdrawal initiated (0.5% fee applied).", ra.getFlashAttributes().get("success"));
-        verify(walletService).withdrawToBank(eq(2), eq(new BigDecimal("20")), eq("Withdraw test"));
+        verify(walletService).withdrawToBank(eq(2), eq(new BigDecimal("20")), eq("Withdraw test"), isNull());
         verifyNoMoreInteractions(walletService);
     }
 
@@ -128,17 +132,16 @@ class WalletControllerTest {
         RedirectAttributes ra = new RedirectAttributesModelMap();
 
         when(currentUserService.requireEmail(auth)).thenReturn("user@example.com");
-        User me = new User(); me.setId(2); me.setEmail("user@example.com");
-        when(userService.getUserByEmail("user@example.com")).thenReturn(Optional.of(me));
+        when(userRepository.findIdByEmail("user@example.com")).thenReturn(Optional.of(2));
 
         TransferDTO dto = new TransferDTO();
         dto.setAmount(new BigDecimal("200"));
         dto.setDescription("Fail withdraw");
 
         doThrow(new IllegalArgumentException("Withdraw failed"))
-                .when(walletService).withdrawToBank(eq(2), eq(new BigDecimal("200")), eq("Fail withdraw"));
+                .when(walletService).withdrawToBank(eq(2), eq(new BigDecimal("200")), eq("Fail withdraw"), isNull());
 
-        String view = controller.handleTransfer(TransactionType.WITHDRAWAL, dto, auth, ra);
+        String view = controller.handleTransfer(TransactionType.WITHDRAWAL, dto, null, auth, ra);
 
         assertEquals("redirect:/transfer", view);
         assertEquals("Withdraw failed", ra.getFlashAttributes().get("error"));
@@ -153,10 +156,9 @@ class WalletControllerTest {
 
         when(currentUserService.requireEmail(auth)).thenReturn("sender@example.com");
 
-        User sender = new User(); sender.setId(1); sender.setEmail("sender@example.com");
         User receiver = new User(); receiver.setId(2); receiver.setEmail("receiver@example.com");
 
-        when(userService.getUserByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        when(userRepository.findIdByEmail("sender@example.com")).thenReturn(Optional.of(1));
         when(userService.getUserByEmail("receiver@example.com")).thenReturn(Optional.of(receiver));
 
         TransferDTO dto = new TransferDTO();
@@ -165,11 +167,11 @@ class WalletControllerTest {
         dto.setDescription("Transfer test");
 
         // type = null -> P2P
-        String view = controller.handleTransfer(null, dto, auth, ra);
+        String view = controller.handleTransfer(null, dto, null, auth, ra);
 
         assertEquals("redirect:/transfer", view);
         assertEquals("Transfer sent (0.5% fee paid by the sender).", ra.getFlashAttributes().get("success"));
-        verify(walletService).transferP2P(eq(1), eq(2), eq(new BigDecimal("10")), eq("Transfer test"));
+        verify(walletService).transferP2P(eq(1), eq(2), eq(new BigDecimal("10")), eq("Transfer test"), isNull());
         verifyNoMoreInteractions(walletService);
     }
 
@@ -179,15 +181,14 @@ class WalletControllerTest {
         RedirectAttributes ra = new RedirectAttributesModelMap();
 
         when(currentUserService.requireEmail(auth)).thenReturn("sender@example.com");
-        User sender = new User(); sender.setId(1); sender.setEmail("sender@example.com");
-        when(userService.getUserByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        when(userRepository.findIdByEmail("sender@example.com")).thenReturn(Optional.of(1));
 
         TransferDTO dto = new TransferDTO();
         dto.setReceiverEmail(null); // manquant
         dto.setAmount(new BigDecimal("5"));
         dto.setDescription("No receiver");
 
-        String view = controller.handleTransfer(null, dto, auth, ra);
+        String view = controller.handleTransfer(null, dto, null, auth, ra);
 
         assertEquals("redirect:/transfer", view);
         assertEquals("Receiver email is required for a P2P transfer.", ra.getFlashAttributes().get("error"));
@@ -202,8 +203,7 @@ class WalletControllerTest {
         RedirectAttributes ra = new RedirectAttributesModelMap();
 
         when(currentUserService.requireEmail(auth)).thenReturn("sender@example.com");
-        User sender = new User(); sender.setId(1); sender.setEmail("sender@example.com");
-        when(userService.getUserByEmail("sender@example.com")).thenReturn(Optional.of(sender));
+        when(userRepository.findIdByEmail("sender@example.com")).thenReturn(Optional.of(1));
         when(userService.getUserByEmail("missing@example.com")).thenReturn(Optional.empty());
 
         TransferDTO dto = new TransferDTO();
@@ -211,11 +211,49 @@ class WalletControllerTest {
         dto.setAmount(new BigDecimal("5"));
         dto.setDescription("Receiver missing");
 
-        String view = controller.handleTransfer(null, dto, auth, ra);
+        String view = controller.handleTransfer(null, dto, null, auth, ra);
 
         assertEquals("redirect:/transfer", view);
         assertEquals("Receiver not found", ra.getFlashAttributes().get("error"));
         verify(userService).getUserByEmail("missing@example.com");
         verifyNoInteractions(walletService);
     }
-}
\ No newline at end of file
+
+    // IDEMPOTENCY
+
+    @Test
+    void handleTransfer_formIdempotencyKey_passedToWalletService() {
+        Authentication auth = new TestingAuthenticationToken("user@example.com", "pwd");
+        RedirectAttributes ra = new RedirectAttributesModelMap();
+
+        when(currentUserService.requireEmail(auth)).thenReturn("user@example.com");
+        when(userRepository.findIdByEmail("user@example.com")).thenReturn(Optional.of(1));
+
+        TransferDTO dto = new TransferDTO();
+        dto.setAmount(new BigDecimal("100"));
+        dto.setDescription("Deposit");
+        dto.setIdempotencyKey("form-key-123");
+
+        controller.handleTransfer(TransactionType.TOP_UP, dto, "header-key-456", auth, ra);
+
+        // the hidden form field wins over the header
+        verify(walletService).topUp(eq(1), eq(new BigDecimal("100")), eq("Deposit"), eq("form-key-123"));
+    }
+
+    @Test
+    void handleTransfer_headerIdempotencyKey_usedWhenNoFormField() {
+        Authentication auth = new TestingAuthenticationToken("user@example.com", "pwd");
+        RedirectAttributes ra = new RedirectAttributesModelMap();
+
+        when(currentUserService.requireEmail(auth)).thenReturn("user@example.com");
+        when(userRepository.findIdByEmail("user@example.com")).thenReturn(Optional.of(2));
+
+        TransferDTO dto = new TransferDTO();
+        dto.setAmount(new BigDecimal("20"));
+        dto.setDescription("Withdraw");
+
+        controller.handleTransfer(TransactionType.WITHDRAWAL, dto, "header-key-456", auth, ra);
+
+        verify(walletService).withdrawToBank(eq(2), eq(new BigDecimal("20")), eq("Withdraw"), eq("header-key-456"));
+    }
+}
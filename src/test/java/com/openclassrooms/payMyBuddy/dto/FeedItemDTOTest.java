@@ -0,0 +1,46 @@
+package com.openclassrooms.payMyBuddy.dto;
+
+import com.openclassrooms.payMyBuddy.model.TransactionType;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FeedItemDTOTest {
+
+    private static final LocalDateTime AT = LocalDateTime.of(2025, 10, 1, 12, 0);
+
+    private FeedItemDTO row(TransactionType type, boolean outgoing) {
+        return new FeedItemDTO(1, AT, type, "desc", outgoing,
+                "Laure", "laure@gmail.com", "", "clara@gmail.com",
+                new BigDecimal("100.00"), new BigDecimal("0.50"), new BigDecimal("99.50"));
+    }
+
+    @Test
+    public void p2p_sender_paysGrossPlusFee_andSeesReceiver() {
+        FeedItemDTO item = row(TransactionType.P2P_TRANSFER, true);
+
+        assertEquals(new BigDecimal("-100.50"), item.getSignedAmount());
+        assertEquals("clara@gmail.com", item.getCounterparty(), "Empty username falls back to email");
+    }
+
+    @Test
+    public void p2p_receiver_getsGross_andSeesSender() {
+        FeedItemDTO item = row(TransactionType.P2P_TRANSFER, false);
+
+        assertEquals(new BigDecimal("100.00"), item.getSignedAmount());
+        assertEquals("Laure", item.getCounterparty());
+    }
+
+    @Test
+    public void topUp_receiver_getsNet() {
+        assertEquals(new BigDecimal("99.50"), row(TransactionType.TOP_UP, false).getSignedAmount());
+    }
+
+    @Test
+    public void withdrawal_sender_paysGrossPlusFee() {
+        assertEquals(new BigDecimal("-100.50"), row(TransactionType.WITHDRAWAL, true).getSignedAmount());
+    }
+}
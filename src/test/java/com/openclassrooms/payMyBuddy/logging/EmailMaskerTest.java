@@ -0,0 +1,42 @@
+package com.openclassrooms.payMyBuddy.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailMaskerTest {
+
+    // Former implementation, kept as the reference output
+    private static String regex(String email) {
+        return (email == null) ? "unknown" : email.replaceAll("(^.).*(@.*$)", "$1***$2");
+    }
+
+    @Test
+    void mask_hidesLocalPartExceptFirstCharacter() {
+        assertEquals("m***@gmail.com", EmailMasker.mask("marine.tissier@gmail.com"));
+        assertEquals("a***@b.io", EmailMasker.mask("a@b.io"));
+        assertEquals("unknown", EmailMasker.mask(null));
+    }
+
+    @Test
+    void mask_sameOutputAsFormerRegex() {
+        List<String> inputs = List.of("", "a", "@", "@b.io", "a@", "ab@", "not-an-email", "x@y@z.com",
+                "@@", "  spaced@mail.com ", "😀@smile.io", "😀x@smile.io",
+                "line\nbreak@mail.com", "a@mail.com\n", "a@mail\r\n.com", "a b@c.d", "é@accent.fr");
+        for (String input : inputs) {
+            assertEquals(regex(input), EmailMasker.mask(input), () -> "input=" + input.replace("\n", "\\n"));
+        }
+    }
+
+    @Test
+    void masked_defersMaskingToToString() {
+        Object masked = EmailMasker.masked("marine@gmail.com");
+
+        assertFalse(masked instanceof String); // SLF4J only calls toString() when the level is enabled
+        assertEquals("m***@gmail.com", masked.toString());
+        assertEquals("User not found: m***@gmail.com", "User not found: " + masked);
+        assertEquals("unknown", String.valueOf(EmailMasker.masked(null)));
+    }
+}
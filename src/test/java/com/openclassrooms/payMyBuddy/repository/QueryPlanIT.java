@@ -0,0 +1,181 @@
+package com.openclassrooms.payMyBuddy.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.NativeQuery;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Real MySQL, schema from the Flyway migrations: EXPLAIN proves the feed and lookup queries read an index range
+// (or a single row) instead of scanning the table, and return rows in index order (no filesort).
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // ANALYZE TABLE commits anyway
+class QueryPlanIT {
+
+    private static final int USERS = 500;
+    private static final int TRANSACTIONS = 20_000;
+    private static final Set<String> INDEX_RANGE = Set.of("ref", "range");
+
+    @Container
+    static MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", mysql::getJdbcUrl);
+        registry.add("spring.datasource.username", mysql::getUsername);
+        registry.add("spring.datasource.password", mysql::getPassword);
+    }
+
+    private static boolean filled;
+
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    // Once for the class (same context, same container). Enough rows for the optimizer to prefer an index
+    // over a scan: ~40 transactions per party, 1 bank account.
+    @BeforeEach
+    void fillTables() {
+        if (filled) return;
+        jdbcTemplate.update("""
+                INSERT INTO users (id, username, email, password, balance, version, is_bank)
+                WITH RECURSIVE seq (n) AS (SELECT 1 UNION ALL SELECT n + 1 FROM seq WHERE n < ?)
+                SELECT n, CONCAT('user', n), CONCAT('user', n, '@plan.test'), 'x', 0, 0, n = 1 FROM seq
+                """, USERS);
+        jdbcTemplate.update("""
+                INSERT INTO transactions (sender_id, receiver_id, description, created_at, type,
+                                          gross_amount, fee_amount, net_amount, idempotency_key)
+                SELECT 2 + n % (? - 1), 2 + (7 * n + 3) % (? - 1), NULL,
+                       TIMESTAMP '2025-01-01 00:00:00' + INTERVAL n MINUTE, 'P2P_TRANSFER',
+                       10.00, 0.05, 10.00, CONCAT('key-', n)
+                FROM (SELECT ROW_NUMBER() OVER () AS n FROM users a CROSS JOIN users b LIMIT ?) seq
+                """, USERS, USERS, TRANSACTIONS);
+        jdbcTemplate.execute("ANALYZE TABLE users, transactions");
+        filled = true;
+    }
+
+    @Test
+    void migrations_areAllApplied() {
+        List<String> versions = jdbcTemplate.queryForList(
+                "SELECT version FROM flyway_schema_history WHERE success = 1 ORDER BY installed_rank", String.class);
+
+        assertEquals(List.of("1", "2", "3", "4", "5", "6"), versions);
+    }
+
+    @Test
+    void feedFirstPage_eachSide_readsItsCompositeIndexInOrder() {
+        assertIndexRange("ix_transactions_sender_created", """
+                SELECT id FROM transactions WHERE sender_id = 42
+                ORDER BY created_at DESC, id DESC LIMIT 20""");
+        assertIndexRange("ix_transactions_receiver_created", """
+                SELECT id FROM transactions WHERE receiver_id = 42
+                ORDER BY created_at DESC, id DESC LIMIT 20""");
+    }
+
+    @Test
+    void feedPageBeforeCursor_eachSide_isARangeOnItsCompositeIndex() {
+        Map<String, Object> sender = assertIndexRange("ix_transactions_sender_created", """
+                SELECT id FROM transactions WHERE sender_id = 42
+                  AND (created_at < '2025-01-08 00:00:00' OR (created_at = '2025-01-08 00:00:00' AND id < 10080))
+                ORDER BY created_at DESC, id DESC LIMIT 20""");
+        Map<String, Object> receiver = assertIndexRange("ix_transactions_receiver_created", """
+                SELECT id FROM transactions WHERE receiver_id = 42
+                  AND (created_at < '2025-01-08 00:00:00' OR (created_at = '2025-01-08 00:00:00' AND id < 10080))
+                ORDER BY created_at DESC, id DESC LIMIT 20""");
+
+        assertEquals("range", sender.get("type"));
+        assertEquals("range", receiver.get("type"));
+    }
+
+    @Test
+    void feedQueries_eachBranch_readsItsCompositeIndexInOrder_thenRowsByPrimaryKey() throws NoSuchMethodException {
+        String firstPage = nativeQuery("findFeedFirstPage", Integer.class, int.class);
+        String before = nativeQuery("findFeedBefore", Integer.class, LocalDateTime.class, Integer.class, int.class);
+
+        for (String sql : List.of(firstPage, before)) {
+            String bound = sql.replace(":userId", "42").replace(":limit", "21")
+                    .replace(":createdAt", "'2025-01-08 00:00:00'").replace(":id", "10080");
+            List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + bound);
+            List<Map<String, Object>> branches = plan.stream()
+                    .filter(row -> "transactions".equals(row.get("table")))
+                    .toList();
+
+            assertEquals(List.of("ix_transactions_sender_created", "ix_transactions_receiver_created"),
+                    branches.stream().map(row -> row.get("key")).toList(), () -> "plan of " + bound + " -> " + plan);
+            for (Map<String, Object> branch : branches) {
+                assertTrue(INDEX_RANGE.contains((String) branch.get("type")), () -> "access type -> " + branch);
+                assertFalse(String.valueOf(branch.get("Extra")).contains("filesort"), () -> "sort -> " + branch);
+            }
+            // the page rows and both parties: one primary key lookup each, driven by the ids of the page
+            for (String alias : List.of("t", "s", "r")) {
+                Map<String, Object> lookup = plan.stream().filter(row -> alias.equals(row.get("table"))).findFirst()
+                        .orElseThrow(() -> new AssertionError("no " + alias + " in " + plan));
+                assertEquals("PRIMARY", lookup.get("key"), () -> "index of " + alias + " -> " + lookup);
+                assertEquals("eq_ref", lookup.get("type"), () -> "access type of " + alias + " -> " + lookup);
+            }
+        }
+    }
+
+    @Test
+    void historyOfOneSide_isServedByTheCompositeIndex() {
+        assertIndexRange("ix_transactions_sender_created",
+                "SELECT * FROM transactions WHERE sender_id = 42 ORDER BY created_at DESC");
+        assertIndexRange("ix_transactions_receiver_created",
+                "SELECT * FROM transactions WHERE receiver_id = 42 ORDER BY created_at DESC");
+    }
+
+    @Test
+    void bankLookup_readsTheIsBankIndexInIdOrder() {
+        assertIndexRange("ix_users_is_bank", "SELECT id FROM users WHERE is_bank = 1 ORDER BY id");
+    }
+
+    @Test
+    void uniqueLookups_readOneRow() {
+        assertSingleRow("email_UNIQUE", "SELECT id FROM users WHERE email = 'user42@plan.test'");
+        assertSingleRow("ux_transactions_idempotency_key",
+                "SELECT * FROM transactions WHERE idempotency_key = 'key-4242'");
+    }
+
+    private Map<String, Object> assertIndexRange(String index, String sql) {
+        Map<String, Object> plan = explain(sql);
+        assertEquals(index, plan.get("key"), () -> "index of " + sql + " -> " + plan);
+        assertTrue(INDEX_RANGE.contains((String) plan.get("type")), () -> "access type of " + sql + " -> " + plan);
+        String extra = String.valueOf(plan.get("Extra"));
+        assertFalse(extra.contains("filesort"), () -> "sort of " + sql + " -> " + plan);
+        return plan;
+    }
+
+    private void assertSingleRow(String index, String sql) {
+        Map<String, Object> plan = explain(sql);
+        assertEquals(index, plan.get("key"), () -> "index of " + sql + " -> " + plan);
+        assertEquals("const", plan.get("type"), () -> "access type of " + sql + " -> " + plan);
+    }
+
+    // SQL of a native repository query, as shipped
+    private static String nativeQuery(String method, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return TransactionRepository.class.getMethod(method, parameterTypes).getAnnotation(NativeQuery.class).value();
+    }
+
+    // One table per statement here: the single row of the traditional EXPLAIN output
+    private Map<String, Object> explain(String sql) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("EXPLAIN " + sql);
+        assertEquals(1, rows.size(), () -> "plan of " + sql + " -> " + rows);
+        return rows.get(0);
+    }
+}
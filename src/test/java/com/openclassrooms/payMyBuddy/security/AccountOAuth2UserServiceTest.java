@@ -0,0 +1,162 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserRequest;
+import org.springframework.security.oauth2.client.userinfo.OAuth2UserService;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.session.MapSession;
+import org.springframework.session.MapSessionRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountOAuth2UserServiceTest {
+
+    @Mock UserService userService;
+    @Mock OAuth2UserService<OAuth2UserRequest, OAuth2User> delegate;
+
+    private OAuth2UserRequest request() {
+        ClientRegistration registration = ClientRegistration.withRegistrationId("facebook")
+                .clientId("id")
+                .authorizationGrantType(AuthorizationGrantType.AUTHORIZATION_CODE)
+                .redirectUri("{baseUrl}/login/oauth2/code/{registrationId}")
+                .authorizationUri("https://example.com/auth")
+                .tokenUri("https://example.com/token")
+                .userInfoUri("https://example.com/me")
+                .userNameAttributeName("id")
+                .build();
+        OAuth2AccessToken token = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "t",
+                Instant.now(), Instant.now().plusSeconds(60));
+        return new OAuth2UserRequest(registration, token);
+    }
+
+    private void givenProvider(Map<String, Object> attrs) {
+        when(delegate.loadUser(any())).thenReturn(
+                new DefaultOAuth2User(List.of(new SimpleGrantedAuthority("OAUTH2_USER")), attrs, "id"));
+    }
+
+    private User account(int id, String email, String name, boolean bank) {
+        User u = new User();
+        u.setId(id);
+        u.setEmail(email);
+        u.setUsername(name);
+        u.setBank(bank);
+        return u;
+    }
+
+    @Test
+    void loadUser_returnsAccountPrincipal_withIdEmailAndName() {
+        givenProvider(Map.of("id", "fb-1", "email", "  Jane@Example.com ", "name", " Jane Doe "));
+        when(userService.getOrCreateOAuth2User("jane@example.com", "Jane Doe"))
+                .thenReturn(account(12, "jane@example.com", "Jane Doe", false));
+
+        OAuth2User loaded = new AccountOAuth2UserService(userService, delegate).loadUser(request());
+
+        AccountPrincipal principal = assertInstanceOf(AccountPrincipal.class, loaded);
+        assertEquals(12, principal.getId());
+        assertEquals("jane@example.com", principal.getName());
+        assertEquals("Jane Doe", principal.getDisplayName());
+        assertEquals(Map.of("email", "jane@example.com"), principal.getAttributes());
+        assertTrue(principal.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_USER")));
+        assertTrue(principal.getAuthorities().contains(new SimpleGrantedAuthority("OAUTH2_USER")));
+    }
+
+    @Test
+    void loadUser_keepsProviderAuthorities_asPlainAuthorities() {
+        Map<String, Object> attrs = Map.of("id", "fb-1", "email", "jane@example.com", "name", "Jane Doe");
+        when(delegate.loadUser(any())).thenReturn(
+                new DefaultOAuth2User(List.of(new OAuth2UserAuthority(attrs)), attrs, "id"));
+        when(userService.getOrCreateOAuth2User("jane@example.com", "Jane Doe"))
+                .thenReturn(account(12, "jane@example.com", "Jane Doe", false));
+
+        OAuth2User loaded = new AccountOAuth2UserService(userService, delegate).loadUser(request());
+
+        // the session keeps the attributes once (in the principal), not again inside an OAuth2UserAuthority
+        assertEquals(Set.of(new SimpleGrantedAuthority("OAUTH2_USER"), new SimpleGrantedAuthority("ROLE_USER")),
+                Set.copyOf(loaded.getAuthorities()));
+        assertTrue(loaded.getAuthorities().stream().noneMatch(OAuth2UserAuthority.class::isInstance));
+    }
+
+    // what a session row holds after an OAuth2 login: serialized like the JDBC store does (Java serialization)
+    @Test
+    void loadUser_sessionCopy_keepsOnlyTheEmail_ofTheProviderProfile() {
+        givenProvider(Map.of("id", "fb-1", "email", "jane@example.com", "name", "Jane Doe",
+                "picture", "https://cdn.example.com/jane.jpg", "birthday", "01/02/1990"));
+        when(userService.getOrCreateOAuth2User("jane@example.com", "Jane Doe"))
+                .thenReturn(account(12, "jane@example.com", "Jane Doe", false));
+        OAuth2User loaded = new AccountOAuth2UserService(userService, delegate).loadUser(request());
+
+        MapSessionRepository sessions = new MapSessionRepository(new HashMap<>());
+        MapSession session = sessions.createSession();
+        session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, new SecurityContextImpl(
+                new OAuth2AuthenticationToken(loaded, loaded.getAuthorities(), "facebook")));
+        sessions.save(session);
+
+        Object stored = sessions.findById(session.getId())
+                .getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        byte[] row = new SerializingConverter().convert(stored);
+        String text = new String(row, StandardCharsets.ISO_8859_1);
+        assertFalse(text.contains("cdn.example.com"));
+        assertFalse(text.contains("01/02/1990"));
+        assertFalse(text.contains("fb-1"));
+
+        SecurityContext restored = (SecurityContext) new DeserializingConverter().convert(row);
+        AccountPrincipal principal = assertInstanceOf(AccountPrincipal.class, restored.getAuthentication().getPrincipal());
+        assertEquals(12, principal.getId());
+        assertEquals("Jane Doe", principal.getDisplayName());
+        assertEquals(Map.of("email", "jane@example.com"), principal.getAttributes());
+    }
+
+    @Test
+    void loadUser_withoutEmail_isRefused() {
+        givenProvider(Map.of("id", "fb-1", "name", "Jane"));
+
+        assertThrows(OAuth2AuthenticationException.class,
+                () -> new AccountOAuth2UserService(userService, delegate).loadUser(request()));
+        verifyNoInteractions(userService);
+    }
+
+    @Test
+    void loadUser_bankAccount_isRefused() {
+        givenProvider(Map.of("id", "fb-1", "email", "bank@gmail.com"));
+        when(userService.getOrCreateOAuth2User("bank@gmail.com", "bank@gmail.com"))
+                .thenReturn(account(1, "bank@gmail.com", "Bank", true));
+
+        assertThrows(OAuth2AuthenticationException.class,
+                () -> new AccountOAuth2UserService(userService, delegate).loadUser(request()));
+    }
+
+    @Test
+    void displayName_fallsBackToFirstLastName_thenEmail() {
+        assertEquals("Jane Doe", AccountOAuth2UserService.displayName(Map.of("first_name", "Jane", "last_name", "Doe"), "j@x.io"));
+        assertEquals("Jane", AccountOAuth2UserService.displayName(Map.of("first_name", " Jane "), "j@x.io"));
+        assertEquals("j@x.io", AccountOAuth2UserService.displayName(Map.of("name", "  "), "j@x.io"));
+    }
+}
@@ -0,0 +1,211 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import com.openclassrooms.payMyBuddy.controller.LoginController;
+import com.openclassrooms.payMyBuddy.dto.ReconciliationReport;
+import com.openclassrooms.payMyBuddy.model.TransactionType;
+import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import com.openclassrooms.payMyBuddy.service.BalanceReconciliationService;
+import com.openclassrooms.payMyBuddy.service.BankAccountEndpoint;
+import com.openclassrooms.payMyBuddy.service.BankAccountResolver;
+import com.openclassrooms.payMyBuddy.service.CustomUserDetailsService;
+import com.openclassrooms.payMyBuddy.service.ReconciliationEndpoint;
+import com.openclassrooms.payMyBuddy.service.TransactionService;
+import com.openclassrooms.payMyBuddy.service.UserService;
+import com.openclassrooms.payMyBuddy.service.WalletRetryEndpoint;
+import com.openclassrooms.payMyBuddy.service.WalletRetryExecutor;
+import com.openclassrooms.payMyBuddy.service.WalletRetryProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.endpoint.EndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.endpoint.web.WebEndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.health.HealthEndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementContextAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Actuator admin hooks behind the browser chain: health is public, every other endpoint needs ROLE_ADMIN
+@WebMvcTest(LoginController.class)
+@AutoConfigureMockMvc
+@ImportAutoConfiguration({EndpointAutoConfiguration.class, WebEndpointAutoConfiguration.class,
+        HealthEndpointAutoConfiguration.class, ManagementContextAutoConfiguration.class})
+@Import({SpringSecurityConfig.class, AuthenticationConfig.class, CustomUserDetailsService.class,
+        BankAccountEndpoint.class, ReconciliationEndpoint.class, UserDetailsCacheEndpoint.class, LoginRateLimiterEndpoint.class,
+        WalletRetryEndpoint.class, WalletRetryExecutor.class, WalletRetryProperties.class})
+@TestPropertySource(properties = "paymybuddy.security.admin-emails= Ops@Example.com , ")
+class ActuatorSecurityIT {
+
+    @Autowired MockMvc mvc;
+    @Autowired PasswordEncoder passwordEncoder;
+    @Autowired WalletRetryExecutor walletRetryExecutor;
+
+    @MockBean UserRepository userRepository;
+    @MockBean UserService userService;
+    @MockBean TransactionService transactionService;
+    @MockBean BankAccountResolver bankAccountResolver;
+    @MockBean BalanceReconciliationService reconciliationService;
+    @MockBean UserDetailsCache userDetailsCache;
+    @SpyBean LoginRateLimiter loginRateLimiter;
+
+    @BeforeEach
+    void accounts() {
+        when(userRepository.findByEmail("ops@example.com")).thenReturn(Optional.of(account(1, "ops@example.com")));
+        when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(account(7, "user@example.com")));
+    }
+
+    private User account(int id, String email) {
+        User u = new User();
+        u.setId(id);
+        u.setEmail(email);
+        u.setUsername(email);
+        u.setPassword(passwordEncoder.encode("secret"));
+        return u;
+    }
+
+    // real password login: ROLE_ADMIN comes from paymybuddy.security.admin-emails, not from the test
+    private MockHttpSession login(String email) throws Exception {
+        return (MockHttpSession) mvc.perform(formLogin("/login").user(email).password("secret"))
+                .andExpect(redirectedUrl("/transfer"))
+                .andReturn().getRequest().getSession(false);
+    }
+
+    @Test
+    void health_isPublic() throws Exception {
+        mvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void bankAccountRefresh_customer_isForbidden() throws Exception {
+        mvc.perform(post("/actuator/bankaccount").with(user("user@example.com").roles("USER")).with(csrf()))
+                .andExpect(status().isForbidden());
+        verify(bankAccountResolver, never()).refresh();
+    }
+
+    @Test
+    void bankAccountRefresh_anonymous_redirectsToLogin() throws Exception {
+        mvc.perform(post("/actuator/bankaccount").with(csrf()))
+                .andExpect(status().isFound())
+                .andExpect(redirectedUrlPattern("**/login"));
+        verify(bankAccountResolver, never()).refresh();
+    }
+
+    @Test
+    void bankAccountRefresh_listedAdmin_rereadsTheBankId() throws Exception {
+        when(bankAccountResolver.refresh()).thenReturn(1);
+
+        mvc.perform(post("/actuator/bankaccount").session(login("ops@example.com")).with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.bankId").value(1));
+        verify(bankAccountResolver).refresh();
+    }
+
+    @Test
+    void bankAccountRefresh_loggedInCustomer_isForbidden() throws Exception {
+        mvc.perform(post("/actuator/bankaccount").session(login("user@example.com")).with(csrf()))
+                .andExpect(status().isForbidden());
+        verify(bankAccountResolver, never()).refresh();
+    }
+
+    // a full parallel scan of transactions: never on a customer request
+    @Test
+    void reconciliation_customer_isForbidden() throws Exception {
+        mvc.perform(post("/actuator/reconciliation").with(user("user@example.com").roles("USER")).with(csrf()))
+                .andExpect(status().isForbidden());
+        verifyNoInteractions(reconciliationService);
+    }
+
+    @Test
+    void reconciliation_listedAdmin_runsAndReturnsTheReport() throws Exception {
+        when(reconciliationService.reconcile())
+                .thenReturn(new ReconciliationReport(10, 10, 1, 2, 0, 0, List.of(), Duration.ofMillis(5)));
+
+        mvc.perform(post("/actuator/reconciliation").session(login("ops@example.com")).with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionsScanned").value(10))
+                .andExpect(jsonPath("$.clean").value(true));
+        verify(reconciliationService).reconcile();
+    }
+
+    @Test
+    void userCacheClear_customer_isForbidden() throws Exception {
+        mvc.perform(delete("/actuator/usercache").with(user("user@example.com").roles("USER")).with(csrf()))
+                .andExpect(status().isForbidden());
+        verify(userDetailsCache, never()).clear();
+    }
+
+    @Test
+    void userCacheClear_listedAdmin_emptiesTheCache() throws Exception {
+        mvc.perform(delete("/actuator/usercache").session(login("ops@example.com")).with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(0));
+        verify(userDetailsCache).clear();
+    }
+
+    // resetting every bucket would lift the credential-stuffing throttle
+    @Test
+    void rateLimitReset_customer_isForbidden() throws Exception {
+        mvc.perform(delete("/actuator/ratelimit").with(user("user@example.com").roles("USER")).with(csrf()))
+                .andExpect(status().isForbidden());
+        verify(loginRateLimiter, never()).clear();
+    }
+
+    @Test
+    void rateLimitReset_listedAdmin_resetsEveryBucket() throws Exception {
+        MockHttpSession admin = login("ops@example.com"); // the login itself filled a few buckets
+
+        mvc.perform(delete("/actuator/ratelimit").session(admin).with(csrf()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.trackedKeys").value(0));
+        verify(loginRateLimiter).clear();
+    }
+
+    @Test
+    void walletRetry_listedAdmin_seesConflictsPerOperationAndHotAccounts() throws Exception {
+        boolean[] conflicted = {false};
+        walletRetryExecutor.execute(TransactionType.P2P_TRANSFER, () -> {
+            if (!conflicted[0]) {
+                conflicted[0] = true;
+                throw new ObjectOptimisticLockingFailureException("User", 2);
+            }
+            return "ok";
+        }, 2, 9);
+
+        mvc.perform(get("/actuator/walletretry").session(login("ops@example.com")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.operations.P2P_TRANSFER.conflicts").value(1))
+                .andExpect(jsonPath("$.operations.P2P_TRANSFER.exhausted").value(0))
+                .andExpect(jsonPath("$.operations.TOP_UP.conflicts").value(0))
+                .andExpect(jsonPath("$.trackedAccounts").value(2))
+                .andExpect(jsonPath("$.hotAccounts['2']").value(1));
+    }
+
+    @Test
+    void walletRetry_customer_isForbidden() throws Exception {
+        mvc.perform(get("/actuator/walletretry").with(user("user@example.com").roles("USER")))
+                .andExpect(status().isForbidden());
+    }
+}
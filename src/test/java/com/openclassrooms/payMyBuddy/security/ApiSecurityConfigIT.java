@@ -0,0 +1,100 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.payMyBuddy.controller.LoginController;
+import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.service.CustomUserDetailsService;
+import com.openclassrooms.payMyBuddy.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// /api/** chain: token exchange, bearer authentication, never a session
+@WebMvcTest(LoginController.class)
+@AutoConfigureMockMvc
+@Import({SpringSecurityConfig.class, ApiSecurityConfig.class, AuthenticationConfig.class, UserDetailsCache.class,
+        ApiTokenService.class, ApiTokenProperties.class})
+class ApiSecurityConfigIT {
+
+    @Autowired MockMvc mvc;
+    @Autowired PasswordEncoder passwordEncoder;
+
+    @MockBean CustomUserDetailsService customUserDetailsService;
+    @MockBean UserService userService;
+
+    @BeforeEach
+    void account() {
+        User u = new User();
+        u.setId(7);
+        u.setEmail("user@example.com");
+        u.setUsername("User");
+        u.setPassword(passwordEncoder.encode("secret"));
+        when(customUserDetailsService.loadUserByUsername("user@example.com")).thenAnswer(inv -> AccountPrincipal.formLogin(u));
+        when(customUserDetailsService.loadUserByUsername("nobody@example.com"))
+                .thenThrow(new UsernameNotFoundException("User not found : nobody@example.com"));
+    }
+
+    private String token() throws Exception {
+        MvcResult result = mvc.perform(post("/api/auth/token").param("username", "user@example.com").param("password", "secret"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-store"))
+                .andExpect(jsonPath("$.token_type").value("Bearer"))
+                .andExpect(jsonPath("$.expires_in").value(900))
+                .andReturn();
+        assertNull(result.getRequest().getSession(false)); // stateless
+        JsonNode body = new ObjectMapper().readTree(result.getResponse().getContentAsString());
+        return body.get("access_token").asText();
+    }
+
+    @Test
+    void tokenExchange_withoutCsrf_thenBearerCall_isAuthenticated_withoutSession() throws Exception {
+        String token = token();
+
+        // authenticated (no handler in this slice => 404, not 401), no session created
+        MvcResult result = mvc.perform(get("/api/v1/anything").header("Authorization", "Bearer " + token))
+                .andExpect(status().isNotFound())
+                .andReturn();
+        assertNull(result.getRequest().getSession(false));
+        assertNull(result.getResponse().getCookie("SESSION"));
+        verify(customUserDetailsService, times(1)).loadUserByUsername(anyString()); // only at the exchange
+    }
+
+    @Test
+    void wrongPassword_orUnknownUser_is401() throws Exception {
+        mvc.perform(post("/api/auth/token").param("username", "user@example.com").param("password", "wrong"))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(post("/api/auth/token").param("username", "nobody@example.com").param("password", "x"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void apiWithoutToken_orWithBadToken_is401_notALoginRedirect() throws Exception {
+        mvc.perform(get("/api/v1/anything"))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(get("/api/v1/anything").header("Authorization", "Bearer abc.def.ghi"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void browserChain_isUnchanged() throws Exception {
+        mvc.perform(get("/transfer"))
+                .andExpect(status().isFound())
+                .andExpect(redirectedUrlPattern("**/login"));
+    }
+}
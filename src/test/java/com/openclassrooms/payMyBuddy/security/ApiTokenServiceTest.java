@@ -0,0 +1,142 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import com.openclassrooms.payMyBuddy.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiTokenServiceTest {
+
+    private static final String SECRET_1 = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+    private static final String SECRET_2 = Base64.getEncoder().encodeToString("fedcba9876543210fedcba9876543210".getBytes());
+
+    private final Instant start = Instant.parse("2025-01-01T10:00:00Z");
+
+    private ApiTokenProperties properties(String active, Map<String, String> keys) {
+        ApiTokenProperties p = new ApiTokenProperties();
+        p.setActiveKey(active);
+        p.getKeys().putAll(keys);
+        p.setTtl(Duration.ofMinutes(15));
+        return p;
+    }
+
+    private ApiTokenService service(ApiTokenProperties properties, Instant now) {
+        return new ApiTokenService(properties, Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    private AccountPrincipal principal() {
+        User u = new User();
+        u.setId(42);
+        u.setEmail("jane@example.com");
+        u.setUsername("Jane \"JD\" Doe");
+        u.setPassword("hash");
+        return AccountPrincipal.formLogin(u);
+    }
+
+    @Test
+    void issuedToken_verifies_toSameAccount_withoutPassword() {
+        ApiTokenService service = service(properties("k1", Map.of("k1", SECRET_1)), start);
+
+        String token = service.issue(principal());
+        AccountPrincipal verified = service.verify(token);
+
+        assertEquals(3, token.split("\\.").length);
+        String header = new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))), StandardCharsets.UTF_8);
+        assertEquals("{\"alg\":\"HS256\",\"typ\":\"JWT\",\"kid\":\"k1\"}", header);
+        assertEquals(42, verified.getId());
+        assertEquals("jane@example.com", verified.getEmail());
+        assertEquals("Jane \"JD\" Doe", verified.getDisplayName());
+        assertNull(verified.getPassword());
+        assertTrue(verified.getAuthorities().contains(AccountPrincipal.ROLE_USER));
+    }
+
+    @Test
+    void expiredToken_isRefused() {
+        ApiTokenProperties properties = properties("k1", Map.of("k1", SECRET_1));
+        String token = service(properties, start).issue(principal());
+
+        assertDoesNotThrow(() -> service(properties, start.plusSeconds(899)).verify(token));
+        BadCredentialsException ex = assertThrows(BadCredentialsException.class,
+                () -> service(properties, start.plusSeconds(900)).verify(token));
+        assertEquals("Token expired", ex.getMessage());
+    }
+
+    @Test
+    void tamperedPayload_orSignature_isRefused() {
+        ApiTokenService service = service(properties("k1", Map.of("k1", SECRET_1)), start);
+        String token = service.issue(principal());
+        String[] parts = token.split("\\.");
+
+        String otherPayload = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                "{\"sub\":\"1\",\"email\":\"admin@example.com\",\"exp\":9999999999}".getBytes(StandardCharsets.UTF_8));
+        assertThrows(BadCredentialsException.class, () -> service.verify(parts[0] + "." + otherPayload + "." + parts[2]));
+        assertThrows(BadCredentialsException.class, () -> service.verify(parts[0] + "." + parts[1] + ".AAAA"));
+        assertThrows(BadCredentialsException.class, () -> service.verify(parts[0] + "." + parts[1] + ".%%%"));
+        assertThrows(BadCredentialsException.class, () -> service.verify("not-a-token"));
+    }
+
+    @Test
+    void rotation_oldKeyStillAccepted_unknownKeyRefused() {
+        String oldToken = service(properties("k1", Map.of("k1", SECRET_1)), start).issue(principal());
+
+        ApiTokenService rotated = service(properties("k2", Map.of("k1", SECRET_1, "k2", SECRET_2)), start);
+        assertEquals(42, rotated.verify(oldToken).getId());
+        assertTrue(rotated.issue(principal()).startsWith(Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"alg\":\"HS256\",\"typ\":\"JWT\",\"kid\":\"k2\"}".getBytes(StandardCharsets.UTF_8))));
+
+        ApiTokenService withoutK1 = service(properties("k2", Map.of("k2", SECRET_2)), start);
+        BadCredentialsException ex = assertThrows(BadCredentialsException.class, () -> withoutK1.verify(oldToken));
+        assertEquals("Unknown signing key", ex.getMessage());
+    }
+
+    @Test
+    void sameKeyId_differentSecret_isRefused() {
+        String token = service(properties("k1", Map.of("k1", SECRET_1)), start).issue(principal());
+
+        ApiTokenService other = service(properties("k1", Map.of("k1", SECRET_2)), start);
+        assertThrows(BadCredentialsException.class, () -> other.verify(token));
+    }
+
+    @Test
+    void noKeyConfigured_generatesLocalKey() {
+        ApiTokenService service = service(new ApiTokenProperties(), start);
+
+        assertEquals(42, service.verify(service.issue(principal())).getId());
+        assertThrows(BadCredentialsException.class,
+                () -> service(new ApiTokenProperties(), start).verify(service.issue(principal())));
+    }
+
+    @Test
+    void invalidConfiguration_isRefused() {
+        assertThrows(IllegalStateException.class, () -> service(properties("k9", Map.of("k1", SECRET_1)), start));
+        assertThrows(IllegalStateException.class, () -> service(properties("k1", Map.of("k1", "c2hvcnQ=")), start));
+        assertThrows(IllegalStateException.class, () -> service(properties("k1", Map.of("k1", "not base64!")), start));
+        assertThrows(IllegalStateException.class, () -> service(properties("a\"b", Map.of("a\"b", SECRET_1)), start));
+    }
+
+    @Test
+    void tokenSignedOnVirtualThread_verifiesOnPlatformThread_andBack() throws Exception {
+        ApiTokenService service = service(properties("k1", Map.of("k1", SECRET_1)), start);
+        String[] fromVirtual = new String[1];
+        AccountPrincipal[] verifiedOnVirtual = new AccountPrincipal[1];
+        String fromPlatform = service.issue(principal());
+
+        Thread.ofVirtual().start(() -> {
+            fromVirtual[0] = service.issue(principal());
+            verifiedOnVirtual[0] = service.verify(fromPlatform);
+        }).join();
+
+        assertEquals(fromPlatform, fromVirtual[0]); // same claims, same clock: same signature
+        assertEquals(42, service.verify(fromVirtual[0]).getId());
+        assertEquals(42, verifiedOnVirtual[0].getId());
+    }
+}
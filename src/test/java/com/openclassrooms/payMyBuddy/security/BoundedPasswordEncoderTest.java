@@ -0,0 +1,167 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.service.CustomUserDetailsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class BoundedPasswordEncoderTest {
+
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void close() {
+        if (encoder != null) encoder.close();
+    }
+
+    // Delegate that blocks until released: lets the test fill the pool and the queue deterministically
+    private static PasswordEncoder blocking(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hash:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+    }
+
+    @Test
+    void encodeAndMatches_delegateToBCrypt() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 2, 4, Duration.ofSeconds(5));
+
+        String hash = encoder.encode("secret");
+
+        assertTrue(hash.startsWith("$2a$04$"));
+        assertTrue(encoder.matches("secret", hash));
+        assertFalse(encoder.matches("wrong", hash));
+    }
+
+    @Test
+    void poolAndQueueFull_failsFast_withoutWaiting() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(blocking(started, release), 1, 1, Duration.ofSeconds(10));
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            callers.submit(() -> encoder.encode("running"));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            callers.submit(() -> encoder.encode("queued"));
+            while (encoder.getQueued() < 1) {
+                Thread.onSpinWait();
+            }
+
+            long start = System.nanoTime();
+            assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("rejected"));
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "rejection must not wait");
+            assertEquals(1, encoder.getRejected());
+        } finally {
+            release.countDown();
+            callers.shutdown();
+            assertTrue(callers.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void hashingSlowerThanMaxWait_timesOut() {
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(blocking(new CountDownLatch(1), release), 1, 1, Duration.ofMillis(50));
+        try {
+            PasswordHashingBusyException ex = assertThrows(PasswordHashingBusyException.class,
+                    () -> encoder.matches("secret", "hash:secret"));
+            assertEquals("Too many requests right now, please try again in a few seconds.", ex.getMessage());
+            assertEquals(1, encoder.getTimedOut());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void invalidPoolSize_isRefused() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 0, 1, Duration.ofSeconds(1)));
+    }
+
+    private AccountPrincipal principal(String hash) {
+        User u = new User();
+        u.setId(3);
+        u.setEmail("user@example.com");
+        u.setUsername("user");
+        u.setPassword(hash);
+        return AccountPrincipal.formLogin(u);
+    }
+
+    private DaoAuthenticationProvider provider(CustomUserDetailsService userDetailsService) {
+        return new AuthenticationConfig().authenticationProvider(userDetailsService, encoder,
+                new UserDetailsCache(10, Duration.ofMinutes(5)));
+    }
+
+    @Test
+    void login_withWeakerHash_reEncodesWithConfiguredStrength() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(5), 1, 4, Duration.ofSeconds(5));
+        String oldHash = new BCryptPasswordEncoder(4).encode("secret");
+        CustomUserDetailsService uds = mock(CustomUserDetailsService.class);
+        when(uds.loadUserByUsername("user@example.com")).thenReturn(principal(oldHash));
+        when(uds.updatePassword(any(), anyString()))
+                .thenAnswer(inv -> ((AccountPrincipal) inv.getArgument(0)).withPassword(inv.getArgument(1)));
+
+        Authentication result = provider(uds).authenticate(
+                new UsernamePasswordAuthenticationToken("user@example.com", "secret"));
+
+        assertEquals(3, ((AccountPrincipal) result.getPrincipal()).getId());
+        verify(uds).updatePassword(any(), startsWith("$2a$05$"));
+    }
+
+    @Test
+    void login_withCurrentStrength_isNotReEncoded() {
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 4, Duration.ofSeconds(5));
+        CustomUserDetailsService uds = mock(CustomUserDetailsService.class);
+        when(uds.loadUserByUsername("user@example.com")).thenReturn(principal(encoder.encode("secret")));
+
+        provider(uds).authenticate(new UsernamePasswordAuthenticationToken("user@example.com", "secret"));
+
+        verify(uds, never()).updatePassword(any(), anyString());
+    }
+
+    @Test
+    void login_whilePoolSaturated_isAuthenticationServiceException() {
+        CountDownLatch release = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(blocking(new CountDownLatch(1), release), 1, 1, Duration.ofMillis(50));
+        CustomUserDetailsService uds = mock(CustomUserDetailsService.class);
+        when(uds.loadUserByUsername("user@example.com")).thenReturn(principal("hash:secret"));
+        try {
+            AuthenticationServiceException ex = assertThrows(AuthenticationServiceException.class,
+                    () -> provider(uds).authenticate(new UsernamePasswordAuthenticationToken("user@example.com", "secret")));
+            assertInstanceOf(PasswordHashingBusyException.class, ex.getCause());
+        } finally {
+            release.countDown();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.openclassrooms.payMyBuddy.security.LoginRateLimiter.Decision.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    private LoginRateLimiter limiter(int ipCapacity, int accountCapacity, int maxEntries, int stripes) {
+        return new LoginRateLimiter(ipCapacity, accountCapacity, Duration.ofMinutes(1), maxEntries, stripes, now::get);
+    }
+
+    private void advance(Duration d) {
+        now.addAndGet(d.toNanos());
+    }
+
+    @Test
+    void accountBucket_emptiesAfterCapacity_thenRefillsOverTime() {
+        LoginRateLimiter limiter = limiter(100, 3, 1000, 4);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(ALLOWED, limiter.tryAcquire("10.0.0." + i, "victim@example.com"));
+        }
+        assertEquals(ACCOUNT_LIMITED, limiter.tryAcquire("10.0.0.9", "  VICTIM@example.com "));
+        assertEquals(ALLOWED, limiter.tryAcquire("10.0.0.9", "other@example.com"));
+
+        advance(Duration.ofSeconds(20)); // 3 tokens per minute: one back every 20 s
+        assertEquals(ALLOWED, limiter.tryAcquire("10.0.0.9", "victim@example.com"));
+        assertEquals(ACCOUNT_LIMITED, limiter.tryAcquire("10.0.0.9", "victim@example.com"));
+
+        assertEquals(5, limiter.getAllowed());
+        assertEquals(2, limiter.getAccountRejected());
+        assertEquals(20, limiter.retryAfterSeconds(ACCOUNT_LIMITED));
+    }
+
+    @Test
+    void ipBucket_limitsEveryAccount_andDoesNotConsumeAccountTokens() {
+        LoginRateLimiter limiter = limiter(2, 5, 1000, 4);
+
+        assertEquals(ALLOWED, limiter.tryAcquire("10.0.0.1", "a@example.com"));
+        assertEquals(ALLOWED, limiter.tryAcquire("10.0.0.1", "b@example.com"));
+        for (int i = 0; i < 10; i++) {
+            assertEquals(IP_LIMITED, limiter.tryAcquire("10.0.0.1", "c@example.com"));
+        }
+        assertEquals(10, limiter.getIpRejected());
+
+        // c@ was never charged by the refused requests: its 5 attempts are intact from another address
+        for (int i = 0; i < 5; i++) {
+            assertEquals(ALLOWED, limiter.tryAcquire("10.0.0." + (10 + i), "c@example.com"));
+        }
+    }
+
+    @Test
+    void idleBuckets_expire_andSizeIsBounded() {
+        LoginRateLimiter limiter = limiter(5, 5, 8, 2); // 4 keys per stripe
+
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire("10.0.0." + i, null);
+        }
+        assertTrue(limiter.size() <= 8);
+        assertTrue(limiter.getEvictions() >= 42);
+
+        advance(Duration.ofMinutes(1)); // every bucket full again -> dropped on the next access of its stripe
+        limiter.tryAcquire("10.0.1.1", null);
+        limiter.tryAcquire("10.0.1.2", null);
+        limiter.tryAcquire("10.0.1.3", null);
+        limiter.tryAcquire("10.0.1.4", null);
+        assertTrue(limiter.size() <= 4);
+
+        limiter.clear();
+        assertEquals(0, limiter.size());
+    }
+
+    @Test
+    void invalidSettings_areRefused() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new LoginRateLimiter(0, 1, Duration.ofMinutes(1), 10, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new LoginRateLimiter(1, 1, Duration.ZERO, 10, 1));
+    }
+
+    private MockHttpServletRequest post(String path, String param, String email) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setServletPath(path);
+        request.setRemoteAddr("10.0.0.1");
+        request.setParameter(param, email);
+        return request;
+    }
+
+    @Test
+    void filter_over_limit_returns429_withoutCallingTheChain() throws Exception {
+        LoginRateLimitFilter filter = new LoginRateLimitFilter(limiter(100, 1, 1000, 4));
+
+        MockFilterChain first = new MockFilterChain();
+        filter.doFilter(post("/login", "username", "user@example.com"), new MockHttpServletResponse(), first);
+        assertNotNull(first.getRequest());
+
+        MockFilterChain second = new MockFilterChain();
+        MockHttpServletResponse refused = new MockHttpServletResponse();
+        filter.doFilter(post("/login", "username", "USER@example.com"), refused, second);
+
+        assertNull(second.getRequest()); // authentication filter never reached
+        assertEquals(429, refused.getStatus());
+        assertEquals("60", refused.getHeader("Retry-After"));
+        assertEquals("Too many attempts, please try again later.", refused.getContentAsString());
+    }
+
+    @Test
+    void filter_registration_usesEmailParameter() throws Exception {
+        LoginRateLimitFilter filter = new LoginRateLimitFilter(limiter(100, 1, 1000, 4));
+
+        filter.doFilter(post("/register", "email", "new@example.com"), new MockHttpServletResponse(), new MockFilterChain());
+        MockHttpServletResponse refused = new MockHttpServletResponse();
+        filter.doFilter(post("/register", "email", "new@example.com"), refused, new MockFilterChain());
+
+        assertEquals(429, refused.getStatus());
+    }
+
+    @Test
+    void filter_apiTokenEndpoint_usesUsernameParameter() throws Exception {
+        LoginRateLimitFilter filter = new LoginRateLimitFilter(limiter(100, 1, 1000, 4));
+
+        filter.doFilter(post("/api/auth/token", "username", "api@example.com"), new MockHttpServletResponse(), new MockFilterChain());
+        MockHttpServletResponse refused = new MockHttpServletResponse();
+        filter.doFilter(post("/api/auth/token", "username", "api@example.com"), refused, new MockFilterChain());
+
+        assertEquals(429, refused.getStatus());
+    }
+
+    @Test
+    void filter_ignoresOtherRequests() throws Exception {
+        LoginRateLimiter limiter = limiter(1, 1, 1000, 4);
+        LoginRateLimitFilter filter = new LoginRateLimitFilter(limiter);
+
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletRequest get = new MockHttpServletRequest("GET", "/login");
+            get.setServletPath("/login");
+            MockFilterChain chain = new MockFilterChain();
+            filter.doFilter(get, new MockHttpServletResponse(), chain);
+            assertNotNull(chain.getRequest());
+
+            MockFilterChain transfer = new MockFilterChain();
+            filter.doFilter(post("/transfer", "email", "x@example.com"), new MockHttpServletResponse(), transfer);
+            assertNotNull(transfer.getRequest());
+        }
+        assertEquals(0, limiter.getAllowed() + limiter.getIpRejected() + limiter.getAccountRejected());
+    }
+}
@@ -0,0 +1,68 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SessionExpiryCleanerTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+
+    @SuppressWarnings("unchecked")
+    private SessionExpiryCleaner cleaner(int batchSize) {
+        when(transactionTemplate.execute(any())).thenAnswer(inv ->
+                ((TransactionCallback<Object>) inv.getArgument(0)).doInTransaction(null));
+        return new SessionExpiryCleaner(jdbcTemplate, transactionTemplate, batchSize, () -> NOW);
+    }
+
+    @Test
+    void deletesInBatches_untilAPartialBatch() {
+        SessionExpiryCleaner cleaner = cleaner(2);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(NOW), eq(2)))
+                .thenReturn(List.of("a", "b"), List.of("c", "d"), List.of("e"));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .thenReturn(new int[]{1, 1}, new int[]{1, Statement.SUCCESS_NO_INFO}, new int[]{1});
+
+        assertEquals(5, cleaner.cleanUpExpiredSessions());
+
+        verify(transactionTemplate, times(3)).execute(any()); // one short transaction per batch
+        verify(jdbcTemplate, times(3)).batchUpdate(contains("EXPIRY_TIME < ?"), anyList());
+        assertEquals(5, cleaner.getDeleted());
+    }
+
+    @Test
+    void sessionRefreshedOrDeletedElsewhere_isNotCounted() {
+        SessionExpiryCleaner cleaner = cleaner(10);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(NOW), eq(10)))
+                .thenReturn(List.of("a", "b", "c"));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1, 0, 0});
+
+        assertEquals(1, cleaner.cleanUpExpiredSessions());
+    }
+
+    @Test
+    void nothingExpired_doesNoDelete() {
+        SessionExpiryCleaner cleaner = cleaner(10);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq(NOW), eq(10))).thenReturn(List.of());
+
+        assertEquals(0, cleaner.cleanUpExpiredSessions());
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void invalidBatchSize_isRefused() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SessionExpiryCleaner(jdbcTemplate, transactionTemplate, 0));
+    }
+}
@@ -0,0 +1,126 @@
+package com.openclassrooms.payMyBuddy.security;
+
+import com.openclassrooms.payMyBuddy.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserDetailsCacheTest {
+
+    private AccountPrincipal principal(int id, String email, String password) {
+        User u = new User();
+        u.setId(id);
+        u.setEmail(email);
+        u.setUsername("user" + id);
+        u.setPassword(password);
+        return AccountPrincipal.formLogin(u);
+    }
+
+    @Test
+    void putThenGet_returnsCopy_andCountsHitsAndMisses() {
+        UserDetailsCache cache = new UserDetailsCache(10, Duration.ofMinutes(5));
+        AccountPrincipal p = principal(1, "user@example.com", "hash");
+
+        assertNull(cache.getUserFromCache("user@example.com"));
+        cache.putUserInCache(p);
+        p.eraseCredentials(); // done by the ProviderManager after authentication
+
+        AccountPrincipal cached = (AccountPrincipal) cache.getUserFromCache("  USER@Example.com ");
+        assertEquals(1, cached.getId());
+        assertEquals("hash", cached.getPassword()); // the stored copy kept the hash
+        assertNotSame(cached, cache.getUserFromCache("user@example.com"));
+
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void bounded_oldestEntriesEvictedFirst() {
+        UserDetailsCache cache = new UserDetailsCache(2, Duration.ofMinutes(5));
+
+        cache.putUserInCache(principal(1, "a@x.io", "h"));
+        cache.putUserInCache(principal(2, "b@x.io", "h"));
+        cache.putUserInCache(principal(3, "c@x.io", "h"));
+
+        assertEquals(2, cache.size());
+        assertNull(cache.getUserFromCache("a@x.io"));
+        assertNotNull(cache.getUserFromCache("c@x.io"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void expiredEntries_areNotReturned() throws InterruptedException {
+        UserDetailsCache cache = new UserDetailsCache(10, Duration.ofMillis(20));
+        cache.putUserInCache(principal(1, "a@x.io", "h"));
+
+        Thread.sleep(40);
+
+        assertNull(cache.getUserFromCache("a@x.io"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void remove_andClear_invalidate() {
+        UserDetailsCache cache = new UserDetailsCache(10, Duration.ofMinutes(5));
+        cache.putUserInCache(principal(1, "a@x.io", "h"));
+        cache.putUserInCache(principal(2, "b@x.io", "h"));
+
+        cache.removeUserFromCache("A@x.io");
+        assertNull(cache.getUserFromCache("a@x.io"));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getInvalidations());
+    }
+
+    @Test
+    void erasedOrForeignPrincipals_areNotCached() {
+        UserDetailsCache cache = new UserDetailsCache(10, Duration.ofMinutes(5));
+        AccountPrincipal erased = principal(1, "a@x.io", "h");
+        erased.eraseCredentials();
+
+        cache.putUserInCache(erased);
+        cache.putUserInCache(org.springframework.security.core.userdetails.User
+                .withUsername("b@x.io").password("h").roles("USER").build());
+
+        assertEquals(0, cache.size());
+    }
+
+    // Wired like AuthenticationConfig: the second login does not load the user again
+    @Test
+    @SuppressWarnings("deprecation") // NoOpPasswordEncoder: plain text is enough here
+    void daoProvider_secondLoginServedFromCache_wrongPasswordStillRejected() {
+        AtomicInteger loads = new AtomicInteger();
+        UserDetailsService uds = email -> {
+            loads.incrementAndGet();
+            return principal(1, "a@x.io", "secret");
+        };
+        UserDetailsCache cache = new UserDetailsCache(10, Duration.ofMinutes(5));
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(uds);
+        provider.setPasswordEncoder(NoOpPasswordEncoder.getInstance());
+        provider.setUserCache(cache);
+        ProviderManager manager = new ProviderManager(provider); // erases credentials after authentication
+
+        Authentication first = manager.authenticate(new UsernamePasswordAuthenticationToken("a@x.io", "secret"));
+        Authentication second = manager.authenticate(new UsernamePasswordAuthenticationToken("a@x.io", "secret"));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, ((AccountPrincipal) second.getPrincipal()).getId());
+        assertNull(((AccountPrincipal) first.getPrincipal()).getPassword());
+
+        // wrong password: the provider retries with a fresh load before refusing
+        assertThrows(BadCredentialsException.class,
+                () -> manager.authenticate(new UsernamePasswordAuthenticationToken("a@x.io", "wrong")));
+        assertEquals(2, loads.get());
+    }
+}
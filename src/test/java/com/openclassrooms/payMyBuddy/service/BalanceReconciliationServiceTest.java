@@ -0,0 +1,209 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.dto.ReconciliationReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceReconciliationServiceTest {
+
+    @Mock JdbcTemplate jdbc;
+    @Mock LedgerService ledger;
+    @Mock PlatformTransactionManager transactionManager;
+
+    // id, sender, receiver, type, gross, fee, net (cents)
+    private record Row(long id, int sender, int receiver, String type, long gross, long fee, long net) {
+    }
+
+    private static final List<Row> TRANSACTIONS = List.of(
+            new Row(1, 100, 1, "TOP_UP", 10000, 50, 9950),          // user 1: +99.50
+            new Row(2, 1, 2, "P2P_TRANSFER", 1000, 5, 1000),        // user 1: -10.05, user 2: +10.00
+            new Row(3, 2, 100, "WITHDRAWAL", 500, 3, 500),          // user 2: -5.03
+            new Row(4, 100, 3, "TOP_UP", 2000, 10, 1990));          // user 3: +19.90
+
+    private BalanceReconciliationService service(int partitionSize) {
+        return new BalanceReconciliationService(jdbc, ledger, transactionManager, 2, partitionSize, 10);
+    }
+
+    // Every transaction posted to the ledger, no opening snapshot (database created with the ledger)
+    private void givenTransactions() throws SQLException {
+        givenTransactions(0L);
+        givenOpeningBalances();
+    }
+
+    private void givenTransactions(long openingLastTransactionId) throws SQLException {
+        when(jdbc.queryForObject("SELECT COALESCE(MIN(id), 0) FROM transactions", Long.class)).thenReturn(1L);
+        when(jdbc.queryForObject("SELECT COALESCE(MAX(id), 0) FROM transactions", Long.class)).thenReturn(4L);
+        when(jdbc.queryForObject(BalanceReconciliationService.OPENING_LAST_TRANSACTION_SQL, Long.class, 4L))
+                .thenReturn(openingLastTransactionId);
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            long from = inv.getArgument(2);
+            long to = inv.getArgument(3);
+            for (Row r : TRANSACTIONS) {
+                if (r.id > from && r.id <= to) {
+                    ResultSet rs = mock(ResultSet.class);
+                    when(rs.getInt(1)).thenReturn(r.sender);
+                    when(rs.getInt(2)).thenReturn(r.receiver);
+                    when(rs.getString(3)).thenReturn(r.type);
+                    when(rs.getLong(4)).thenReturn(r.gross);
+                    when(rs.getLong(5)).thenReturn(r.fee);
+                    when(rs.getLong(6)).thenReturn(r.net);
+                    handler.processRow(rs);
+                }
+            }
+            return null;
+        }).when(jdbc).query(eq(BalanceReconciliationService.PARTITION_SQL), any(RowCallbackHandler.class), anyLong(), anyLong());
+    }
+
+    private void givenOpeningBalances(long... userIdAndCents) {
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (int i = 0; i < userIdAndCents.length; i += 2) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getInt(1)).thenReturn((int) userIdAndCents[i]);
+                when(rs.getLong(2)).thenReturn(userIdAndCents[i + 1]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbc).query(eq(BalanceReconciliationService.OPENING_BALANCES_SQL), any(RowCallbackHandler.class));
+    }
+
+    private void givenBalances(long... userIdAndCents) {
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (int i = 0; i < userIdAndCents.length; i += 2) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getInt(1)).thenReturn((int) userIdAndCents[i]);
+                when(rs.getLong(2)).thenReturn(userIdAndCents[i + 1]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbc).query(eq(BalanceReconciliationService.BALANCES_SQL), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void accumulate_followsWalletFeeRules() {
+        IntLongHashMap sums = new IntLongHashMap(8);
+        for (Row r : TRANSACTIONS) {
+            BalanceReconciliationService.accumulate(sums, r.sender, r.receiver, r.type, r.gross, r.fee, r.net);
+        }
+
+        assertEquals(8945, sums.get(1));
+        assertEquals(497, sums.get(2));
+        assertEquals(1990, sums.get(3));
+        assertFalse(sums.containsKey(100)); // the bank is not a wallet
+    }
+
+    @Test
+    void accumulate_unknownType_throws() {
+        assertThrows(IllegalStateException.class,
+                () -> BalanceReconciliationService.accumulate(new IntLongHashMap(2), 1, 2, "REFUND", 1, 0, 1));
+    }
+
+    @Test
+    void reconcile_consistentBalances_clean_andScansEveryPartition() throws SQLException {
+        givenTransactions();
+        givenBalances(1, 8945, 2, 497, 3, 1990, 4, 0);
+
+        ReconciliationReport report = service(1).reconcile();
+
+        assertTrue(report.isClean());
+        assertEquals(4, report.getTransactionsScanned());
+        assertEquals(4, report.getPartitions()); // (0,4] split down to one id per partition
+        assertEquals(4, report.getUsersChecked());
+        assertEquals(4, report.getMaxTransactionId());
+        verifyNoInteractions(transactionManager); // nothing to re-check
+    }
+
+    @Test
+    void reconcile_openingBalances_areTheStartingPoint_andOlderTransactionsAreNotReplayed() throws SQLException {
+        // ids 1-2 predate the ledger: already in the opening snapshots (user 1: 64.67, user 2: 10.00)
+        givenTransactions(2L);
+        givenOpeningBalances(1, 6467, 2, 1000);
+        givenBalances(1, 6467, 2, 497, 3, 1990);
+
+        ReconciliationReport report = service(100).reconcile();
+
+        assertTrue(report.isClean());
+        assertEquals(2, report.getTransactionsScanned()); // ids 3 and 4 only
+        assertEquals(3, report.getUsersChecked());
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void reconcile_openingBalance_drift_recheckedFromTheOpening() throws SQLException {
+        givenTransactions(2L);
+        givenOpeningBalances(1, 6467, 2, 1000);
+        givenBalances(1, 7000, 2, 497, 3, 1990);
+        when(jdbc.queryForObject(BalanceReconciliationService.EXPECTED_FOR_USER_SQL, Long.class, 1, 1, 1, 1, 1, 2L)).thenReturn(6467L);
+        when(jdbc.queryForObject("SELECT ROUND(balance * 100) FROM users WHERE id = ?", Long.class, 1)).thenReturn(7000L);
+        when(ledger.walletBalance(1)).thenReturn(new BigDecimal("64.67"));
+
+        ReconciliationReport report = service(100).reconcile();
+
+        assertEquals(1, report.getDiscrepancies().size());
+        ReconciliationReport.Discrepancy d = report.getDiscrepancies().get(0);
+        assertEquals(1, d.getUserId());
+        assertEquals(new BigDecimal("64.67"), d.getExpected());
+        assertEquals(new BigDecimal("5.33"), d.getDifference());
+    }
+
+    @Test
+    void reconcile_wrongBalance_recheckedAndReported() throws SQLException {
+        givenTransactions();
+        givenBalances(1, 8945, 2, 9999, 3, 1990);
+        when(jdbc.queryForObject(BalanceReconciliationService.EXPECTED_FOR_USER_SQL, Long.class, 2, 2, 2, 2, 2, 0L)).thenReturn(497L);
+        when(jdbc.queryForObject("SELECT ROUND(balance * 100) FROM users WHERE id = ?", Long.class, 2)).thenReturn(9999L);
+        when(ledger.walletBalance(2)).thenReturn(new BigDecimal("4.97"));
+
+        ReconciliationReport report = service(100).reconcile();
+
+        assertFalse(report.isClean());
+        assertEquals(1, report.getPartitions());
+        assertEquals(1, report.getSuspects());
+        assertEquals(1, report.getDiscrepancies().size());
+        ReconciliationReport.Discrepancy d = report.getDiscrepancies().get(0);
+        assertEquals(2, d.getUserId());
+        assertEquals(new BigDecimal("4.97"), d.getExpected());
+        assertEquals(new BigDecimal("99.99"), d.getActual());
+        assertEquals(new BigDecimal("95.02"), d.getDifference());
+        assertEquals(new BigDecimal("4.97"), d.getLedger()); // the ledger agrees with the transactions
+    }
+
+    @Test
+    void reconcile_suspectThatSettledMeanwhile_notReported() throws SQLException {
+        givenTransactions();
+        // user 3 received a top-up after the scan bounds were fixed: the re-check sees both sides
+        givenBalances(1, 8945, 2, 497, 3, 2985);
+        when(jdbc.queryForObject(BalanceReconciliationService.EXPECTED_FOR_USER_SQL, Long.class, 3, 3, 3, 3, 3, 0L)).thenReturn(2985L);
+        when(jdbc.queryForObject("SELECT ROUND(balance * 100) FROM users WHERE id = ?", Long.class, 3)).thenReturn(2985L);
+
+        ReconciliationReport report = service(2).reconcile();
+
+        assertEquals(1, report.getSuspects());
+        assertEquals(1, report.getRechecked());
+        assertTrue(report.getDiscrepancies().isEmpty());
+        assertTrue(report.isClean());
+        verifyNoInteractions(ledger);
+    }
+
+    @Test
+    void invalidSettings_throw() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new BalanceReconciliationService(jdbc, ledger, transactionManager, 0, 10, 10));
+    }
+}
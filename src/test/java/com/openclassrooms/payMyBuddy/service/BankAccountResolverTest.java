@@ -0,0 +1,83 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BankAccountResolverTest {
+
+    @Mock UserRepository userRepository;
+
+    @Test
+    void resolveOnStartup_cachesBankId() {
+        when(userRepository.findBankIds()).thenReturn(List.of(100));
+        BankAccountResolver resolver = new BankAccountResolver(userRepository, true);
+
+        resolver.resolveOnStartup();
+
+        assertTrue(resolver.isResolved());
+        assertEquals(100, resolver.getBankId());
+        assertTrue(resolver.isBank(100));
+        assertFalse(resolver.isBank(1));
+        assertFalse(resolver.isBank(null));
+        verify(userRepository, times(1)).findBankIds();
+    }
+
+    @Test
+    void resolveOnStartup_noBank_failFast_throws() {
+        when(userRepository.findBankIds()).thenReturn(List.of());
+        BankAccountResolver resolver = new BankAccountResolver(userRepository, true);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, resolver::resolveOnStartup);
+        assertEquals("Bank user not found (is_bank = true)", ex.getMessage());
+        assertFalse(resolver.isResolved());
+    }
+
+    @Test
+    void resolveOnStartup_noBank_failFastDisabled_resolvesLater() {
+        when(userRepository.findBankIds()).thenReturn(List.of(), List.of(7));
+        BankAccountResolver resolver = new BankAccountResolver(userRepository, false);
+
+        resolver.resolveOnStartup();
+        assertFalse(resolver.isResolved());
+
+        assertEquals(7, resolver.getBankId());
+        assertTrue(resolver.isResolved());
+    }
+
+    @Test
+    void refresh_picksUpNewBankId() {
+        when(userRepository.findBankIds()).thenReturn(List.of(100), List.of(200));
+        BankAccountResolver resolver = new BankAccountResolver(userRepository, true);
+        resolver.resolveOnStartup();
+
+        assertEquals(200, resolver.refresh());
+        assertEquals(200, resolver.getBankId());
+    }
+
+    @Test
+    void refresh_severalBanks_usesFirstId() {
+        when(userRepository.findBankIds()).thenReturn(List.of(3, 9));
+        BankAccountResolver resolver = new BankAccountResolver(userRepository, true);
+
+        assertEquals(3, resolver.refresh());
+    }
+
+    @Test
+    void healthIndicator_reflectsResolution() {
+        when(userRepository.findBankIds()).thenReturn(List.of());
+        BankAccountResolver resolver = new BankAccountResolver(userRepository, false);
+        BankAccountHealthIndicator health = new BankAccountHealthIndicator(resolver);
+        resolver.resolveOnStartup();
+
+        assertEquals("DOWN", health.health().getStatus().getCode());
+    }
+}
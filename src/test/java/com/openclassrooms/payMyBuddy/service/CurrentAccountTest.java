@@ -0,0 +1,68 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import com.openclassrooms.payMyBuddy.security.AccountPrincipal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CurrentAccountTest {
+
+    @Mock CurrentUserService currentUserService;
+    @Mock UserRepository userRepository;
+
+    private final Authentication auth = new TestingAuthenticationToken("me@example.com", "pwd");
+
+    private CurrentAccount account() {
+        return new CurrentAccount(currentUserService, userRepository);
+    }
+
+    private User me() {
+        User u = new User();
+        u.setId(7);
+        u.setEmail("me@example.com");
+        return u;
+    }
+
+    @Test
+    void otherPrincipal_emailFromCurrentUserService_idReadByEmail() {
+        when(currentUserService.requireEmail(auth)).thenReturn("me@example.com");
+        when(userRepository.findIdByEmail("me@example.com")).thenReturn(Optional.of(7));
+
+        assertEquals("me@example.com", account().email(auth));
+        assertEquals(7, account().id(auth));
+
+        verify(userRepository, never()).findByEmail(any());
+        verify(userRepository, never()).findById(any());
+    }
+
+    @Test
+    void userNotFound_throws() {
+        when(currentUserService.requireEmail(auth)).thenReturn("me@example.com");
+        when(userRepository.findIdByEmail("me@example.com")).thenReturn(Optional.empty());
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () -> account().id(auth));
+        assertEquals("User not found: me@example.com", ex.getMessage());
+    }
+
+    @Test
+    void accountPrincipal_idAndEmailWithoutQuery() {
+        User me = me();
+        me.setUsername("me");
+        Authentication principalAuth = new TestingAuthenticationToken(AccountPrincipal.formLogin(me), null, "ROLE_USER");
+
+        assertEquals(7, account().id(principalAuth));
+        assertEquals("me@example.com", account().email(principalAuth));
+        verifyNoInteractions(userRepository, currentUserService);
+    }
+}
@@ -1,5 +1,7 @@
 package com.openclassrooms.payMyBuddy.service;
 
+import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.security.AccountPrincipal;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -77,4 +79,18 @@ class CurrentUserServiceTest {
                 () -> service.requireEmail(token));
         assertEquals("Cannot find user email.", ex.getMessage());
     }
-}
\ No newline at end of file
+
+    // AccountPrincipal (form login or OAuth2): email read from the principal
+    @Test
+    void requireEmail_accountPrincipal_ok() {
+        User user = new User();
+        user.setId(3);
+        user.setUsername("Jane");
+        user.setEmail("jane.doe@example.com");
+        AccountPrincipal principal = AccountPrincipal.oauth2(user, List.of());
+        OAuth2AuthenticationToken token =
+                new OAuth2AuthenticationToken(principal, principal.getAuthorities(), "facebook");
+
+        assertEquals("jane.doe@example.com", service.requireEmail(token));
+    }
+}
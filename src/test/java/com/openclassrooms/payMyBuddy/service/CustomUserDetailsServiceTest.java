@@ -2,6 +2,9 @@ package com.openclassrooms.payMyBuddy.service;
 
 import com.openclassrooms.payMyBuddy.model.User;
 import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import com.openclassrooms.payMyBuddy.security.AccountPrincipal;
+import com.openclassrooms.payMyBuddy.security.AdminAccounts;
+import com.openclassrooms.payMyBuddy.security.UserDetailsCache;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -22,6 +25,12 @@ public class CustomUserDetailsServiceTest {
     @Mock
     UserRepository userRepository;
 
+    @Mock
+    UserDetailsCache userDetailsCache;
+
+    @Mock
+    AdminAccounts adminAccounts;
+
     @InjectMocks
     CustomUserDetailsService service;
 
@@ -88,4 +97,89 @@ public class CustomUserDetailsServiceTest {
         assertEquals("User not found : normalized@example.com", ex.getMessage());
         verify(userRepository).findByEmail("normalized@example.com");
     }
-}
\ No newline at end of file
+
+    @Test
+    void loadUserByUsername_returnsAccountPrincipal_withIdAndDisplayName() {
+        User u = new User();
+        u.setId(42);
+        u.setUsername("Marine");
+        u.setEmail("user@example.com");
+        u.setPassword("hash");
+
+        when(userRepository.findByEmail("user@example.com")).thenReturn(Optional.of(u));
+
+        AccountPrincipal principal = assertInstanceOf(AccountPrincipal.class, service.loadUserByUsername("user@example.com"));
+
+        assertEquals(42, principal.getId());
+        assertEquals("user@example.com", principal.getEmail());
+        assertEquals("user@example.com", principal.getName());
+        assertEquals("Marine", principal.getDisplayName());
+
+        principal.eraseCredentials(); // done by the ProviderManager once authenticated
+        assertNull(principal.getPassword());
+    }
+
+    @Test
+    void loadUserByUsername_adminAccount_addsRoleAdmin() {
+        User u = new User();
+        u.setId(3);
+        u.setEmail("ops@example.com");
+        u.setPassword("hash");
+
+        when(userRepository.findByEmail("ops@example.com")).thenReturn(Optional.of(u));
+        when(adminAccounts.isAdmin("ops@example.com")).thenReturn(true);
+
+        UserDetails details = service.loadUserByUsername("ops@example.com");
+
+        assertEquals(2, details.getAuthorities().size());
+        assertTrue(details.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_USER")));
+        assertTrue(details.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_ADMIN")));
+        assertEquals("hash", details.getPassword());
+    }
+
+    @Test
+    void loadUserByUsername_oauth2OnlyAccount_throwsUsernameNotFound() {
+        User u = new User();
+        u.setId(5);
+        u.setEmail("fb@example.com");
+        u.setPassword(UserService.OAUTH2_ONLY_PASSWORD);
+
+        when(userRepository.findByEmail("fb@example.com")).thenReturn(Optional.of(u));
+
+        UsernameNotFoundException ex = assertThrows(
+                UsernameNotFoundException.class,
+                () -> service.loadUserByUsername("fb@example.com"));
+
+        assertEquals("User not found : fb@example.com", ex.getMessage());
+    }
+
+    @Test
+    void updatePassword_storesNewHash_evictsCache_andReturnsUpdatedPrincipal() {
+        User u = new User();
+        u.setId(7);
+        u.setUsername("Marine");
+        u.setEmail("user@example.com");
+        u.setPassword("$2a$04$old");
+        AccountPrincipal principal = AccountPrincipal.formLogin(u);
+
+        when(userRepository.updatePassword(7, "$2a$12$new")).thenReturn(1);
+
+        AccountPrincipal updated = assertInstanceOf(AccountPrincipal.class,
+                service.updatePassword(principal, "$2a$12$new"));
+
+        assertEquals(7, updated.getId());
+        assertEquals("user@example.com", updated.getEmail());
+        assertEquals("$2a$12$new", updated.getPassword());
+        verify(userRepository).updatePassword(7, "$2a$12$new");
+        verify(userDetailsCache).removeUserFromCache("user@example.com");
+    }
+
+    @Test
+    void updatePassword_otherUserDetails_isLeftUnchanged() {
+        UserDetails other = org.springframework.security.core.userdetails.User
+                .withUsername("user@example.com").password("hash").roles("USER").build();
+
+        assertSame(other, service.updatePassword(other, "$2a$12$new"));
+        verifyNoInteractions(userRepository, userDetailsCache);
+    }
+}
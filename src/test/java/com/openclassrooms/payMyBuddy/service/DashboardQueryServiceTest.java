@@ -0,0 +1,98 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.dto.AccountSummaryDTO;
+import com.openclassrooms.payMyBuddy.dto.ConnectionDTO;
+import com.openclassrooms.payMyBuddy.dto.DashboardDTO;
+import com.openclassrooms.payMyBuddy.dto.FeedItemDTO;
+import com.openclassrooms.payMyBuddy.dto.FeedPage;
+import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DashboardQueryServiceTest {
+
+    @Mock UserRepository userRepository;
+    @Mock TransactionService transactionService;
+
+    private final AccountSummaryDTO me = new AccountSummaryDTO(1, "User", "user@example.com", new BigDecimal("10.00"));
+    private final List<ConnectionDTO> friends = List.of(new ConnectionDTO(2, "Clara", "clara@gmail.com"));
+    private final FeedPage<FeedItemDTO> feed = new FeedPage<>(List.of(), null);
+
+    private void stubReads() {
+        when(userRepository.findAccountSummaryById(1)).thenReturn(Optional.of(me));
+        when(userRepository.findConnectionsOf(1)).thenReturn(friends);
+        when(transactionService.getFeedPage(1, null, TransactionService.DEFAULT_FEED_PAGE_SIZE)).thenReturn(feed);
+    }
+
+    @Test
+    void load_sequential_oneQueryPerDataSet() {
+        DashboardQueryService service = new DashboardQueryService(userRepository, transactionService, false);
+        stubReads();
+
+        DashboardDTO dashboard = service.load(1);
+
+        assertSame(me, dashboard.getAccount());
+        assertEquals(friends, dashboard.getFriends());
+        assertSame(feed, dashboard.getFeed());
+        assertNotNull(dashboard.getTimings().getTotal());
+        verify(userRepository).findAccountSummaryById(1);
+        verify(userRepository).findConnectionsOf(1);
+        verify(transactionService).getFeedPage(1, null, TransactionService.DEFAULT_FEED_PAGE_SIZE);
+        verifyNoMoreInteractions(userRepository, transactionService);
+    }
+
+    @Test
+    void load_parallel_returnsSameView() {
+        DashboardQueryService service = new DashboardQueryService(userRepository, transactionService, true);
+        stubReads();
+
+        DashboardDTO dashboard = service.load(1);
+
+        assertSame(me, dashboard.getAccount());
+        assertEquals(friends, dashboard.getFriends());
+        assertSame(feed, dashboard.getFeed());
+        service.shutdown();
+    }
+
+    @Test
+    void load_parallel_rethrowsReadFailure() {
+        DashboardQueryService service = new DashboardQueryService(userRepository, transactionService, true);
+        when(userRepository.findAccountSummaryById(1)).thenReturn(Optional.of(me));
+        when(userRepository.findConnectionsOf(1)).thenThrow(new IllegalStateException("db down"));
+        when(transactionService.getFeedPage(1, null, TransactionService.DEFAULT_FEED_PAGE_SIZE)).thenReturn(feed);
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> service.load(1));
+
+        assertEquals("db down", ex.getMessage());
+        service.shutdown();
+    }
+
+    @Test
+    void load_userNotFound_throws_andSkipsOtherReads() {
+        DashboardQueryService service = new DashboardQueryService(userRepository, transactionService, false);
+        when(userRepository.findAccountSummaryById(1)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> service.load(1));
+
+        verify(userRepository, never()).findConnectionsOf(any());
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void load_nullUserId_throws() {
+        DashboardQueryService service = new DashboardQueryService(userRepository, transactionService, false);
+
+        assertThrows(IllegalArgumentException.class, () -> service.load(null));
+        verifyNoInteractions(userRepository, transactionService);
+    }
+}
@@ -0,0 +1,84 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.model.Transaction;
+import com.openclassrooms.payMyBuddy.model.TransactionType;
+import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.service.IdempotencyKeyStore.Submitted;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyKeyStoreTest {
+
+    private Submitted tx(int id) {
+        return new Submitted(id, TransactionType.TOP_UP, new BigDecimal("10.00"), BigDecimal.ZERO,
+                new BigDecimal("10.00"), null);
+    }
+
+    @Test
+    void putThenGet_returnsSubmitted() {
+        IdempotencyKeyStore store = new IdempotencyKeyStore(10, Duration.ofMinutes(5));
+        Submitted t = tx(1);
+
+        store.put("1:abc", t);
+
+        assertSame(t, store.get("1:abc"));
+        assertNull(store.get("2:abc"));
+    }
+
+    @Test
+    void submitted_keepsReceiverId_andReplaysWithoutAssociations() {
+        User receiver = new User();
+        receiver.setId(2);
+        Transaction t = new Transaction();
+        t.setId(9);
+        t.setType(TransactionType.P2P_TRANSFER);
+        t.setGrossAmount(new BigDecimal("10.05"));
+        t.setFeeAmount(new BigDecimal("0.05"));
+        t.setNetAmount(new BigDecimal("10.00"));
+        t.setReceiver(receiver);
+
+        Submitted submitted = Submitted.of(t);
+        Transaction replay = submitted.toTransaction("1:abc");
+
+        assertEquals(2, submitted.receiverId());
+        assertEquals(9, replay.getId());
+        assertEquals(new BigDecimal("10.05"), replay.getGrossAmount());
+        assertEquals("1:abc", replay.getIdempotencyKey());
+        assertNull(replay.getReceiver());
+        assertNull(replay.getSender());
+    }
+
+    @Test
+    void bounded_oldestEntriesEvictedFirst() {
+        IdempotencyKeyStore store = new IdempotencyKeyStore(3, Duration.ofMinutes(5));
+
+        for (int i = 1; i <= 5; i++) {
+            store.put("k" + i, tx(i));
+        }
+
+        assertEquals(3, store.size());
+        assertNull(store.get("k1"));
+        assertNull(store.get("k2"));
+        assertEquals(5, store.get("k5").transactionId());
+    }
+
+    @Test
+    void expiredEntries_areDropped() throws InterruptedException {
+        IdempotencyKeyStore store = new IdempotencyKeyStore(10, Duration.ofMillis(20));
+        store.put("k", tx(1));
+
+        Thread.sleep(40);
+
+        assertNull(store.get("k"));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void invalidSize_throws() {
+        assertThrows(IllegalArgumentException.class, () -> new IdempotencyKeyStore(0, Duration.ofMinutes(5)));
+    }
+}
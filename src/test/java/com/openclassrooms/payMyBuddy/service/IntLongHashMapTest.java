@@ -0,0 +1,62 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntLongHashMapTest {
+
+    @Test
+    void addTo_accumulatesPerKey() {
+        IntLongHashMap map = new IntLongHashMap(4);
+
+        map.addTo(1, 100);
+        map.addTo(1, -30);
+        map.addTo(2, 5);
+
+        assertEquals(70, map.get(1));
+        assertEquals(5, map.get(2));
+        assertEquals(0, map.get(3));
+        assertFalse(map.containsKey(3));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void growsBeyondInitialCapacity_withoutLosingEntries() {
+        IntLongHashMap map = new IntLongHashMap(1);
+        for (int id = 1; id <= 100_000; id++) {
+            map.addTo(id, id);
+        }
+
+        assertEquals(100_000, map.size());
+        for (int id = 1; id <= 100_000; id += 997) {
+            assertEquals(id, map.get(id));
+        }
+    }
+
+    @Test
+    void mergeFrom_addsValues() {
+        IntLongHashMap a = new IntLongHashMap(8);
+        a.addTo(1, 10);
+        a.addTo(2, 20);
+        IntLongHashMap b = new IntLongHashMap(8);
+        b.addTo(2, -5);
+        b.addTo(3, 7);
+
+        a.mergeFrom(b);
+
+        Map<Integer, Long> content = new HashMap<>();
+        a.forEach(content::put);
+        assertEquals(Map.of(1, 10L, 2, 15L, 3, 7L), content);
+    }
+
+    @Test
+    void overflow_throws() {
+        IntLongHashMap map = new IntLongHashMap(2);
+        map.addTo(1, Long.MAX_VALUE);
+        assertThrows(ArithmeticException.class, () -> map.addTo(1, 1));
+    }
+}
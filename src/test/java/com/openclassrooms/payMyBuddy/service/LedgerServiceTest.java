@@ -0,0 +1,146 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.model.LedgerAccount;
+import com.openclassrooms.payMyBuddy.model.LedgerBalanceSnapshot;
+import com.openclassrooms.payMyBuddy.model.LedgerPosting;
+import com.openclassrooms.payMyBuddy.model.PostingDirection;
+import com.openclassrooms.payMyBuddy.model.Transaction;
+import com.openclassrooms.payMyBuddy.model.TransactionType;
+import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.repository.LedgerPostingRepository;
+import com.openclassrooms.payMyBuddy.repository.LedgerSnapshotRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerServiceTest {
+
+    @Mock LedgerPostingRepository postingRepo;
+    @Mock LedgerSnapshotRepository snapshotRepo;
+
+    @InjectMocks LedgerService ledger;
+
+    private User user(int id) {
+        User u = new User();
+        u.setId(id);
+        return u;
+    }
+
+    private Transaction tx(TransactionType type, User sender, User receiver, String gross, String fee, String net) {
+        Transaction t = new Transaction();
+        t.setId(50);
+        t.setType(type);
+        t.setSender(sender);
+        t.setReceiver(receiver);
+        t.setGrossAmount(new BigDecimal(gross));
+        t.setFeeAmount(new BigDecimal(fee));
+        t.setNetAmount(new BigDecimal(net));
+        return t;
+    }
+
+    private static BigDecimal sum(List<LedgerPosting> legs) {
+        return legs.stream().map(LedgerPosting::signedAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Test
+    void legsOf_topUp_bankDebit_walletCredit_feeCredit() {
+        List<LedgerPosting> legs = ledger.legsOf(tx(TransactionType.TOP_UP, user(100), user(1), "100.00", "0.50", "99.50"));
+
+        assertEquals(3, legs.size());
+        assertEquals(LedgerAccount.BANK_CLEARING, legs.get(0).getAccount());
+        assertEquals(PostingDirection.DEBIT, legs.get(0).getDirection());
+        assertEquals(new BigDecimal("100.00"), legs.get(0).getAmount());
+        assertEquals(LedgerAccount.WALLET, legs.get(1).getAccount());
+        assertEquals(1, legs.get(1).getUserId());
+        assertEquals(new BigDecimal("99.50"), legs.get(1).signedAmount());
+        assertEquals(LedgerAccount.FEE_REVENUE, legs.get(2).getAccount());
+        assertEquals(new BigDecimal("0.50"), legs.get(2).signedAmount());
+        assertEquals(0, sum(legs).signum());
+        assertTrue(legs.stream().allMatch(l -> l.getTransactionId() == 50));
+    }
+
+    @Test
+    void legsOf_p2p_senderPaysGrossPlusFee() {
+        List<LedgerPosting> legs = ledger.legsOf(tx(TransactionType.P2P_TRANSFER, user(1), user(2), "10.00", "0.05", "10.00"));
+
+        assertEquals(new BigDecimal("-10.05"), legs.get(0).signedAmount());
+        assertEquals(1, legs.get(0).getUserId());
+        assertEquals(new BigDecimal("10.00"), legs.get(1).signedAmount());
+        assertEquals(2, legs.get(1).getUserId());
+        assertEquals(LedgerAccount.FEE_REVENUE, legs.get(2).getAccount());
+        assertEquals(0, sum(legs).signum());
+    }
+
+    @Test
+    void legsOf_withdrawal_walletDebit_bankCredit() {
+        List<LedgerPosting> legs = ledger.legsOf(tx(TransactionType.WITHDRAWAL, user(1), user(100), "20.00", "0.10", "20.00"));
+
+        assertEquals(LedgerAccount.WALLET, legs.get(0).getAccount());
+        assertEquals(new BigDecimal("-20.10"), legs.get(0).signedAmount());
+        assertEquals(LedgerAccount.BANK_CLEARING, legs.get(1).getAccount());
+        assertNull(legs.get(1).getUserId());
+        assertEquals(0, sum(legs).signum());
+    }
+
+    @Test
+    void legsOf_zeroFee_noFeeLeg() {
+        List<LedgerPosting> legs = ledger.legsOf(tx(TransactionType.P2P_TRANSFER, user(1), user(2), "0.01", "0.00", "0.01"));
+
+        assertEquals(2, legs.size());
+        assertTrue(legs.stream().noneMatch(l -> l.getAccount() == LedgerAccount.FEE_REVENUE));
+    }
+
+    @Test
+    void legsOf_unsavedTransaction_throws() {
+        Transaction t = tx(TransactionType.TOP_UP, user(100), user(1), "1.00", "0.01", "0.99");
+        t.setId(null);
+        assertThrows(IllegalArgumentException.class, () -> ledger.legsOf(t));
+    }
+
+    @Test
+    void record_savesBalancedLegs() {
+        when(postingRepo.saveAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+
+        List<LedgerPosting> saved = ledger.record(tx(TransactionType.TOP_UP, user(100), user(1), "10.00", "0.05", "9.95"));
+
+        assertEquals(3, saved.size());
+        verify(postingRepo).saveAll(anyList());
+    }
+
+    @Test
+    void record_unbalanced_throws_andSavesNothing() {
+        // net + fee != gross: inconsistent amounts must never reach the ledger
+        Transaction bad = tx(TransactionType.TOP_UP, user(100), user(1), "10.00", "0.05", "9.99");
+
+        assertThrows(IllegalStateException.class, () -> ledger.record(bad));
+        verifyNoInteractions(postingRepo);
+    }
+
+    @Test
+    void walletBalance_snapshotPlusDelta() {
+        LedgerBalanceSnapshot snap = LedgerBalanceSnapshot.builder()
+                .userId(1).balance(new BigDecimal("40.00")).lastPostingId(120L).build();
+        when(snapshotRepo.findFirstByUserIdOrderByLastPostingIdDesc(1)).thenReturn(Optional.of(snap));
+        when(postingRepo.sumWalletAfter(1, 120L)).thenReturn(new BigDecimal("-10.05"));
+
+        assertEquals(new BigDecimal("29.95"), ledger.walletBalance(1));
+    }
+
+    @Test
+    void walletBalance_noSnapshot_allPostings() {
+        when(snapshotRepo.findFirstByUserIdOrderByLastPostingIdDesc(2)).thenReturn(Optional.empty());
+        when(postingRepo.sumWalletAfter(2, 0L)).thenReturn(new BigDecimal("5.00"));
+
+        assertEquals(new BigDecimal("5.00"), ledger.walletBalance(2));
+    }
+}
@@ -0,0 +1,71 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.model.LedgerBalanceSnapshot;
+import com.openclassrooms.payMyBuddy.repository.LedgerPostingRepository;
+import com.openclassrooms.payMyBuddy.repository.LedgerSnapshotRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerSnapshotServiceTest {
+
+    @Mock LedgerPostingRepository postingRepo;
+    @Mock LedgerSnapshotRepository snapshotRepo;
+
+    @InjectMocks LedgerSnapshotService service;
+
+    @Test
+    void snapshotUpTo_addsDeltaToPreviousSnapshot() {
+        when(snapshotRepo.findMaxLastPostingId()).thenReturn(100L);
+        when(postingRepo.sumWalletsBetween(100L, 180L)).thenReturn(List.of(
+                new Object[]{1, new BigDecimal("-10.05")},
+                new Object[]{2, new BigDecimal("10.00")}));
+        when(snapshotRepo.findLatestFor(List.of(1, 2))).thenReturn(List.of(
+                LedgerBalanceSnapshot.builder().userId(1).balance(new BigDecimal("50.00")).lastPostingId(100L).build()));
+
+        int written = service.snapshotUpTo(180L);
+
+        assertEquals(2, written);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LedgerBalanceSnapshot>> captor = ArgumentCaptor.forClass(List.class);
+        verify(snapshotRepo).saveAll(captor.capture());
+        List<LedgerBalanceSnapshot> saved = captor.getValue();
+        assertEquals(new BigDecimal("39.95"), saved.get(0).getBalance());
+        assertEquals(new BigDecimal("10.00"), saved.get(1).getBalance()); // first snapshot of user 2
+        assertTrue(saved.stream().allMatch(s -> s.getLastPostingId() == 180L));
+    }
+
+    @Test
+    void snapshotUpTo_nothingNew_writesNothing() {
+        when(snapshotRepo.findMaxLastPostingId()).thenReturn(180L);
+
+        assertEquals(0, service.snapshotUpTo(180L));
+        verifyNoInteractions(postingRepo);
+        verify(snapshotRepo, never()).saveAll(any());
+    }
+
+    @Test
+    void takeSnapshots_usesWatermarkOfPreviousRun() {
+        when(postingRepo.findMaxId()).thenReturn(50L, 90L);
+        when(snapshotRepo.findMaxLastPostingId()).thenReturn(0L);
+        when(postingRepo.sumWalletsBetween(0L, 50L)).thenReturn(List.of());
+
+        // first run only records the watermark: postings up to 50 may still be committing
+        assertEquals(0, service.takeSnapshots());
+        verify(postingRepo, never()).sumWalletsBetween(anyLong(), anyLong());
+
+        // second run snapshots up to the watermark seen by the first one
+        service.takeSnapshots();
+        verify(postingRepo).sumWalletsBetween(0L, 50L);
+    }
+}
@@ -1,6 +1,10 @@
 package com.openclassrooms.payMyBuddy.service;
 
+import com.openclassrooms.payMyBuddy.dto.FeedCursor;
+import com.openclassrooms.payMyBuddy.dto.FeedItemDTO;
+import com.openclassrooms.payMyBuddy.dto.FeedPage;
 import com.openclassrooms.payMyBuddy.model.Transaction;
+import com.openclassrooms.payMyBuddy.model.TransactionType;
 import com.openclassrooms.payMyBuddy.repository.TransactionRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,6 +12,8 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -130,32 +136,81 @@ public class TransactionServiceTest {
         verifyNoInteractions(transactionRepository);
     }
 
+    private FeedItemDTO feedItem(Integer id, LocalDateTime createdAt) {
+        return new FeedItemDTO(id, createdAt, TransactionType.P2P_TRANSFER, null,
+                "Clara", "clara@gmail.com", new BigDecimal("-10.05"));
+    }
+
     @Test
-    public void getFeedForUser_validId_returnsTransactionsFromRepository() {
-        Transaction t1 = new Transaction();
-        t1.setId(1);
-        Transaction t2 = new Transaction();
-        t2.setId(2);
-        List<Transaction> expected = List.of(t1, t2);
+    public void getFeedPage_firstPage_withOlderRows_returnsPageAndCursor() {
+        FeedItemDTO t1 = feedItem(3, LocalDateTime.of(2025, 10, 3, 10, 0));
+        FeedItemDTO t2 = feedItem(2, LocalDateTime.of(2025, 10, 2, 10, 0));
+        FeedItemDTO t3 = feedItem(1, LocalDateTime.of(2025, 10, 1, 10, 0));
 
-        when(transactionRepository.findBySenderIdOrReceiverIdOrderByCreatedAtDesc(7, 7)).thenReturn(expected);
+        // size 2 -> repository asked for 3 rows (one extra to detect an older page)
+        when(transactionRepository.findFeedFirstPage(7, 3)).thenReturn(List.of(t1, t2, t3));
 
-        List<Transaction> result = transactionService.getFeedForUser(7);
+        FeedPage<FeedItemDTO> page = transactionService.getFeedPage(7, null, 2);
 
-        verify(transactionRepository).findBySenderIdOrReceiverIdOrderByCreatedAtDesc(7, 7);
+        assertEquals(List.of(t1, t2), page.getItems());
+        assertTrue(page.hasMore());
+        assertEquals(new FeedCursor(t2.getCreatedAt(), 2), page.getNextCursor());
+    }
 
-        assertEquals(expected, result);
-        assertEquals(2, result.size());
-        assertEquals(1, result.get(0).getId());
-        assertEquals(2, result.get(1).getId());
+    @Test
+    public void getFeedPage_afterCursor_lastPage_hasNoCursor() {
+        FeedCursor before = new FeedCursor(LocalDateTime.of(2025, 10, 2, 10, 0), 2);
+        FeedItemDTO t1 = feedItem(1, LocalDateTime.of(2025, 10, 1, 10, 0));
+
+        when(transactionRepository.findFeedBefore(7, before.getCreatedAt(), 2, 3)).thenReturn(List.of(t1));
+
+        FeedPage<FeedItemDTO> page = transactionService.getFeedPage(7, before, 2);
+
+        assertEquals(List.of(t1), page.getItems());
+        assertFalse(page.hasMore());
+        assertNull(page.getNextCursor());
+        verify(transactionRepository, never()).findFeedFirstPage(anyInt(), anyInt());
     }
 
     @Test
-    public void getFeedForUser_nullId_throwsException() {
+    public void getFeedPage_noTransaction_isEmptyWithoutCursor() {
+        when(transactionRepository.findFeedFirstPage(7, 21)).thenReturn(List.of());
+
+        FeedPage<FeedItemDTO> page = transactionService.getFeedPage(7, null, 20);
+
+        assertTrue(page.getItems().isEmpty());
+        assertFalse(page.hasMore());
+        assertNull(page.getNextCursor());
+        verify(transactionRepository).findFeedFirstPage(7, 21);
+        verifyNoMoreInteractions(transactionRepository);
+    }
+
+    @Test
+    public void getFeedPage_sizeIsBounded() {
+        when(transactionRepository.findFeedFirstPage(7, TransactionService.MAX_FEED_PAGE_SIZE + 1))
+                .thenReturn(List.of());
+
+        FeedPage<FeedItemDTO> page = transactionService.getFeedPage(7, null, 10_000);
+
+        assertTrue(page.getItems().isEmpty());
+        assertFalse(page.hasMore());
+    }
+
+    @Test
+    public void getFeedPage_nullId_throwsException() {
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
-                () -> transactionService.getFeedForUser(null));
+                () -> transactionService.getFeedPage(null, null, 20));
 
         assertEquals("User id must not be null.", ex.getMessage());
         verifyNoInteractions(transactionRepository);
     }
+
+    @Test
+    public void feedCursor_encodeDecode_roundTrip() {
+        FeedCursor cursor = new FeedCursor(LocalDateTime.of(2025, 10, 24, 11, 27, 58), 11);
+
+        assertEquals(cursor, FeedCursor.decode(cursor.encode()));
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode("%%%"));
+        assertThrows(IllegalArgumentException.class, () -> FeedCursor.decode(null));
+    }
 }
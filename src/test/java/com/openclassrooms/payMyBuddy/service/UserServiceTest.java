@@ -1,8 +1,10 @@
 package com.openclassrooms.payMyBuddy.service;
 
+import com.openclassrooms.payMyBuddy.dto.AccountSummaryDTO;
 import com.openclassrooms.payMyBuddy.model.Transaction;
 import com.openclassrooms.payMyBuddy.model.User;
 import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import com.openclassrooms.payMyBuddy.security.UserDetailsCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,6 +16,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.math.BigDecimal;
 import java.util.HashSet;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -26,6 +29,7 @@ class UserServiceTest {
     @Mock UserRepository userRepository;
     @Mock PasswordEncoder passwordEncoder;
     @Mock WalletService walletService;
+    @Mock UserDetailsCache userDetailsCache;
 
     @InjectMocks UserService service;
 
@@ -49,7 +53,7 @@ class UserServiceTest {
 
     @BeforeEach
     void resetMocks() {
-        reset(userRepository, passwordEncoder, walletService);
+        reset(userRepository, passwordEncoder, walletService, userDetailsCache);
     }
 
     // BASIC READ METHODS
@@ -68,6 +72,26 @@ class UserServiceTest {
         verifyNoInteractions(userRepository);
     }
 
+    // JSON API read models: projections only, never the entity
+    @Test
+    void getAccountSummary_andUserIdByEmail_useProjections() {
+        AccountSummaryDTO summary = new AccountSummaryDTO(1, "U", "u@e.com", new BigDecimal("5.00"));
+        when(userRepository.findAccountSummaryById(1)).thenReturn(Optional.of(summary));
+        when(userRepository.findIdByEmail("u@e.com")).thenReturn(Optional.of(1));
+
+        assertSame(summary, service.getAccountSummary(1));
+        assertEquals(Optional.of(1), service.getUserIdByEmail("  U@E.com "));
+        verify(userRepository, never()).findById(any());
+        verify(userRepository, never()).findByEmail(any());
+    }
+
+    @Test
+    void getAccountSummary_missing_throwsNoSuchElement() {
+        when(userRepository.findAccountSummaryById(1)).thenReturn(Optional.empty());
+        assertThrows(NoSuchElementException.class, () -> service.getAccountSummary(1));
+        assertThrows(IllegalArgumentException.class, () -> service.getConnections(null));
+    }
+
     // REGISTERING
 
     // Success encodes password, normalizes email, sets defaults, and saves
@@ -138,11 +162,10 @@ class UserServiceTest {
         verifyNoInteractions(passwordEncoder);
     }
 
-    // Creates new via registerUser with default username if name empty
+    // Creates a provider-only account (no BCrypt) with default username if name empty
     @Test
     void getOrCreateOAuth2User_missing_createsNew_withFallbackUsername() {
         when(userRepository.findByEmail("new@e.com")).thenReturn(Optional.empty());
-        when(passwordEncoder.encode(anyString())).thenReturn("ENC(random)");
         when(userRepository.save(any(User.class))).thenAnswer(inv -> {
             User u = inv.getArgument(0);
             u.setId(2);
@@ -154,9 +177,11 @@ class UserServiceTest {
         assertEquals(2, res.getId());
         assertEquals("new@e.com", res.getEmail());
         assertEquals("new@e.com", res.getUsername()); // fallback
-        assertNotNull(res.getPassword()); // random then encoded by registerUser
-        verify(userRepository, atLeast(1)).findByEmail("new@e.com");
+        assertEquals(UserService.OAUTH2_ONLY_PASSWORD, res.getPassword());
+        assertEquals(BigDecimal.ZERO, res.getBalance());
+        verify(userRepository, times(1)).findByEmail("new@e.com");
         verify(userRepository).save(any(User.class));
+        verifyNoInteractions(passwordEncoder);
     }
 
     // Null email should throw
@@ -393,6 +418,9 @@ class UserServiceTest {
         assertEquals("new@e.com", saved.getEmail());
         assertEquals("oldPwd", saved.getPassword()); // unchanged
         verify(userRepository).save(me);
+        // cached login entries of the old and the new email are dropped
+        verify(userDetailsCache).removeUserFromCache("old@e.com");
+        verify(userDetailsCache).removeUserFromCache("new@e.com");
     }
 
     // Changing email to one already used by another user should throw
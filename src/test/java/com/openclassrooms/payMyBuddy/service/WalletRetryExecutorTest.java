@@ -0,0 +1,127 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.model.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WalletRetryExecutorTest {
+
+    private WalletRetryProperties properties;
+    private WalletRetryExecutor retry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new WalletRetryProperties();
+        properties.setDefaults(new WalletRetryProperties.Policy(3, 0, 0)); // no sleep in tests
+        retry = new WalletRetryExecutor(properties);
+    }
+
+    @Test
+    void execute_success_firstAttempt_noConflictRecorded() {
+        String result = retry.execute(TransactionType.TOP_UP, () -> "ok", 1);
+
+        assertEquals("ok", result);
+        assertEquals(0, retry.getConflicts(TransactionType.TOP_UP));
+        assertEquals(0, retry.getConflictsForAccount(1));
+    }
+
+    @Test
+    void execute_optimisticConflict_retriedUntilSuccess_andCountedPerAccount() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = retry.execute(TransactionType.P2P_TRANSFER, () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("User", 2);
+            }
+            return "ok";
+        }, 1, 2);
+
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+        assertEquals(2, retry.getConflicts(TransactionType.P2P_TRANSFER));
+        assertEquals(2, retry.getConflictsForAccount(1));
+        assertEquals(2, retry.getConflictsForAccount(2));
+        assertEquals(0, retry.getExhausted(TransactionType.P2P_TRANSFER));
+    }
+
+    @Test
+    void execute_conflictOnEveryAttempt_givesUpAfterMaxAttempts() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(CannotAcquireLockException.class, () -> retry.execute(TransactionType.WITHDRAWAL, () -> {
+            calls.incrementAndGet();
+            throw new CannotAcquireLockException("lock wait timeout");
+        }, 1));
+
+        assertEquals(3, calls.get());
+        assertEquals(1, retry.getExhausted(TransactionType.WITHDRAWAL));
+    }
+
+    @Test
+    void execute_businessException_notRetried() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> retry.execute(TransactionType.P2P_TRANSFER, () -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("Insufficient balance");
+        }, 1, 2));
+
+        assertEquals(1, calls.get());
+        assertEquals(0, retry.getConflicts(TransactionType.P2P_TRANSFER));
+    }
+
+    @Test
+    void execute_usesPerOperationPolicy() {
+        properties.getOperations().put(TransactionType.TOP_UP, new WalletRetryProperties.Policy(1, 0, 0));
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(CannotAcquireLockException.class, () -> retry.execute(TransactionType.TOP_UP, () -> {
+            calls.incrementAndGet();
+            throw new CannotAcquireLockException("deadlock");
+        }, 1));
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void mostConflictedAccounts_hottestFirst_upToLimit() {
+        for (int i = 0; i < 3; i++) {
+            conflictOnce(7, 1);
+        }
+        conflictOnce(7, 2);
+        conflictOnce(3);
+
+        assertEquals(4, retry.getTrackedAccounts());
+        assertEquals(List.of(7, 1), List.copyOf(retry.getMostConflictedAccounts(2).keySet()));
+        assertEquals(4L, retry.getMostConflictedAccounts(2).get(7));
+        assertEquals(3L, retry.getMostConflictedAccounts(2).get(1));
+    }
+
+    // one conflict, then success
+    private void conflictOnce(Integer... accountIds) {
+        AtomicInteger calls = new AtomicInteger();
+        retry.execute(TransactionType.P2P_TRANSFER, () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException("User", accountIds[0]);
+            }
+            return "ok";
+        }, accountIds);
+    }
+
+    @Test
+    void backoff_isCappedAndJittered() {
+        WalletRetryProperties.Policy policy = new WalletRetryProperties.Policy(5, 10, 50);
+
+        for (int attempt = 1; attempt <= 10; attempt++) {
+            long backoff = retry.backoffMillis(policy, attempt);
+            assertTrue(backoff >= 0 && backoff <= Math.min(50, 10L << (attempt - 1)), "attempt " + attempt + " -> " + backoff);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.openclassrooms.payMyBuddy.service;
+
+import com.openclassrooms.payMyBuddy.model.User;
+import com.openclassrooms.payMyBuddy.dto.ReconciliationReport;
+import com.openclassrooms.payMyBuddy.model.LedgerAccount;
+import com.openclassrooms.payMyBuddy.model.LedgerPosting;
+import com.openclassrooms.payMyBuddy.repository.LedgerPostingRepository;
+import com.openclassrooms.payMyBuddy.repository.TransactionRepository;
+import com.openclassrooms.payMyBuddy.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Real MySQL: proves the guarded UPDATE serialises concurrent debits on the same row (no double-spend, no deadlock)
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({WalletService.class, WalletRetryExecutor.class, WalletRetryProperties.class, BankAccountResolver.class,
+        IdempotencyKeyStore.class, LedgerService.class, BalanceReconciliationService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // each transfer commits on its own, like in production
+@TestPropertySource(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false", // schema from the entities, dropped with the context
+        "spring.datasource.hikari.maximum-pool-size=32",
+        "paymybuddy.bank.fail-fast=false" // schema is created empty, the bank is inserted per test
+})
+class WalletServiceConcurrencyIT {
+
+    private static final int THREADS = 32;
+
+    @Container
+    static MySQLContainer<?> mysql = new MySQLContainer<>("mysql:8.0");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", mysql::getJdbcUrl);
+        registry.add("spring.datasource.username", mysql::getUsername);
+        registry.add("spring.datasource.password", mysql::getPassword);
+    }
+
+    @Autowired WalletService walletService;
+    @Autowired UserRepository userRepository;
+    @Autowired TransactionRepository transactionRepository;
+    @Autowired BankAccountResolver bankAccountResolver;
+    @Autowired LedgerPostingRepository ledgerPostingRepository;
+    @Autowired BalanceReconciliationService reconciliationService;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void cleanDatabase() {
+        ledgerPostingRepository.deleteAllInBatch();
+        transactionRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        user("bank", "0.00", true);
+        bankAccountResolver.refresh(); // new bank id for this test
+    }
+
+    private User user(String name, String balance, boolean bank) {
+        User u = new User();
+        u.setUsername(name);
+        u.setEmail(name + "@test.com");
+        u.setPassword("x");
+        u.setBalance(new BigDecimal(balance));
+        u.setBank(bank);
+        return userRepository.save(u);
+    }
+
+    private BigDecimal balanceOf(User u) {
+        return userRepository.findById(u.getId()).orElseThrow().getBalance();
+    }
+
+    // Runs every task on THREADS threads released at the same time; returns the unexpected errors
+    private List<Throwable> runConcurrently(List<Runnable> tasks) throws InterruptedException {
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        for (Runnable task : tasks) {
+            pool.submit(() -> {
+                try {
+                    start.await();
+                    task.run();
+                } catch (Throwable t) {
+                    errors.add(t);
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.MINUTES), "transfers did not finish");
+        return new ArrayList<>(errors);
+    }
+
+    @Test
+    void thousandsOfParallelTransfers_fromOnePayer_neverOverdraw() throws InterruptedException {
+        User payer = user("payer", "1000.00", false);
+        List<User> receivers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            receivers.add(user("receiver" + i, "0.00", false));
+        }
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            Integer receiverId = receivers.get(i % receivers.size()).getId();
+            tasks.add(() -> {
+                try {
+                    walletService.transferP2P(payer.getId(), receiverId, new BigDecimal("1.00"), "load");
+                    succeeded.incrementAndGet();
+                } catch (IllegalStateException ex) {
+                    assertEquals("Insufficient balance", ex.getMessage());
+                    refused.incrementAndGet();
+                }
+            });
+        }
+
+        List<Throwable> errors = runConcurrently(tasks);
+
+        // each transfer debits 1.00 + 0.01 fee: 1000.00 allows exactly 990 of them
+        assertTrue(errors.isEmpty(), () -> "unexpected errors: " + errors);
+        assertEquals(990, succeeded.get());
+        assertEquals(3000 - 990, refused.get());
+        assertEquals(new BigDecimal("0.10"), balanceOf(payer));
+        BigDecimal received = receivers.stream().map(this::balanceOf).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(new BigDecimal("990.00"), received);
+        assertEquals(990, transactionRepository.count());
+
+        // ledger: every committed transfer has balanced postings, the fees went to FEE_REVENUE
+        List<LedgerPosting> postings = ledgerPostingRepository.findAll();
+        assertEquals(0, postings.stream().map(LedgerPosting::signedAmount).reduce(BigDecimal.ZERO, BigDecimal::add).signum());
+        assertEquals(new BigDecimal("9.90"), postings.stream()
+                .filter(p -> p.getAccount() == LedgerAccount.FEE_REVENUE)
+                .map(LedgerPosting::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add));
+    }
+
+    @Test
+    void crossTransfers_betweenTwoAccounts_noDeadlock_andMoneyConserved() throws InterruptedException {
+        User alice = user("alice", "500.00", false);
+        User bob = user("bob", "500.00", false);
+
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            boolean aliceToBob = (i % 2 == 0);
+            tasks.add(() -> {
+                try {
+                    walletService.transferP2P(aliceToBob ? alice.getId() : bob.getId(),
+                            aliceToBob ? bob.getId() : alice.getId(), new BigDecimal("2.00"), "ping-pong");
+                    succeeded.incrementAndGet();
+                } catch (IllegalStateException ex) {
+                    assertEquals("Insufficient balance", ex.getMessage());
+                }
+            });
+        }
+
+        List<Throwable> errors = runConcurrently(tasks);
+
+        // opposite directions lock rows in the same (ascending id) order: no deadlock victim
+        assertTrue(errors.isEmpty(), () -> "unexpected errors: " + errors);
+        BigDecimal fees = new BigDecimal("0.01").multiply(BigDecimal.valueOf(succeeded.get()));
+        assertEquals(new BigDecimal("1000.00"), balanceOf(alice).add(balanceOf(bob)).add(fees));
+        assertTrue(balanceOf(alice).signum() >= 0);
+        assertTrue(balanceOf(bob).signum() >= 0);
+        assertEquals(succeeded.get(), transactionRepository.count());
+    }
+
+    @Test
+    void sameFormSubmittedConcurrently_isAppliedOnce() throws InterruptedException {
+        User payer = user("payer", "100.00", false);
+        User payee = user("payee", "0.00", false);
+        String token = "4b1c2a6e-0d1f-4f55-9d7a-1f0b7f2f3c11";
+
+        ConcurrentLinkedQueue<Integer> returnedIds = new ConcurrentLinkedQueue<>();
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            tasks.add(() -> returnedIds.add(
+                    walletService.transferP2P(payer.getId(), payee.getId(), new BigDecimal("10.00"), "double click", token).getId()));
+        }
+
+        List<Throwable> errors = runConcurrently(tasks);
+
+        // the unique index on idempotency_key lets exactly one submission commit; the others get its result
+        assertTrue(errors.isEmpty(), () -> "unexpected errors: " + errors);
+        assertEquals(1, transactionRepository.count());
+        assertEquals(1, returnedIds.stream().distinct().count());
+        assertEquals(new BigDecimal("89.95"), balanceOf(payer));
+        assertEquals(new BigDecimal("10.00"), balanceOf(payee));
+    }
+
+    @Test
+    void reconciliation_afterConcurrentActivity_isClean_thenDetectsTampering() throws InterruptedException {
+        List<User> wallets = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            wallets.add(user("w" + i, "0.00", false)); // start at 0: every cent comes from a transaction
+        }
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (int i = 0; i < 800; i++) {
+            User from = wallets.get(i % wallets.size());
+            User to = wallets.get((i * 3 + 1) % wallets.size());
+            int op = i % 4;
+            tasks.add(() -> {
+                try {
+                    switch (op) {
+                        case 0 -> walletService.topUp(from.getId(), new BigDecimal("20.00"), "in");
+                        case 1, 2 -> walletService.transferP2P(from.getId(), to.getId(), new BigDecimal("3.00"), "p2p");
+                        default -> walletService.withdrawToBank(from.getId(), new BigDecimal("1.00"), "out");
+                    }
+                } catch (IllegalArgumentException | IllegalStateException ex) {
+                    // insufficient balance, missing IBAN/BIC or self transfer: nothing was written
+                }
+            });
+        }
+        assertTrue(runConcurrently(tasks).isEmpty());
+
+        ReconciliationReport clean = reconciliationService.reconcile();
+        assertTrue(clean.isClean(), () -> "discrepancies: " + clean.getDiscrepancies());
+        assertEquals(transactionRepository.count(), clean.getTransactionsScanned());
+        assertEquals(8, clean.getUsersChecked());
+
+        jdbcTemplate.update("UPDATE users SET balance = balance + 1.00 WHERE id = ?", wallets.get(0).getId());
+
+        ReconciliationReport tampered = reconciliationService.reconcile();
+        assertEquals(1, tampered.getDiscrepancies().size());
+        assertEquals(wallets.get(0).getId(), tampered.getDiscrepancies().get(0).getUserId());
+        assertEquals(new BigDecimal("1.00"), tampered.getDiscrepancies().get(0).getDifference());
+    }
+}
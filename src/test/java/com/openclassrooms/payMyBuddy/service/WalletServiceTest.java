@@ -8,11 +8,17 @@ import com.openclassrooms.payMyBuddy.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -23,8 +29,9 @@ class WalletServiceTest {
 
     @Mock UserRepository userRepository;
     @Mock TransactionRepository transactionRepository;
+    @Mock LedgerService ledgerService;
 
-    @InjectMocks WalletService service;
+    WalletService service;
 
     private User makeUser(Integer id, String email, String balance) {
         User u = new User();
@@ -36,7 +43,17 @@ class WalletServiceTest {
 
     @BeforeEach
     void resetMocks() {
-        reset(userRepository, transactionRepository);
+        reset(userRepository, transactionRepository, ledgerService);
+        service = new WalletService(userRepository, transactionRepository,
+                TransactionOperations.withoutTransaction(), new WalletRetryExecutor(new WalletRetryProperties()),
+                new BankAccountResolver(userRepository, true), new IdempotencyKeyStore(100, Duration.ofMinutes(30)),
+                ledgerService);
+    }
+
+    // Bank account as resolved by BankAccountResolver (lenient: P2P only compares ids, never loads the bank)
+    private void givenBank(User bank) {
+        lenient().when(userRepository.findBankIds()).thenReturn(List.of(bank.getId()));
+        lenient().when(userRepository.getReferenceById(bank.getId())).thenReturn(bank);
     }
 
     // TOP UP
@@ -47,14 +64,16 @@ class WalletServiceTest {
 
         User bank = makeUser(100, "bank@gmail.com", "0.00");
         bank.setBank(true);
-        when(userRepository.findFirstByIsBankTrue()).thenReturn(Optional.of(bank));
+        givenBank(bank);
 
-        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        when(userRepository.credit(1, new BigDecimal("99.50"))).thenReturn(1);
+        when(userRepository.getReferenceById(1)).thenReturn(user);
         when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> inv.getArgument(0));
 
         Transaction tr = service.topUp(1, new BigDecimal("100.00"), "Deposit");
 
-        assertEquals(new BigDecimal("99.50"), user.getBalance()); // 0 + 99.50
+        verify(userRepository).credit(1, new BigDecimal("99.50")); // net credited in one statement
+        verify(userRepository, never()).findById(any());
         assertNotNull(tr);
         assertEquals(TransactionType.TOP_UP, tr.getType());
         assertEquals(bank, tr.getSender());
@@ -77,11 +96,12 @@ class WalletServiceTest {
     @Test
     void topUp_rounding_halfUp_twoDecimals() {
         User user = makeUser(1, "u@e.com", "0.00");
-        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        when(userRepository.credit(1, new BigDecimal("9.96"))).thenReturn(1);
+        when(userRepository.getReferenceById(1)).thenReturn(user);
 
         User bank = makeUser(100, "bank@gmail.com", "0.00");
         bank.setBank(true);
-        when(userRepository.findFirstByIsBankTrue()).thenReturn(Optional.of(bank));
+        givenBank(bank);
 
         when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> inv.getArgument(0));
 
@@ -91,19 +111,32 @@ class WalletServiceTest {
         assertEquals(new BigDecimal("10.01"), tr.getGrossAmount());
         assertEquals(new BigDecimal("0.05"), tr.getFeeAmount());
         assertEquals(new BigDecimal("9.96"), tr.getNetAmount());
-        assertEquals(new BigDecimal("9.96"), user.getBalance());
+        verify(userRepository).credit(1, new BigDecimal("9.96"));
         assertEquals(bank, tr.getSender());
         assertEquals(user, tr.getReceiver());
     }
 
     @Test
     void topUp_bankUserNotFound_throws() {
-        when(userRepository.findFirstByIsBankTrue()).thenReturn(Optional.empty());
-        when(userRepository.findById(1)).thenReturn(Optional.of(makeUser(1, "u@e.com", "0.00")));
+        when(userRepository.findBankIds()).thenReturn(List.of());
 
         assertThrows(IllegalStateException.class,
                 () -> service.topUp(1, new BigDecimal("1.00"), "x"));
 
+        verify(userRepository, never()).credit(any(), any());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    void topUp_userNotFound_throws() {
+        User bank = makeUser(100, "bank@gmail.com", "0.00");
+        bank.setBank(true);
+        givenBank(bank);
+        when(userRepository.credit(1, new BigDecimal("0.99"))).thenReturn(0);
+
+        assertThrows(NoSuchElementException.class,
+                () -> service.topUp(1, new BigDecimal("1.00"), "x"));
+
         verify(transactionRepository, never()).save(any());
     }
 
@@ -113,19 +146,24 @@ class WalletServiceTest {
     void transferP2P_success_debitsSender_creditsReceiver_andSavesTransaction() {
         User sender = makeUser(1, "s@e.com", "200.00");
         User receiver = makeUser(2, "r@e.com", "5.00");
-        when(userRepository.findById(1)).thenReturn(Optional.of(sender));
-        when(userRepository.findById(2)).thenReturn(Optional.of(receiver));
+        when(userRepository.debitIfSufficient(1, new BigDecimal("100.50"))).thenReturn(1);
+        when(userRepository.credit(2, new BigDecimal("100.00"))).thenReturn(1);
+        when(userRepository.getReferenceById(1)).thenReturn(sender);
+        when(userRepository.getReferenceById(2)).thenReturn(receiver);
 
         User bank = makeUser(100, "bank@gmail.com", "0.00");
         bank.setBank(true);
-        when(userRepository.findFirstByIsBankTrue()).thenReturn(Optional.of(bank));
+        givenBank(bank);
 
         when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> inv.getArgument(0));
 
         Transaction tr = service.transferP2P(1, 2, new BigDecimal("100.00"), "Pay dinner");
 
-        assertEquals(new BigDecimal("99.50"), sender.getBalance());       // 200 - (100 + 0.50)
-        assertEquals(new BigDecimal("105.00"), receiver.getBalance());    // 5 + 100
+        // lower id first: debit sender (100 + 0.50) then credit receiver (100)
+        InOrder order = inOrder(userRepository);
+        order.verify(userRepository).debitIfSufficient(1, new BigDecimal("100.50"));
+        order.verify(userRepository).credit(2, new BigDecimal("100.00"));
+        verify(userRepository, never()).findById(any());
         assertEquals(TransactionType.P2P_TRANSFER, tr.getType());
         assertEquals(sender, tr.getSender());
         assertEquals(receiver, tr.getReceiver());
@@ -137,21 +175,65 @@ class WalletServiceTest {
 
     @Test
     void transferP2P_insufficientBalance_throws() {
-        User sender = makeUser(1, "s@e.com", "100.49"); // pas assez pour 100 + 0.50
-        User receiver = makeUser(2, "r@e.com", "0.00");
+        User bank = makeUser(100, "bank@gmail.com", "0.00");
+        bank.setBank(true);
+        givenBank(bank);
 
+        // guarded update matches no row: balance < 100 + 0.50
+        when(userRepository.debitIfSufficient(1, new BigDecimal("100.50"))).thenReturn(0);
+        when(userRepository.existsById(1)).thenReturn(true);
+
+        WalletOperationRefusedException ex = assertThrows(WalletOperationRefusedException.class,
+                () -> service.transferP2P(1, 2, new BigDecimal("100.00"), "Pay"));
+
+        assertEquals("Insufficient balance", ex.getMessage());
+        verify(userRepository, never()).credit(any(), any());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    void transferP2P_receiverHasLowerId_locksReceiverFirst() {
         User bank = makeUser(100, "bank@gmail.com", "0.00");
         bank.setBank(true);
-        when(userRepository.findFirstByIsBankTrue()).thenReturn(Optional.of(bank));
+        givenBank(bank);
+        when(userRepository.credit(1, new BigDecimal("10.00"))).thenReturn(1);
+        when(userRepository.debitIfSufficient(2, new BigDecimal("10.05"))).thenReturn(1);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> inv.getArgument(0));
 
-        when(userRepository.findById(1)).thenReturn(Optional.of(sender));
-        when(userRepository.findById(2)).thenReturn(Optional.of(receiver));
+        service.transferP2P(2, 1, new BigDecimal("10.00"), "back");
 
+        InOrder order = inOrder(userRepository);
+        order.verify(userRepository).credit(1, new BigDecimal("10.00"));
+        order.verify(userRepository).debitIfSufficient(2, new BigDecimal("10.05"));
+    }
+
+    @Test
+    void transferP2P_receiverFirst_debitRefused_throws() {
+        User bank = makeUser(100, "bank@gmail.com", "0.00");
+        bank.setBank(true);
+        givenBank(bank);
+        when(userRepository.credit(1, new BigDecimal("10.00"))).thenReturn(1);
+        when(userRepository.debitIfSufficient(2, new BigDecimal("10.05"))).thenReturn(0);
+        when(userRepository.existsById(2)).thenReturn(true);
+
+        // the exception rolls back the credit already applied (@Transactional)
         assertThrows(IllegalStateException.class,
-                () -> service.transferP2P(1, 2, new BigDecimal("100.00"), "Pay"));
+                () -> service.transferP2P(2, 1, new BigDecimal("10.00"), "back"));
+
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    void transferP2P_senderNotFound_throws() {
+        User bank = makeUser(100, "bank@gmail.com", "0.00");
+        bank.setBank(true);
+        givenBank(bank);
+        when(userRepository.debitIfSufficient(1, new BigDecimal("10.05"))).thenReturn(0);
+        when(userRepository.existsById(1)).thenReturn(false);
+
+        assertThrows(NoSuchElementException.class,
+                () -> service.transferP2P(1, 2, new BigDecimal("10.00"), "x"));
 
-        assertEquals(new BigDecimal("100.49"), sender.getBalance());
-        assertEquals(new BigDecimal("0.00"), receiver.getBalance());
         verify(transactionRepository, never()).save(any());
     }
 
@@ -170,13 +252,13 @@ class WalletServiceTest {
     void transferP2P_amountTooSmall_throws() {
         User bank = makeUser(100, "bank@gmail.com", "0.00");
         bank.setBank(true);
-        when(userRepository.findFirstByIsBankTrue()).thenReturn(Optional.of(bank));
+        givenBank(bank);
 
         assertThrows(IllegalArgumentException.class,
                 () -> service.transferP2P(1, 2, new BigDecimal("0.009"), "tiny"));
 
-        verify(userRepository).findFirstByIsBankTrue();
-        verify(userRepository, never()).findById(any());
+        verify(userRepository, never()).findFirstByIsBankTrue();
+        verify(userRepository, never()).debitIfSufficient(any(), any());
         verify(transactionRepository, never()).save(any());
     }
 
@@ -185,13 +267,13 @@ class WalletServiceTest {
         // bank user has id 100
         User bank = makeUser(100, "bank@gmail.com", "0.00");
         bank.setBank(true);
-        when(userRepository.findFirstByIsBankTrue()).thenReturn(Optional.of(bank));
+        givenBank(bank);
 
         // on ne va pas jusqu’au chargement des users si l’ID = bank
         assertThrows(IllegalArgumentException.class,
                 () -> service.transferP2P(100, 2, new BigDecimal("10.00"), "x"));
 
-        verify(userRepository, never()).findById(100);
+        verify(userRepository, never()).debitIfSufficient(any(), any());
         verify(transactionRepository, never()).save(any());
     }
 
@@ -199,18 +281,18 @@ class WalletServiceTest {
     void transferP2P_bankUserInvolved_receiver_throws() {
         User bank = makeUser(100, "bank@gmail.com", "0.00");
         bank.setBank(true);
-        when(userRepository.findFirstByIsBankTrue()).thenReturn(Optional.of(bank));
+        givenBank(bank);
 
         assertThrows(IllegalArgumentException.class,
                 () -> service.transferP2P(1, 100, new BigDecimal("10.00"), "x"));
 
-        verify(userRepository, never()).findById(100);
+        verify(userRepository, never()).credit(any(), any());
         verify(transactionRepository, never()).save(any());
     }
 
     @Test
     void transferP2P_bankUserNotFound_throws() {
-        when(userRepository.findFirstByIsBankTrue()).thenReturn(Optional.empty());
+        when(userRepository.findBankIds()).thenReturn(List.of());
         assertThrows(IllegalStateException.class,
                 () -> service.transferP2P(1, 2, new BigDecimal("1.00"), "x"));
         verify(transactionRepository, never()).save(any());
@@ -227,14 +309,16 @@ class WalletServiceTest {
 
         User bank = makeUser(100, "bank@gmail.com", "0.00");
         bank.setBank(true);
-        when(userRepository.findFirstByIsBankTrue()).thenReturn(Optional.of(bank));
+        givenBank(bank);
 
         when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> inv.getArgument(0));
 
+        when(userRepository.debitIfSufficient(1, new BigDecimal("50.25"))).thenReturn(1);
+
         // amount=50.00; fee=0.25; total=50.25
         Transaction tr = service.withdrawToBank(1, new BigDecimal("50.00"), "Cash out");
 
-        assertEquals(new BigDecimal("149.75"), user.getBalance());
+        verify(userRepository).debitIfSufficient(1, new BigDecimal("50.25"));
         assertEquals(TransactionType.WITHDRAWAL, tr.getType());
         assertEquals(user, tr.getSender());
         assertEquals(bank, tr.getReceiver());
@@ -249,11 +333,11 @@ class WalletServiceTest {
         User user = makeUser(1, "u@e.com", "100.00"); // IBAN/BIC manquants
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
 
-        assertThrows(IllegalStateException.class,
+        assertThrows(WalletOperationRefusedException.class,
                 () -> service.withdrawToBank(1, new BigDecimal("10.00"), "Cash out"));
 
         verify(transactionRepository, never()).save(any());
-        assertEquals(new BigDecimal("100.00"), user.getBalance());
+        verify(userRepository, never()).debitIfSufficient(any(), any());
     }
 
     @Test
@@ -263,11 +347,18 @@ class WalletServiceTest {
         user.setBic("BICXXX");
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
 
-        assertThrows(IllegalStateException.class,
+        User bank = makeUser(100, "bank@gmail.com", "0.00");
+        bank.setBank(true);
+        givenBank(bank);
+
+        // fee=0.05; total=10.15 > 10.10 → guarded update matches no row
+        when(userRepository.debitIfSufficient(1, new BigDecimal("10.15"))).thenReturn(0);
+        when(userRepository.existsById(1)).thenReturn(true);
+
+        WalletOperationRefusedException ex = assertThrows(WalletOperationRefusedException.class,
                 () -> service.withdrawToBank(1, new BigDecimal("10.10"), "Cash out"));
 
-        // fee=0.05; total=10.15 > 10.10 → no change
-        assertEquals(new BigDecimal("10.10"), user.getBalance());
+        assertEquals("Insufficient balance for withdrawal + fee", ex.getMessage());
         verify(transactionRepository, never()).save(any());
     }
 
@@ -285,11 +376,228 @@ class WalletServiceTest {
         user.setBic("BICXXX");
         when(userRepository.findById(1)).thenReturn(Optional.of(user));
 
-        when(userRepository.findFirstByIsBankTrue()).thenReturn(Optional.empty());
+        when(userRepository.findBankIds()).thenReturn(List.of());
 
         assertThrows(IllegalStateException.class,
                 () -> service.withdrawToBank(1, new BigDecimal("10.00"), "x"));
 
+        verify(userRepository, never()).debitIfSufficient(any(), any());
         verify(transactionRepository, never()).save(any());
     }
-}
\ No newline at end of file
+
+    // RETRY ON CONFLICT
+
+    @Test
+    void transferP2P_lockConflict_isRetried_thenSucceeds() {
+        User bank = makeUser(100, "bank@gmail.com", "0.00");
+        bank.setBank(true);
+        givenBank(bank);
+        when(userRepository.debitIfSufficient(1, new BigDecimal("10.05")))
+                .thenThrow(new CannotAcquireLockException("deadlock"))
+                .thenReturn(1);
+        when(userRepository.credit(2, new BigDecimal("10.00"))).thenReturn(1);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        Transaction tr = service.transferP2P(1, 2, new BigDecimal("10.00"), "retry");
+
+        assertNotNull(tr);
+        verify(userRepository, times(2)).debitIfSufficient(1, new BigDecimal("10.05"));
+        verify(transactionRepository, times(1)).save(any());
+    }
+
+    @Test
+    void transferP2P_businessError_isNotRetried() {
+        User bank = makeUser(100, "bank@gmail.com", "0.00");
+        bank.setBank(true);
+        givenBank(bank);
+        when(userRepository.debitIfSufficient(1, new BigDecimal("10.05"))).thenReturn(0);
+        when(userRepository.existsById(1)).thenReturn(true);
+
+        assertThrows(IllegalStateException.class,
+                () -> service.transferP2P(1, 2, new BigDecimal("10.00"), "x"));
+
+        verify(userRepository, times(1)).debitIfSufficient(any(), any());
+    }
+
+    // BANK ACCOUNT RESOLUTION
+
+    @Test
+    void bankAccount_resolvedOnce_forSeveralOperations() {
+        User bank = makeUser(100, "bank@gmail.com", "0.00");
+        bank.setBank(true);
+        givenBank(bank);
+        when(userRepository.credit(1, new BigDecimal("9.95"))).thenReturn(1);
+        when(userRepository.debitIfSufficient(1, new BigDecimal("5.03"))).thenReturn(1);
+        when(userRepository.credit(2, new BigDecimal("5.00"))).thenReturn(1);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        service.topUp(1, new BigDecimal("10.00"), "a");
+        service.transferP2P(1, 2, new BigDecimal("5.00"), "b");
+        service.topUp(1, new BigDecimal("10.00"), "c");
+
+        verify(userRepository, times(1)).findBankIds();
+        verify(userRepository, never()).findFirstByIsBankTrue();
+    }
+
+    // IDEMPOTENCY
+
+    private static final String TOKEN = "4b1c2a6e-0d1f-4f55-9d7a-1f0b7f2f3c11";
+
+    @Test
+    void transferP2P_sameToken_twice_movesMoneyOnce_andReturnsOriginal() {
+        User bank = makeUser(100, "bank@gmail.com", "0.00");
+        bank.setBank(true);
+        givenBank(bank);
+        when(userRepository.debitIfSufficient(1, new BigDecimal("10.05"))).thenReturn(1);
+        when(userRepository.credit(2, new BigDecimal("10.00"))).thenReturn(1);
+        when(userRepository.getReferenceById(1)).thenReturn(makeUser(1, "user@example.com", "0.00"));
+        when(userRepository.getReferenceById(2)).thenReturn(makeUser(2, "friend@example.com", "0.00"));
+        when(transactionRepository.findByIdempotencyKey("1:" + TOKEN)).thenReturn(Optional.empty());
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        Transaction first = service.transferP2P(1, 2, new BigDecimal("10.00"), "x", TOKEN);
+        Transaction second = service.transferP2P(1, 2, new BigDecimal("10.00"), "x", TOKEN);
+
+        // the replay comes from the key store: same values, detached from any session (no sender/receiver)
+        assertEquals(first.getType(), second.getType());
+        assertEquals(first.getGrossAmount(), second.getGrossAmount());
+        assertEquals(first.getNetAmount(), second.getNetAmount());
+        assertNull(second.getReceiver());
+        assertEquals("1:" + TOKEN, first.getIdempotencyKey()); // scoped per user for the unique index
+        assertEquals(first.getIdempotencyKey(), second.getIdempotencyKey());
+        verify(userRepository, times(1)).debitIfSufficient(any(), any());
+        verify(transactionRepository, times(1)).save(any());
+    }
+
+    @Test
+    void topUp_tokenAlreadyInDatabase_returnsStoredTransaction_withoutRunning() {
+        Transaction stored = new Transaction();
+        stored.setId(42);
+        stored.setType(TransactionType.TOP_UP);
+        stored.setGrossAmount(new BigDecimal("100.00"));
+        when(transactionRepository.findByIdempotencyKey("1:" + TOKEN)).thenReturn(Optional.of(stored));
+
+        Transaction tr = service.topUp(1, new BigDecimal("100"), "Deposit", TOKEN);
+
+        assertSame(stored, tr);
+        verify(userRepository, never()).credit(any(), any());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    void withdraw_concurrentDuplicate_uniqueConstraint_returnsWinner() {
+        User user = makeUser(1, "u@e.com", "200.00");
+        user.setIban("FR761234567890");
+        user.setBic("AGRIFRPP");
+        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        User bank = makeUser(100, "bank@gmail.com", "0.00");
+        bank.setBank(true);
+        givenBank(bank);
+        when(userRepository.debitIfSufficient(1, new BigDecimal("20.10"))).thenReturn(1);
+
+        Transaction winner = new Transaction();
+        winner.setId(7);
+        winner.setType(TransactionType.WITHDRAWAL);
+        winner.setGrossAmount(new BigDecimal("20.00"));
+        when(transactionRepository.findByIdempotencyKey("1:" + TOKEN))
+                .thenReturn(Optional.empty())       // not there yet when we start
+                .thenReturn(Optional.of(winner));   // committed by the other request meanwhile
+        when(transactionRepository.save(any(Transaction.class)))
+                .thenThrow(new DataIntegrityViolationException("Duplicate entry for ux_transactions_idempotency_key"));
+
+        Transaction tr = service.withdrawToBank(1, new BigDecimal("20.00"), "cash", TOKEN);
+
+        assertSame(winner, tr);
+    }
+
+    @Test
+    void topUp_sameTokenThirdTime_servedFromKeyStore_withoutDatabase() {
+        Transaction stored = new Transaction();
+        stored.setId(42);
+        stored.setType(TransactionType.TOP_UP);
+        stored.setGrossAmount(new BigDecimal("100.00"));
+        stored.setNetAmount(new BigDecimal("100.00"));
+        when(transactionRepository.findByIdempotencyKey("1:" + TOKEN)).thenReturn(Optional.of(stored));
+
+        service.topUp(1, new BigDecimal("100"), "Deposit", TOKEN);
+        Transaction tr = service.topUp(1, new BigDecimal("100"), "Deposit", TOKEN);
+
+        assertNotSame(stored, tr); // the store keeps values, not the entity
+        assertEquals(42, tr.getId());
+        assertEquals(new BigDecimal("100.00"), tr.getGrossAmount());
+        verify(transactionRepository, times(1)).findByIdempotencyKey("1:" + TOKEN);
+    }
+
+    @Test
+    void topUp_sameTokenWithOtherAmount_throws() {
+        Transaction stored = new Transaction();
+        stored.setId(42);
+        stored.setType(TransactionType.TOP_UP);
+        stored.setGrossAmount(new BigDecimal("100.00"));
+        when(transactionRepository.findByIdempotencyKey("1:" + TOKEN)).thenReturn(Optional.of(stored));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> service.topUp(1, new BigDecimal("150"), "Deposit", TOKEN));
+
+        assertEquals("This form has already been submitted, please reload the page.", ex.getMessage());
+        verify(userRepository, never()).credit(any(), any());
+    }
+
+    @Test
+    void transferP2P_sameTokenToAnotherReceiver_throws_withoutMovingMoney() {
+        Transaction stored = new Transaction();
+        stored.setId(42);
+        stored.setType(TransactionType.P2P_TRANSFER);
+        stored.setGrossAmount(new BigDecimal("10.00"));
+        stored.setReceiver(makeUser(2, "friend@example.com", "0.00"));
+        when(transactionRepository.findByIdempotencyKey("1:" + TOKEN)).thenReturn(Optional.of(stored));
+
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> service.transferP2P(1, 3, new BigDecimal("10.00"), "x", TOKEN));
+
+        assertEquals("This form has already been submitted, please reload the page.", ex.getMessage());
+        verify(userRepository, never()).debitIfSufficient(any(), any());
+        verify(transactionRepository, never()).save(any());
+    }
+
+    @Test
+    void topUp_invalidToken_throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.topUp(1, new BigDecimal("10"), "x", "bad token!"));
+        verifyNoInteractions(userRepository, transactionRepository);
+    }
+
+    // LEDGER
+
+    @Test
+    void transferP2P_recordsLedgerPostings_forSavedTransaction() {
+        User bank = makeUser(100, "bank@gmail.com", "0.00");
+        bank.setBank(true);
+        givenBank(bank);
+        when(userRepository.debitIfSufficient(1, new BigDecimal("10.05"))).thenReturn(1);
+        when(userRepository.credit(2, new BigDecimal("10.00"))).thenReturn(1);
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        Transaction tr = service.transferP2P(1, 2, new BigDecimal("10.00"), "x");
+
+        verify(ledgerService).record(tr);
+    }
+
+    @Test
+    void withdraw_insufficientBalance_noLedgerPostings() {
+        User user = makeUser(1, "u@e.com", "5.00");
+        user.setIban("FR761234567890");
+        user.setBic("AGRIFRPP");
+        when(userRepository.findById(1)).thenReturn(Optional.of(user));
+        User bank = makeUser(100, "bank@gmail.com", "0.00");
+        bank.setBank(true);
+        givenBank(bank);
+        when(userRepository.debitIfSufficient(1, new BigDecimal("20.10"))).thenReturn(0);
+        when(userRepository.existsById(1)).thenReturn(true);
+
+        assertThrows(IllegalStateException.class,
+                () -> service.withdrawToBank(1, new BigDecimal("20.00"), "cash"));
+
+        verifyNoInteractions(ledgerService);
+    }
+}